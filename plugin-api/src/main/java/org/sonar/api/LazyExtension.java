@@ -0,0 +1,159 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import javax.annotation.concurrent.Immutable;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Descriptor of an extension that is referenced by class name, so that its class is neither loaded nor linked while
+ * plugins are defined. The extension can be restricted to some {@link SonarProduct}s and {@link SonarQubeSide}s: it is
+ * dropped by {@link Plugin.Context#addExtension(LazyExtension)} if it doesn't apply to the runtime, without loading its
+ * class. Otherwise its class is loaded when the extension is first injected.
+ * <pre>
+ *   context.addExtension(LazyExtension.builder("com.mycompany.MyServerExtension")
+ *     .onlyOn(SonarQubeSide.SERVER)
+ *     .build());
+ * </pre>
+ *
+ * @since 13.12
+ */
+@Immutable
+public final class LazyExtension {
+
+  private final String className;
+  private final Set<SonarProduct> products;
+  private final Set<SonarQubeSide> sides;
+
+  private LazyExtension(Builder builder) {
+    this.className = builder.className;
+    this.products = Collections.unmodifiableSet(builder.products.clone());
+    this.sides = Collections.unmodifiableSet(builder.sides.clone());
+  }
+
+  public static Builder builder(String className) {
+    return new Builder(className);
+  }
+
+  public String className() {
+    return className;
+  }
+
+  /**
+   * Products the extension applies to. Empty if it applies to all the products.
+   */
+  public Set<SonarProduct> products() {
+    return products;
+  }
+
+  /**
+   * Sides the extension applies to. Empty if it applies to all the sides.
+   */
+  public Set<SonarQubeSide> sides() {
+    return sides;
+  }
+
+  /**
+   * Whether the extension applies to the runtime. An extension restricted to some sides only applies to {@link SonarProduct#SONARQUBE}.
+   */
+  public boolean appliesTo(SonarRuntime runtime) {
+    SonarProduct product = runtime.getProduct();
+    if (!products.isEmpty() && !products.contains(product)) {
+      return false;
+    }
+    if (sides.isEmpty()) {
+      return true;
+    }
+    return product == SonarProduct.SONARQUBE && sides.contains(runtime.getSonarQubeSide());
+  }
+
+  /**
+   * Loads the class of the extension, without initializing it.
+   *
+   * @throws IllegalStateException if the class can't be found
+   */
+  public Class<?> load(ClassLoader classLoader) {
+    try {
+      return Class.forName(className, false, classLoader);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Class of lazy extension not found: " + className, e);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    LazyExtension that = (LazyExtension) o;
+    return className.equals(that.className) && products.equals(that.products) && sides.equals(that.sides);
+  }
+
+  @Override
+  public int hashCode() {
+    return className.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "LazyExtension{" + className + ", products=" + products + ", sides=" + sides + "}";
+  }
+
+  public static final class Builder {
+    private final String className;
+    private final EnumSet<SonarProduct> products = EnumSet.noneOf(SonarProduct.class);
+    private final EnumSet<SonarQubeSide> sides = EnumSet.noneOf(SonarQubeSide.class);
+
+    private Builder(String className) {
+      requireNonNull(className, "Class name can't be null");
+      checkArgument(!className.isBlank(), "Class name can't be empty");
+      this.className = className;
+    }
+
+    /**
+     * Restricts the extension to some products. By default it applies to all the products.
+     */
+    public Builder onlyFor(SonarProduct... products) {
+      this.products.addAll(Arrays.asList(products));
+      return this;
+    }
+
+    /**
+     * Restricts the extension to some sides of SonarQube. By default it applies to all the sides.
+     */
+    public Builder onlyOn(SonarQubeSide... sides) {
+      this.sides.addAll(Arrays.asList(sides));
+      return this;
+    }
+
+    public LazyExtension build() {
+      return new LazyExtension(this);
+    }
+  }
+}
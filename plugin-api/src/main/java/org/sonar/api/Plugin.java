@@ -91,6 +91,8 @@ public interface Plugin {
   class Context {
     private final SonarRuntime sonarRuntime;
     private final List extensions = new ArrayList();
+    private final List<LazyExtension> lazyExtensions = new ArrayList<>();
+    private int droppedLazyExtensions = 0;
 
     /**
      * For unit tests only. It's recommended to use {@link org.sonar.api.internal.PluginContextImpl.Builder}
@@ -141,6 +143,9 @@ public interface Plugin {
      */
     public Context addExtension(Object extension) {
       requireNonNull(extension);
+      if (extension instanceof LazyExtension) {
+        return addExtension((LazyExtension) extension);
+      }
       this.extensions.add(extension);
       return this;
     }
@@ -149,7 +154,13 @@ public interface Plugin {
      * @see #addExtension(Object)
      */
     public Context addExtensions(Collection extensions) {
-      this.extensions.addAll(extensions);
+      for (Object extension : extensions) {
+        if (extension instanceof LazyExtension) {
+          addExtension((LazyExtension) extension);
+        } else {
+          this.extensions.add(extension);
+        }
+      }
       return this;
     }
 
@@ -163,10 +174,45 @@ public interface Plugin {
       return this;
     }
 
+    /**
+     * Add an extension referenced by class name, so that its class is not loaded while the plugin is defined. The extension
+     * is dropped if it doesn't {@link LazyExtension#appliesTo(SonarRuntime) apply} to the runtime. Otherwise its class is
+     * loaded when the extension is first injected. The same rules as {@link #addExtension(Object)} apply.
+     *
+     * @since 13.12
+     */
+    public Context addExtension(LazyExtension extension) {
+      requireNonNull(extension);
+      if (extension.appliesTo(sonarRuntime)) {
+        this.lazyExtensions.add(extension);
+      } else {
+        droppedLazyExtensions++;
+      }
+      return this;
+    }
+
     public List getExtensions() {
       return extensions;
     }
 
+    /**
+     * Lazy extensions that apply to the runtime. They are not part of {@link #getExtensions()}.
+     *
+     * @since 13.12
+     */
+    public List<LazyExtension> getLazyExtensions() {
+      return lazyExtensions;
+    }
+
+    /**
+     * Number of lazy extensions dropped because they don't apply to the runtime.
+     *
+     * @since 13.12
+     */
+    public int getDroppedLazyExtensionCount() {
+      return droppedLazyExtensions;
+    }
+
     /**
      * The configuration that contains only the few properties required to bootstrap the process, for example:
      * - conf/sonar.properties and persisted properties on web server and Compute Engine sides. The default values
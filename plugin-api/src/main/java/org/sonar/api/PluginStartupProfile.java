@@ -0,0 +1,134 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Startup statistics of a plugin, to find the plugins that slow down the startup of the scanner, web server or
+ * Compute Engine:
+ * <ul>
+ *   <li>the time spent in {@link Plugin#define(Plugin.Context)}</li>
+ *   <li>the number of classes loaded by the JVM during the definition</li>
+ *   <li>the number of extensions declared, and of lazy extensions kept or dropped</li>
+ *   <li>the number of extensions instantiated and the time spent instantiating them, as reported by the container with
+ *   {@link #recordInstantiation(long)}</li>
+ * </ul>
+ * The number of loaded classes is read from the JVM, so it is only accurate if plugins are defined one at a time.
+ *
+ * @since 13.12
+ */
+@ThreadSafe
+public final class PluginStartupProfile {
+
+  private final String pluginKey;
+  private final long defineNanos;
+  private final long loadedClasses;
+  private final int extensions;
+  private final int lazyExtensions;
+  private final int droppedLazyExtensions;
+  private final AtomicLong instantiatedExtensions = new AtomicLong();
+  private final AtomicLong instantiationNanos = new AtomicLong();
+
+  private PluginStartupProfile(String pluginKey, long defineNanos, long loadedClasses, Plugin.Context context) {
+    this.pluginKey = pluginKey;
+    this.defineNanos = defineNanos;
+    this.loadedClasses = loadedClasses;
+    this.extensions = context.getExtensions().size();
+    this.lazyExtensions = context.getLazyExtensions().size();
+    this.droppedLazyExtensions = context.getDroppedLazyExtensionCount();
+  }
+
+  /**
+   * Calls {@link Plugin#define(Plugin.Context)} and profiles it.
+   */
+  public static PluginStartupProfile define(String pluginKey, Plugin plugin, Plugin.Context context) {
+    requireNonNull(pluginKey, "Plugin key can't be null");
+    ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    long classesBefore = classLoading.getTotalLoadedClassCount();
+    long start = System.nanoTime();
+    plugin.define(context);
+    long duration = System.nanoTime() - start;
+    long classesAfter = classLoading.getTotalLoadedClassCount();
+    return new PluginStartupProfile(pluginKey, duration, classesAfter - classesBefore, context);
+  }
+
+  /**
+   * Called by the container each time it instantiates an extension of the plugin.
+   */
+  public void recordInstantiation(long durationNanos) {
+    instantiatedExtensions.incrementAndGet();
+    instantiationNanos.addAndGet(durationNanos);
+  }
+
+  public String pluginKey() {
+    return pluginKey;
+  }
+
+  public long defineNanos() {
+    return defineNanos;
+  }
+
+  public long loadedClasses() {
+    return loadedClasses;
+  }
+
+  /**
+   * Number of extensions added with {@link Plugin.Context#addExtension(Object)}.
+   */
+  public int extensions() {
+    return extensions;
+  }
+
+  /**
+   * Number of lazy extensions that apply to the runtime.
+   */
+  public int lazyExtensions() {
+    return lazyExtensions;
+  }
+
+  /**
+   * Number of lazy extensions dropped because they don't apply to the runtime.
+   */
+  public int droppedLazyExtensions() {
+    return droppedLazyExtensions;
+  }
+
+  public long instantiatedExtensions() {
+    return instantiatedExtensions.get();
+  }
+
+  public long instantiationNanos() {
+    return instantiationNanos.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Plugin %s: define %d ms, %d classes loaded, %d extensions, %d lazy extensions (%d dropped), %d extensions instantiated in %d ms",
+      pluginKey, TimeUnit.NANOSECONDS.toMillis(defineNanos), loadedClasses, extensions, lazyExtensions, droppedLazyExtensions,
+      instantiatedExtensions(), TimeUnit.NANOSECONDS.toMillis(instantiationNanos()));
+  }
+}
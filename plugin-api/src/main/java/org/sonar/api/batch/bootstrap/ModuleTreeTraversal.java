@@ -0,0 +1,277 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.bootstrap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.concurrent.Immutable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Traverses a tree of {@link ProjectDefinition} in parallel. Each module is processed by its own task of a
+ * {@link ForkJoinPool}, so that idle workers steal the modules not processed yet, whatever the shape of the tree.
+ * <p>
+ * Results are always merged in the depth-first order of {@link ProjectReactor#getProjects()}, so that they do not
+ * depend on the scheduling of tasks.
+ * <p>
+ * Example:
+ * <pre>
+ * List&lt;ModuleFiles&gt; files = ModuleTreeTraversal.of(reactor.getRoot())
+ *   .walkFiles(ForkJoinPool.commonPool(), path -&gt; path.getFileName().toString().equals("node_modules"));
+ * </pre>
+ * The tree must not be modified during a traversal.
+ *
+ * @since 13.12
+ * @deprecated since 13.12, as {@link ProjectDefinition} is deprecated since 7.6
+ */
+@Deprecated
+public final class ModuleTreeTraversal {
+
+  private final ProjectDefinition root;
+
+  private ModuleTreeTraversal(ProjectDefinition root) {
+    this.root = requireNonNull(root, "Root module can't be null");
+  }
+
+  /**
+   * Traversal of {@code root} and of all its descendants.
+   */
+  public static ModuleTreeTraversal of(ProjectDefinition root) {
+    return new ModuleTreeTraversal(root);
+  }
+
+  /**
+   * Applies {@code task} on every module, in parallel, and returns the results in depth-first order,
+   * parent before children. An exception thrown by a task is rethrown by this method. As for any {@link ForkJoinTask},
+   * it may be wrapped in an exception of the same type when it was thrown by another worker.
+   */
+  public <T> List<T> map(ForkJoinPool pool, Function<ProjectDefinition, T> task) {
+    requireNonNull(pool, "Pool can't be null");
+    requireNonNull(task, "Task can't be null");
+    return Collections.unmodifiableList(pool.invoke(new ModuleTask<>(root, task)));
+  }
+
+  /**
+   * Resolves the directories of every module then walks them, in parallel.
+   *
+   * @see #walkFiles(ProjectDefinition, Predicate)
+   */
+  public List<ModuleFiles> walkFiles(ForkJoinPool pool, Predicate<Path> exclusion) {
+    requireNonNull(exclusion, "Exclusion can't be null");
+    return map(pool, module -> walkFiles(module, exclusion));
+  }
+
+  /**
+   * Resolves the paths of {@link ProjectDefinition#sources()} and {@link ProjectDefinition#tests()} against the base
+   * directory of the module, then lists the regular files they contain. Paths that do not exist are ignored.
+   * <p>
+   * {@code exclusion} is evaluated on the absolute paths of files and directories. The content of excluded
+   * directories is not walked. Files are sorted, so that the result is stable from one execution to another.
+   * When called from a task of a {@link ForkJoinPool}, the directories are walked in parallel.
+   *
+   * @throws UncheckedIOException if a directory can't be walked
+   */
+  public static ModuleFiles walkFiles(ProjectDefinition module, Predicate<Path> exclusion) {
+    requireNonNull(module, "Module can't be null");
+    requireNonNull(exclusion, "Exclusion can't be null");
+    List<Path> sourcePaths = resolve(module, module.sources());
+    List<Path> testPaths = resolve(module, module.tests());
+    List<WalkTask> sourceTasks = walkTasks(sourcePaths, exclusion);
+    List<WalkTask> testTasks = walkTasks(testPaths, exclusion);
+    if (ForkJoinTask.inForkJoinPool()) {
+      List<WalkTask> all = new ArrayList<>(sourceTasks);
+      all.addAll(testTasks);
+      ForkJoinTask.invokeAll(all);
+    }
+    return new ModuleFiles(module, sourcePaths, testPaths, merge(sourceTasks), merge(testTasks));
+  }
+
+  private static List<Path> resolve(ProjectDefinition module, List<String> paths) {
+    Set<Path> resolved = new LinkedHashSet<>();
+    for (String path : paths) {
+      File file = new File(path);
+      if (!file.isAbsolute()) {
+        requireNonNull(module.getBaseDir(), () -> "Base directory of module " + module.getKey() + " is required to resolve " + path);
+        file = new File(module.getBaseDir(), path);
+      }
+      resolved.add(file.toPath().toAbsolutePath().normalize());
+    }
+    return List.copyOf(resolved);
+  }
+
+  private static List<WalkTask> walkTasks(List<Path> paths, Predicate<Path> exclusion) {
+    List<WalkTask> tasks = new ArrayList<>(paths.size());
+    for (Path path : paths) {
+      tasks.add(new WalkTask(path, exclusion));
+    }
+    return tasks;
+  }
+
+  private static List<Path> merge(List<WalkTask> tasks) {
+    Set<Path> files = new LinkedHashSet<>();
+    for (WalkTask task : tasks) {
+      // tasks are completed when they have been invoked by the pool, otherwise they are executed in the current thread
+      files.addAll(task.isDone() ? task.join() : task.walk());
+    }
+    return List.copyOf(files);
+  }
+
+  private static class ModuleTask<T> extends RecursiveTask<List<T>> {
+    private static final long serialVersionUID = 1L;
+    private final transient ProjectDefinition module;
+    private final transient Function<ProjectDefinition, T> function;
+
+    private ModuleTask(ProjectDefinition module, Function<ProjectDefinition, T> function) {
+      this.module = module;
+      this.function = function;
+    }
+
+    @Override
+    protected List<T> compute() {
+      List<ModuleTask<T>> children = new ArrayList<>();
+      for (ProjectDefinition child : module.getSubProjects()) {
+        ModuleTask<T> task = new ModuleTask<>(child, function);
+        task.fork();
+        children.add(task);
+      }
+      List<T> results = new ArrayList<>();
+      results.add(function.apply(module));
+      for (ModuleTask<T> child : children) {
+        results.addAll(child.join());
+      }
+      return results;
+    }
+  }
+
+  private static class WalkTask extends RecursiveTask<List<Path>> {
+    private static final long serialVersionUID = 1L;
+    private final transient Path path;
+    private final transient Predicate<Path> exclusion;
+
+    private WalkTask(Path path, Predicate<Path> exclusion) {
+      this.path = path;
+      this.exclusion = exclusion;
+    }
+
+    @Override
+    protected List<Path> compute() {
+      return walk();
+    }
+
+    private List<Path> walk() {
+      if (!Files.exists(path) || exclusion.test(path)) {
+        return List.of();
+      }
+      if (!Files.isDirectory(path)) {
+        return List.of(path);
+      }
+      List<Path> files = new ArrayList<>();
+      try {
+        Files.walkFileTree(path, new SimpleFileVisitor<>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            return dir.equals(path) || !exclusion.test(dir) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (attrs.isRegularFile() && !exclusion.test(file)) {
+              files.add(file);
+            }
+            return FileVisitResult.CONTINUE;
+          }
+        });
+      } catch (IOException e) {
+        throw new UncheckedIOException("Fail to walk files of " + path, e);
+      }
+      Collections.sort(files);
+      return files;
+    }
+  }
+
+  /**
+   * Directories and files of a module, as resolved by {@link #walkFiles(ProjectDefinition, Predicate)}.
+   */
+  @Immutable
+  public static final class ModuleFiles {
+    private final ProjectDefinition module;
+    private final List<Path> sourcePaths;
+    private final List<Path> testPaths;
+    private final List<Path> sourceFiles;
+    private final List<Path> testFiles;
+
+    private ModuleFiles(ProjectDefinition module, List<Path> sourcePaths, List<Path> testPaths, List<Path> sourceFiles, List<Path> testFiles) {
+      this.module = module;
+      this.sourcePaths = sourcePaths;
+      this.testPaths = testPaths;
+      this.sourceFiles = sourceFiles;
+      this.testFiles = testFiles;
+    }
+
+    public ProjectDefinition module() {
+      return module;
+    }
+
+    /**
+     * Absolute and normalized paths of {@link ProjectDefinition#sources()}, in the same order.
+     */
+    public List<Path> sourcePaths() {
+      return sourcePaths;
+    }
+
+    /**
+     * Absolute and normalized paths of {@link ProjectDefinition#tests()}, in the same order.
+     */
+    public List<Path> testPaths() {
+      return testPaths;
+    }
+
+    /**
+     * Files of {@link #sourcePaths()} that are not excluded, sorted by source path then by file path.
+     */
+    public List<Path> sourceFiles() {
+      return sourceFiles;
+    }
+
+    /**
+     * Files of {@link #testPaths()} that are not excluded, sorted by test path then by file path.
+     */
+    public List<Path> testFiles() {
+      return testFiles;
+    }
+  }
+}
@@ -37,6 +37,11 @@ import org.sonar.api.batch.sensor.SensorDescriptor;
  *     .setModuleBaseDir(path)
  *     .build();
  * </pre>
+ * <p>
+ * {@link #charset()}, {@link #md5Hash()}, {@link #lines()}, {@link #isEmpty()}, {@link #newPointer(int, int)} and the
+ * other methods depending on line offsets need the content of the file. Implementations may compute them lazily, on the
+ * first call to any of these methods, and compute all of them together in a single read of the file. See
+ * {@link InputFileMetadataReader} and {@link InputFileMetadataLoader}.
  *
  * @since 4.2
  */
@@ -25,6 +25,11 @@ import org.sonarsource.api.sonarlint.SonarLintSide;
 
 /**
  * Extension point to exclude some files from inspection
+ * <br>
+ * Filters can describe how they evaluate files, with {@link #cost()}, {@link #needsContent()} and {@link #isThreadSafe()}.
+ * This lets the scanner evaluate the filters that only need the path of files first, possibly in parallel, and read the
+ * content of files only if they are accepted by these filters. See {@link InputFileFilterPipeline}.
+ *
  * @since 4.2
  * @since 7.6 evaluated at project level
  */
@@ -36,4 +41,53 @@ public interface InputFileFilter {
 
   boolean accept(InputFile f);
 
+  /**
+   * Relative cost of {@link #accept(InputFile)}. Cheaper filters are evaluated first.
+   *
+   * @return {@link Cost#EXPENSIVE} by default
+   * @since 13.12
+   */
+  default Cost cost() {
+    return Cost.EXPENSIVE;
+  }
+
+  /**
+   * Whether {@link #accept(InputFile)} reads the content of files, or metadata computed from it, like
+   * {@link InputFile#contents()}, {@link InputFile#md5Hash()} or {@link InputFile#lines()}. Filters that
+   * return {@code false} must only use the path, name, language, type and status of files.
+   *
+   * @return true by default
+   * @since 13.12
+   */
+  default boolean needsContent() {
+    return true;
+  }
+
+  /**
+   * Whether {@link #accept(InputFile)} can be called concurrently from different threads.
+   *
+   * @return false by default
+   * @since 13.12
+   */
+  default boolean isThreadSafe() {
+    return false;
+  }
+
+  /**
+   * @since 13.12
+   */
+  enum Cost {
+    /**
+     * Simple checks on the path, like the extension or a prefix
+     */
+    CHEAP,
+    /**
+     * Pattern matching on the path, or lookups in in-memory structures
+     */
+    MODERATE,
+    /**
+     * Access to the content of the file, to the file system or to external resources
+     */
+    EXPENSIVE
+  }
 }
@@ -0,0 +1,135 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import javax.annotation.concurrent.Immutable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates {@link InputFileFilter}s in two stages:
+ * <ol>
+ *   <li>the path stage, made of the filters that don't {@link InputFileFilter#needsContent() need the content} of files</li>
+ *   <li>the content stage, made of the other filters, only evaluated on the files accepted by the path stage</li>
+ * </ol>
+ * Within each stage, filters are ordered by {@link InputFileFilter#cost() cost}, then by registration order. As the content
+ * of files and the metadata computed from it are loaded lazily, only the files accepted by the path stage pay for it.
+ * <br>
+ * A file is accepted if it is accepted by all the filters, as when filters are evaluated one by one.
+ *
+ * @since 13.12
+ */
+@Immutable
+public final class InputFileFilterPipeline {
+
+  private final Stage pathStage;
+  private final Stage contentStage;
+
+  private InputFileFilterPipeline(List<? extends InputFileFilter> filters) {
+    List<InputFileFilter> pathFilters = new ArrayList<>();
+    List<InputFileFilter> contentFilters = new ArrayList<>();
+    for (InputFileFilter filter : filters) {
+      requireNonNull(filter, "Input file filter can't be null");
+      (filter.needsContent() ? contentFilters : pathFilters).add(filter);
+    }
+    this.pathStage = new Stage(pathFilters);
+    this.contentStage = new Stage(contentFilters);
+  }
+
+  public static InputFileFilterPipeline of(List<? extends InputFileFilter> filters) {
+    return new InputFileFilterPipeline(requireNonNull(filters, "Input file filters can't be null"));
+  }
+
+  /**
+   * Whether the file is accepted by the filters of the path stage.
+   */
+  public boolean acceptPath(InputFile file) {
+    return pathStage.accept(file);
+  }
+
+  /**
+   * Whether the file is accepted by the filters of the content stage. Should only be called on files accepted by
+   * {@link #acceptPath(InputFile)}.
+   */
+  public boolean acceptContent(InputFile file) {
+    return contentStage.accept(file);
+  }
+
+  /**
+   * Whether the file is accepted by all the filters.
+   */
+  public boolean accept(InputFile file) {
+    return acceptPath(file) && acceptContent(file);
+  }
+
+  /**
+   * Filters files stage by stage. A stage is evaluated in parallel if all its filters are
+   * {@link InputFileFilter#isThreadSafe() thread-safe}, and sequentially otherwise.
+   *
+   * @return the accepted files, in the order of the given list
+   */
+  public List<InputFile> filter(List<? extends InputFile> files) {
+    List<InputFile> pathAccepted = pathStage.filter(files);
+    return contentStage.filter(pathAccepted);
+  }
+
+  private static final class Stage {
+    private final InputFileFilter[] filters;
+    private final boolean threadSafe;
+
+    private Stage(List<InputFileFilter> filters) {
+      filters.sort(Comparator.comparing(InputFileFilter::cost));
+      this.filters = filters.toArray(new InputFileFilter[0]);
+      this.threadSafe = filters.stream().allMatch(InputFileFilter::isThreadSafe);
+    }
+
+    private boolean accept(InputFile file) {
+      for (InputFileFilter filter : filters) {
+        if (!filter.accept(file)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private List<InputFile> filter(List<? extends InputFile> files) {
+      if (filters.length == 0) {
+        return new ArrayList<>(files);
+      }
+      boolean[] accepted = new boolean[files.size()];
+      IntStream indices = IntStream.range(0, files.size());
+      if (threadSafe) {
+        indices = indices.parallel();
+      }
+      indices.forEach(i -> accepted[i] = accept(files.get(i)));
+      List<InputFile> result = new ArrayList<>();
+      for (int i = 0; i < accepted.length; i++) {
+        if (accepted[i]) {
+          result.add(files.get(i));
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Metadata of the content of an {@link InputFile}, as computed by {@link InputFileMetadataReader} in a single pass
+ * over the file: charset, byte order mark, MD5 digest, additional checksums, and line offsets.
+ * <br>
+ * Offsets are expressed in characters, as the offsets of {@link TextPointer}s.
+ *
+ * @since 13.12
+ */
+@Immutable
+public final class InputFileMetadata {
+
+  private final Charset charset;
+  private final boolean hasBom;
+  private final String md5Hash;
+  private final Map<String, Long> checksums;
+  private final int[] lineStartOffsets;
+  private final int[] lineEndOffsets;
+  private final int lastValidOffset;
+
+  InputFileMetadata(Charset charset, boolean hasBom, String md5Hash, Map<String, Long> checksums, int[] lineStartOffsets, int[] lineEndOffsets,
+    int lastValidOffset) {
+    checkArgument(lineStartOffsets.length == lineEndOffsets.length, "Line start and end offsets must have the same length");
+    checkArgument(lineStartOffsets.length > 0, "A file has at least one line");
+    this.charset = requireNonNull(charset, "Charset can't be null");
+    this.hasBom = hasBom;
+    this.md5Hash = requireNonNull(md5Hash, "MD5 hash can't be null");
+    this.checksums = Collections.unmodifiableMap(new LinkedHashMap<>(checksums));
+    this.lineStartOffsets = lineStartOffsets;
+    this.lineEndOffsets = lineEndOffsets;
+    this.lastValidOffset = lastValidOffset;
+  }
+
+  /**
+   * Charset used to decode the file: the one of the byte order mark if there is one, the default charset of the reader otherwise.
+   * @see InputFile#charset()
+   */
+  public Charset charset() {
+    return charset;
+  }
+
+  /**
+   * Whether the file starts with a byte order mark.
+   */
+  public boolean hasBom() {
+    return hasBom;
+  }
+
+  /**
+   * Hexadecimal MD5 digest of the content of the file, without byte order mark.
+   * @see InputFile#md5Hash()
+   */
+  public String md5Hash() {
+    return md5Hash;
+  }
+
+  /**
+   * Value of the checksum registered under the given name with {@link InputFileMetadataReader.Builder#addChecksum}, computed on
+   * the same bytes as {@link #md5Hash()}.
+   *
+   * @return {@code null} if no checksum is registered with this name
+   */
+  @CheckForNull
+  public Long checksum(String name) {
+    return checksums.get(name);
+  }
+
+  /**
+   * All the checksums, by name, in registration order.
+   */
+  public Map<String, Long> checksums() {
+    return checksums;
+  }
+
+  /**
+   * Number of physical lines, with the same definition as {@link InputFile#lines()}.
+   */
+  public int lines() {
+    return lineStartOffsets.length;
+  }
+
+  /**
+   * Whether the content is empty, ignoring the byte order mark.
+   * @see InputFile#isEmpty()
+   */
+  public boolean isEmpty() {
+    return lastValidOffset == 0;
+  }
+
+  /**
+   * Offset of the first character of a line.
+   * @param line starts at 1
+   */
+  public int lineStartOffset(int line) {
+    checkLine(line);
+    return lineStartOffsets[line - 1];
+  }
+
+  /**
+   * Offset following the last character of a line, excluding the end-of-line characters.
+   * @param line starts at 1
+   */
+  public int lineEndOffset(int line) {
+    checkLine(line);
+    return lineEndOffsets[line - 1];
+  }
+
+  /**
+   * Offsets of the first character of each line. Index 0 is line 1.
+   */
+  public int[] lineStartOffsets() {
+    return Arrays.copyOf(lineStartOffsets, lineStartOffsets.length);
+  }
+
+  /**
+   * Offsets following the last character of each line, excluding the end-of-line characters. Index 0 is line 1.
+   */
+  public int[] lineEndOffsets() {
+    return Arrays.copyOf(lineEndOffsets, lineEndOffsets.length);
+  }
+
+  /**
+   * Number of characters of the file, which is also the offset following the last character.
+   */
+  public int lastValidOffset() {
+    return lastValidOffset;
+  }
+
+  private void checkLine(int line) {
+    checkArgument(line >= 1 && line <= lineStartOffsets.length, "Line %s is out of range [1, %s]", line, lineStartOffsets.length);
+  }
+
+  @Override
+  public String toString() {
+    return "InputFileMetadata{charset=" + charset + ", bom=" + hasBom + ", md5=" + md5Hash + ", lines=" + lines() + ", lastValidOffset=" + lastValidOffset + "}";
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Loads the {@link InputFileMetadata} of files with an {@link InputFileMetadataReader}, at most once per file.
+ * <ul>
+ *   <li>Metadata is lazy: {@link #get(Path)} and the suppliers returned by {@link #lazy(Path)} read the file on first access,
+ *   on the caller thread, so files that no sensor touches are never read.</li>
+ *   <li>Files that are known to be needed can be {@link #prefetch(Collection) prefetched} in parallel on a fixed number of
+ *   threads. The number of pending reads is bounded: {@link #prefetch(Path)} blocks while the queue is full, which
+ *   keeps the I/O queue and the memory used by pending reads under control.</li>
+ * </ul>
+ * A file requested while it is being prefetched is not read twice: the caller waits for the pending read.
+ *
+ * @since 13.12
+ */
+@ThreadSafe
+public final class InputFileMetadataLoader implements AutoCloseable {
+
+  private final InputFileMetadataReader reader;
+  private final ThreadPoolExecutor executor;
+  private final Semaphore queue;
+  private final ConcurrentMap<Path, CompletableFuture<InputFileMetadata>> metadata = new ConcurrentHashMap<>();
+
+  /**
+   * @param threads number of threads reading prefetched files
+   * @param queueCapacity maximum number of prefetched files waiting to be read or being read
+   */
+  public InputFileMetadataLoader(InputFileMetadataReader reader, int threads, int queueCapacity) {
+    checkArgument(threads > 0, "Number of threads must be greater than 0: %s", threads);
+    checkArgument(queueCapacity > 0, "Queue capacity must be greater than 0: %s", queueCapacity);
+    this.reader = requireNonNull(reader, "Reader can't be null");
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new ReaderThreadFactory());
+    this.queue = new Semaphore(queueCapacity);
+  }
+
+  /**
+   * Returns the metadata of a file, reading it on the caller thread if it was neither read nor prefetched.
+   *
+   * @throws UncheckedIOException if the file can't be read
+   */
+  public InputFileMetadata get(Path path) {
+    requireNonNull(path, "Path can't be null");
+    CompletableFuture<InputFileMetadata> future = metadata.get(path);
+    if (future == null) {
+      CompletableFuture<InputFileMetadata> created = new CompletableFuture<>();
+      future = metadata.putIfAbsent(path, created);
+      if (future == null) {
+        future = created;
+        complete(path, created);
+      }
+    }
+    try {
+      return future.join();
+    } catch (CancellationException e) {
+      // the prefetch was abandoned by close()
+      return get(path);
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw (UncheckedIOException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Returns a supplier of the metadata of a file. The file is read on the first call to the supplier, unless it was
+   * already read or prefetched.
+   */
+  public Supplier<InputFileMetadata> lazy(Path path) {
+    requireNonNull(path, "Path can't be null");
+    return () -> get(path);
+  }
+
+  /**
+   * Schedules the read of a file on the reading threads, unless it was already read or scheduled. Blocks while the
+   * queue of pending reads is full.
+   *
+   * @throws InterruptedException if interrupted while waiting for room in the queue
+   */
+  public void prefetch(Path path) throws InterruptedException {
+    requireNonNull(path, "Path can't be null");
+    if (metadata.containsKey(path)) {
+      return;
+    }
+    queue.acquire();
+    CompletableFuture<InputFileMetadata> created = new CompletableFuture<>();
+    if (metadata.putIfAbsent(path, created) != null) {
+      queue.release();
+      return;
+    }
+    try {
+      executor.execute(new PrefetchTask(path, created));
+    } catch (RejectedExecutionException e) {
+      // the loader is closed: the file will be read on demand
+      abandon(path, created);
+    }
+  }
+
+  /**
+   * Schedules the read of several files. See {@link #prefetch(Path)}.
+   */
+  public void prefetch(Collection<Path> paths) throws InterruptedException {
+    for (Path path : paths) {
+      prefetch(path);
+    }
+  }
+
+  /**
+   * Number of files that have been read or scheduled.
+   */
+  public int size() {
+    return metadata.size();
+  }
+
+  private void complete(Path path, CompletableFuture<InputFileMetadata> future) {
+    try {
+      future.complete(reader.read(path));
+    } catch (IOException e) {
+      future.completeExceptionally(new UncheckedIOException("Unable to read metadata of file " + path, e));
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+    }
+  }
+
+  private void abandon(Path path, CompletableFuture<InputFileMetadata> future) {
+    metadata.remove(path, future);
+    queue.release();
+    future.cancel(false);
+  }
+
+  /**
+   * Stops the reading threads once the reads in progress are done. Prefetches that are still queued are abandoned: these
+   * files are read on demand by {@link #get(Path)}.
+   */
+  @Override
+  public void close() {
+    List<Runnable> pending = new ArrayList<>();
+    executor.getQueue().drainTo(pending);
+    executor.shutdown();
+    for (Runnable runnable : pending) {
+      PrefetchTask task = (PrefetchTask) runnable;
+      abandon(task.path, task.future);
+    }
+  }
+
+  private final class PrefetchTask implements Runnable {
+    private final Path path;
+    private final CompletableFuture<InputFileMetadata> future;
+
+    private PrefetchTask(Path path, CompletableFuture<InputFileMetadata> future) {
+      this.path = path;
+      this.future = future;
+    }
+
+    @Override
+    public void run() {
+      try {
+        complete(path, future);
+      } finally {
+        queue.release();
+      }
+    }
+  }
+
+  private static final class ReaderThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "input-file-metadata-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
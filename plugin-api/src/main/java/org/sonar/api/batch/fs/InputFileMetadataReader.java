@@ -0,0 +1,309 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.Checksum;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Computes the {@link InputFileMetadata} of a file in a single streaming pass: the byte order mark is detected from the first
+ * bytes, then each buffer read from the file updates the MD5 digest and the registered checksums, and is decoded to count lines
+ * and record their offsets. The content of the file is never fully loaded in memory.
+ * <br>
+ * Checksums are {@link Checksum} instances, for instance {@link java.util.zip.CRC32C}. They are much faster than MD5 and are
+ * suitable for change detection between analyses, but not for security purposes.
+ * <pre>
+ *   InputFileMetadataReader reader = InputFileMetadataReader.builder()
+ *     .setDefaultCharset(StandardCharsets.UTF_8)
+ *     .addChecksum("crc32c", CRC32C::new)
+ *     .build();
+ *   InputFileMetadata metadata = reader.read(path);
+ * </pre>
+ * Instances are thread-safe: each read uses its own buffers, digest and checksums.
+ *
+ * @since 13.12
+ */
+@ThreadSafe
+public final class InputFileMetadataReader {
+
+  private static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Charset defaultCharset;
+  private final Map<String, Supplier<Checksum>> checksums;
+  private final int bufferSize;
+
+  private InputFileMetadataReader(Builder builder) {
+    this.defaultCharset = builder.defaultCharset;
+    this.checksums = new LinkedHashMap<>(builder.checksums);
+    this.bufferSize = builder.bufferSize;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public InputFileMetadata read(Path path) throws IOException {
+    try (InputStream input = Files.newInputStream(path)) {
+      return read(input);
+    }
+  }
+
+  /**
+   * Reads the stream until its end. The stream is not closed.
+   */
+  public InputFileMetadata read(InputStream input) throws IOException {
+    byte[] bytes = new byte[bufferSize];
+    int length = readFully(input, bytes, 0, 4);
+    Bom bom = Bom.detect(bytes, length);
+    Charset charset = bom == null ? defaultCharset : bom.charset;
+    int offset = bom == null ? 0 : bom.length;
+
+    MessageDigest md5 = newMd5();
+    Map<String, Checksum> fileChecksums = new LinkedHashMap<>();
+    checksums.forEach((name, supplier) -> fileChecksums.put(name, requireNonNull(supplier.get(), "Checksum can't be null")));
+    CharsetDecoder decoder = charset.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    ByteBuffer byteBuffer = ByteBuffer.allocate(bufferSize);
+    CharBuffer charBuffer = CharBuffer.allocate(bufferSize);
+    LineCounter lines = new LineCounter();
+
+    while (true) {
+      if (length > offset) {
+        md5.update(bytes, offset, length - offset);
+        for (Checksum checksum : fileChecksums.values()) {
+          checksum.update(bytes, offset, length - offset);
+        }
+        byteBuffer.put(bytes, offset, length - offset);
+        byteBuffer.flip();
+        decode(decoder, byteBuffer, charBuffer, lines, false);
+        byteBuffer.compact();
+      }
+      offset = 0;
+      length = input.read(bytes, 0, Math.min(bytes.length, byteBuffer.remaining()));
+      if (length < 0) {
+        break;
+      }
+    }
+    byteBuffer.flip();
+    decode(decoder, byteBuffer, charBuffer, lines, true);
+    charBuffer.clear();
+    decoder.flush(charBuffer);
+    charBuffer.flip();
+    lines.accept(charBuffer);
+
+    Map<String, Long> values = new LinkedHashMap<>();
+    fileChecksums.forEach((name, checksum) -> values.put(name, checksum.getValue()));
+    return lines.toMetadata(charset, bom != null, toHex(md5.digest()), values);
+  }
+
+  private static void decode(CharsetDecoder decoder, ByteBuffer in, CharBuffer out, LineCounter lines, boolean endOfInput) {
+    while (true) {
+      out.clear();
+      boolean overflow = decoder.decode(in, out, endOfInput).isOverflow();
+      out.flip();
+      lines.accept(out);
+      if (!overflow) {
+        return;
+      }
+    }
+  }
+
+  private static int readFully(InputStream input, byte[] bytes, int offset, int length) throws IOException {
+    int read = 0;
+    while (read < length) {
+      int count = input.read(bytes, offset + read, length - read);
+      if (count < 0) {
+        break;
+      }
+      read += count;
+    }
+    return read;
+  }
+
+  private static MessageDigest newMd5() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 algorithm is not available", e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+      chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+    }
+    return new String(chars);
+  }
+
+  private enum Bom {
+    UTF_8(StandardCharsets.UTF_8, 0xEF, 0xBB, 0xBF),
+    UTF_16BE(StandardCharsets.UTF_16BE, 0xFE, 0xFF),
+    UTF_16LE(StandardCharsets.UTF_16LE, 0xFF, 0xFE);
+
+    private final Charset charset;
+    private final int[] marks;
+    private final int length;
+
+    Bom(Charset charset, int... marks) {
+      this.charset = charset;
+      this.marks = marks;
+      this.length = marks.length;
+    }
+
+    private static Bom detect(byte[] bytes, int length) {
+      for (Bom bom : values()) {
+        if (bom.matches(bytes, length)) {
+          return bom;
+        }
+      }
+      return null;
+    }
+
+    private boolean matches(byte[] bytes, int available) {
+      if (available < length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if ((bytes[i] & 0xFF) != marks[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Records line offsets. A line ends with "\n", "\r\n" or "\r"; a "\r\n" split across two decoded chunks is handled by
+   * deferring the start of the next line until the character following "\r" is known.
+   */
+  private static final class LineCounter {
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int lines = 1;
+    private int offset;
+    private boolean pendingCarriageReturn;
+
+    private void accept(CharBuffer chars) {
+      while (chars.hasRemaining()) {
+        char c = chars.get();
+        if (pendingCarriageReturn) {
+          pendingCarriageReturn = false;
+          if (c == '\n') {
+            offset++;
+            startLine(offset);
+            continue;
+          }
+          startLine(offset);
+        }
+        if (c == '\r') {
+          ends[lines - 1] = offset;
+          pendingCarriageReturn = true;
+        } else if (c == '\n') {
+          ends[lines - 1] = offset;
+          startLine(offset + 1);
+        }
+        offset++;
+      }
+    }
+
+    private void startLine(int start) {
+      if (lines == starts.length) {
+        starts = Arrays.copyOf(starts, lines * 2);
+        ends = Arrays.copyOf(ends, lines * 2);
+      }
+      starts[lines] = start;
+      lines++;
+    }
+
+    private InputFileMetadata toMetadata(Charset charset, boolean hasBom, String md5Hash, Map<String, Long> checksums) {
+      if (pendingCarriageReturn) {
+        pendingCarriageReturn = false;
+        startLine(offset);
+      }
+      ends[lines - 1] = offset;
+      return new InputFileMetadata(charset, hasBom, md5Hash, checksums, Arrays.copyOf(starts, lines), Arrays.copyOf(ends, lines), offset);
+    }
+  }
+
+  public static final class Builder {
+    private Charset defaultCharset = StandardCharsets.UTF_8;
+    private final Map<String, Supplier<Checksum>> checksums = new LinkedHashMap<>();
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private Builder() {
+      // use InputFileMetadataReader.builder()
+    }
+
+    /**
+     * Charset of the files without byte order mark. Default is UTF-8.
+     */
+    public Builder setDefaultCharset(Charset charset) {
+      this.defaultCharset = requireNonNull(charset, "Charset can't be null");
+      return this;
+    }
+
+    /**
+     * Computes an additional checksum of the content of each file. A new {@link Checksum} is created for each file.
+     */
+    public Builder addChecksum(String name, Supplier<Checksum> checksum) {
+      requireNonNull(name, "Checksum name can't be null");
+      requireNonNull(checksum, "Checksum can't be null");
+      checkArgument(!checksums.containsKey(name), "Checksum '%s' is already registered", name);
+      checksums.put(name, checksum);
+      return this;
+    }
+
+    /**
+     * Size in bytes of the read buffer. Default is 16 KiB.
+     */
+    public Builder setBufferSize(int bufferSize) {
+      checkArgument(bufferSize >= 4, "Buffer size must be at least 4 bytes: %s", bufferSize);
+      this.bufferSize = bufferSize;
+      return this;
+    }
+
+    public InputFileMetadataReader build() {
+      return new InputFileMetadataReader(this);
+    }
+  }
+}
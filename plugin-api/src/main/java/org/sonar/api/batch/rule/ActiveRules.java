@@ -71,4 +71,16 @@ public interface ActiveRules {
   @CheckForNull
   ActiveRule findByInternalKey(String repository, String internalKey);
 
+  /**
+   * Immutable index of the active rules, with constant-time lookups and dense ordinals. Sensors resolving
+   * rules on hot paths, for example once per issue, should get the index once and use it instead of the other methods.
+   * <br>
+   * The default implementation builds a new index from {@link #findAll()} on each call. Implementations are expected
+   * to return a precomputed instance.
+   *
+   * @since 13.12
+   */
+  default ActiveRulesIndex index() {
+    return ActiveRulesIndex.of(findAll());
+  }
 }
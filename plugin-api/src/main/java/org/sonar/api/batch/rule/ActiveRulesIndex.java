@@ -0,0 +1,168 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.rule.RuleKey;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Immutable and precomputed view of {@link ActiveRules}. All the lookups are done in constant time.
+ * <br>
+ * Each active rule is also given a dense ordinal, between {@code 0} (inclusive) and {@link #size()} (exclusive), so that
+ * per-rule data can be stored in arrays or {@link java.util.BitSet}s instead of maps keyed by {@link RuleKey}:
+ * <pre>
+ *   ActiveRulesIndex index = context.activeRules().index();
+ *   int[] issuesPerRule = new int[index.size()];
+ *   ...
+ *   int ordinal = index.ordinal(ruleKey);
+ *   if (ordinal &gt;= 0) {
+ *     issuesPerRule[ordinal]++;
+ *   }
+ * </pre>
+ * Ordinals follow the order of {@link ActiveRules#findAll()} and are only valid for the index that provided them.
+ *
+ * @since 13.12
+ */
+@Immutable
+public final class ActiveRulesIndex implements ActiveRules {
+
+  private final ActiveRule[] rules;
+  private final List<ActiveRule> all;
+  private final Map<RuleKey, Integer> ordinalByRuleKey;
+  private final Map<String, List<ActiveRule>> byRepository;
+  private final Map<String, List<ActiveRule>> byLanguage;
+  private final Map<String, Map<String, ActiveRule>> byInternalKey;
+
+  private ActiveRulesIndex(Collection<ActiveRule> activeRules) {
+    this.rules = activeRules.toArray(new ActiveRule[0]);
+    this.all = Collections.unmodifiableList(Arrays.asList(rules));
+    this.ordinalByRuleKey = new HashMap<>(mapCapacity(rules.length));
+    Map<String, List<ActiveRule>> repositories = new HashMap<>();
+    Map<String, List<ActiveRule>> languages = new HashMap<>();
+    this.byInternalKey = new HashMap<>();
+    for (int ordinal = 0; ordinal < rules.length; ordinal++) {
+      ActiveRule rule = requireNonNull(rules[ordinal], "Active rule can't be null");
+      RuleKey ruleKey = rule.ruleKey();
+      checkArgument(ordinalByRuleKey.putIfAbsent(ruleKey, ordinal) == null, "Rule '%s' is activated more than once", ruleKey);
+      repositories.computeIfAbsent(ruleKey.repository(), k -> new ArrayList<>()).add(rule);
+      if (rule.language() != null) {
+        languages.computeIfAbsent(rule.language(), k -> new ArrayList<>()).add(rule);
+      }
+      if (rule.internalKey() != null) {
+        byInternalKey.computeIfAbsent(ruleKey.repository(), k -> new HashMap<>()).putIfAbsent(rule.internalKey(), rule);
+      }
+    }
+    this.byRepository = unmodifiableLists(repositories);
+    this.byLanguage = unmodifiableLists(languages);
+  }
+
+  /**
+   * Builds the index of the given active rules. Ordinals are assigned in iteration order.
+   *
+   * @throws IllegalArgumentException if the same rule key is activated more than once
+   */
+  public static ActiveRulesIndex of(Collection<ActiveRule> activeRules) {
+    return new ActiveRulesIndex(requireNonNull(activeRules, "Active rules can't be null"));
+  }
+
+  /**
+   * Number of active rules. Ordinals are between {@code 0} (inclusive) and this value (exclusive).
+   */
+  public int size() {
+    return rules.length;
+  }
+
+  /**
+   * The ordinal of the active rule with the given key, or {@code -1} if the rule is not active.
+   */
+  public int ordinal(RuleKey ruleKey) {
+    Integer ordinal = ordinalByRuleKey.get(ruleKey);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * The active rule with the given ordinal.
+   *
+   * @throws IndexOutOfBoundsException if ordinal is not between {@code 0} (inclusive) and {@link #size()} (exclusive)
+   */
+  public ActiveRule get(int ordinal) {
+    return rules[ordinal];
+  }
+
+  @CheckForNull
+  @Override
+  public ActiveRule find(RuleKey ruleKey) {
+    int ordinal = ordinal(ruleKey);
+    return ordinal < 0 ? null : rules[ordinal];
+  }
+
+  @Override
+  public Collection<ActiveRule> findAll() {
+    return all;
+  }
+
+  @Override
+  public Collection<ActiveRule> findByRepository(String repository) {
+    return byRepository.getOrDefault(repository, Collections.emptyList());
+  }
+
+  @Override
+  public Collection<ActiveRule> findByLanguage(String language) {
+    return byLanguage.getOrDefault(language, Collections.emptyList());
+  }
+
+  /**
+   * When several rules of the repository share the same internal key, the first one in ordinal order is returned.
+   */
+  @CheckForNull
+  @Override
+  public ActiveRule findByInternalKey(String repository, String internalKey) {
+    Map<String, ActiveRule> rulesByInternalKey = byInternalKey.get(repository);
+    return rulesByInternalKey == null ? null : rulesByInternalKey.get(internalKey);
+  }
+
+  /**
+   * Returns this index.
+   */
+  @Override
+  public ActiveRulesIndex index() {
+    return this;
+  }
+
+  private static Map<String, List<ActiveRule>> unmodifiableLists(Map<String, List<ActiveRule>> map) {
+    map.replaceAll((k, v) -> Collections.unmodifiableList(v));
+    return map;
+  }
+
+  private static int mapCapacity(int size) {
+    return (int) (size / 0.75F) + 1;
+  }
+}
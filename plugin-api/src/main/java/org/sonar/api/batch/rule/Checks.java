@@ -19,23 +19,17 @@
  */
 package org.sonar.api.batch.rule;
 
-import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
-import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.rule.RuleKey;
-import org.sonar.api.utils.AnnotationUtils;
-import org.sonar.api.utils.FieldUtils2;
-import org.sonar.api.utils.SonarException;
-import org.sonar.check.RuleProperty;
+import org.sonar.api.rule.internal.CheckMetadata;
 
 /**
  * Instantiates checks (objects that provide implementation of coding
@@ -138,27 +132,18 @@ public class Checks<C> {
   }
 
   private static String annotatedEngineKey(Object annotatedClassOrObject) {
-    String key = null;
-    org.sonar.check.Rule ruleAnnotation = AnnotationUtils.getAnnotation(annotatedClassOrObject, org.sonar.check.Rule.class);
-    if (ruleAnnotation != null) {
-      key = ruleAnnotation.key();
-    }
-    Class clazz = annotatedClassOrObject.getClass();
-    if (annotatedClassOrObject instanceof Class) {
-      clazz = (Class) annotatedClassOrObject;
-    }
-    return StringUtils.defaultIfEmpty(key, clazz.getCanonicalName());
+    return CheckMetadata.ofClassOrObject(annotatedClassOrObject).ruleKey();
   }
 
   private static Object instantiate(ActiveRule activeRule, Object checkClassOrInstance) {
     try {
       Object check = checkClassOrInstance;
       if (check instanceof Class) {
-        check = ((Class) checkClassOrInstance).newInstance();
+        check = CheckMetadata.of((Class<?>) checkClassOrInstance).newInstance();
       }
       configureFields(activeRule, check);
       return check;
-    } catch (InstantiationException | IllegalAccessException e) {
+    } catch (ReflectiveOperationException e) {
       throw failToInstantiateCheck(activeRule, checkClassOrInstance, e);
     }
   }
@@ -168,72 +153,16 @@ public class Checks<C> {
   }
 
   private static void configureFields(ActiveRule activeRule, Object check) {
+    CheckMetadata metadata = CheckMetadata.of(check.getClass());
     for (Map.Entry<String, String> param : activeRule.params().entrySet()) {
-      Field field = getField(check, param.getKey());
-      if (field == null) {
+      CheckMetadata.PropertyField property = metadata.property(param.getKey());
+      if (property == null) {
         // an unknown parameter can ben caused by the rule data coming from a newer version of the plugin.
         // It is ignored to do not fail the analysis for something the end-user can't act on.
         LOGGER.debug("The field '{}' does not exist or is not annotated with @RuleProperty in the class {}", param.getKey(), check.getClass().getName());
       } else if (StringUtils.isNotBlank(param.getValue())) {
-        configureField(check, field, param.getValue());
-      }
-    }
-  }
-
-  @CheckForNull
-  private static Field getField(Object check, String key) {
-    List<Field> fields = FieldUtils2.getFields(check.getClass(), true);
-    for (Field field : fields) {
-      RuleProperty propertyAnnotation = field.getAnnotation(RuleProperty.class);
-      if (propertyAnnotation != null && (Strings.CS.equals(key, field.getName()) || Strings.CS.equals(key, propertyAnnotation.key()))) {
-        return field;
-      }
-    }
-    return null;
-  }
-
-  private static void configureField(Object check, Field field, String value) {
-    try {
-      field.setAccessible(true);
-
-      if (field.getType().equals(String.class)) {
-        field.set(check, value);
-
-      } else if (int.class == field.getType()) {
-        field.setInt(check, Integer.parseInt(value));
-
-      } else if (short.class == field.getType()) {
-        field.setShort(check, Short.parseShort(value));
-
-      } else if (long.class == field.getType()) {
-        field.setLong(check, Long.parseLong(value));
-
-      } else if (double.class == field.getType()) {
-        field.setDouble(check, Double.parseDouble(value));
-
-      } else if (boolean.class == field.getType()) {
-        field.setBoolean(check, Boolean.parseBoolean(value));
-
-      } else if (byte.class == field.getType()) {
-        field.setByte(check, Byte.parseByte(value));
-
-      } else if (Integer.class == field.getType()) {
-        field.set(check, Integer.parseInt(value));
-
-      } else if (Long.class == field.getType()) {
-        field.set(check, Long.parseLong(value));
-
-      } else if (Double.class == field.getType()) {
-        field.set(check, Double.parseDouble(value));
-
-      } else if (Boolean.class == field.getType()) {
-        field.set(check, Boolean.parseBoolean(value));
-
-      } else {
-        throw new SonarException("The type of the field " + field + " is not supported: " + field.getType());
+        property.inject(check, param.getValue());
       }
-    } catch (IllegalAccessException e) {
-      throw new SonarException("Can not set the value of the field " + field + " in the class: " + check.getClass().getName(), e);
     }
   }
 }
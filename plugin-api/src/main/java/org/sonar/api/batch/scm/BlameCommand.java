@@ -20,6 +20,7 @@
 package org.sonar.api.batch.scm;
 
 import java.util.List;
+import javax.annotation.CheckForNull;
 import org.sonar.api.scanner.ScannerSide;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
@@ -40,6 +41,52 @@ public abstract class BlameCommand {
    */
   public abstract void blame(BlameInput input, BlameOutput output);
 
+  /**
+   * Whether {@link #blame(BlameInput, BlameOutput)} can be called concurrently from different threads, each call
+   * with a distinct subset of the files to blame. In this case the scanner can partition the files across workers,
+   * see {@link ConcurrentBlameExecutor}.
+   *
+   * @return false by default
+   * @since 13.12
+   */
+  public boolean isConcurrent() {
+    return false;
+  }
+
+  /**
+   * Whether this command supports incremental blame, by implementing {@link #diff(InputFile, String)} and
+   * {@link #blameLines(InputFile, int, int)}. In this case the blame of a file can be computed from its previous blame,
+   * by only blaming the changed lines, see {@link IncrementalBlameCache}.
+   *
+   * @return false by default
+   * @since 13.12
+   */
+  public boolean isIncremental() {
+    return false;
+  }
+
+  /**
+   * Differences of the file between the given revision and its current content.
+   *
+   * @return null if the differences can't be computed, for example if the revision is unknown
+   * @since 13.12
+   */
+  @CheckForNull
+  public LineDiff diff(InputFile file, String fromRevision) {
+    return null;
+  }
+
+  /**
+   * Blame of the lines between {@code startLine} and {@code endLine}, both inclusive, of the current content of the file.
+   * The result must contain exactly {@code endLine - startLine + 1} lines.
+   *
+   * @throws UnsupportedOperationException if this command is not {@link #isIncremental() incremental}
+   * @since 13.12
+   */
+  public BlameResult blameLines(InputFile file, int startLine, int endLine) {
+    throw new UnsupportedOperationException("Blame of line ranges is not supported");
+  }
+
   /**
    * Callback for the provider to report results of blame per file.
    */
@@ -69,6 +116,19 @@ public abstract class BlameCommand {
      */
     void blameResult(InputFile file, List<BlameLine> lines);
 
+    /**
+     * Add result of the blame command for a single file, in columnar form. This is the preferred way to report
+     * results, as it avoids creating one object per line. Number of lines should be consistent with
+     * {@link InputFile#lines()}. This method is thread safe.
+     * <br>
+     * The default implementation converts the result to blame lines and calls {@link #blameResult(InputFile, List)}.
+     *
+     * @since 13.12
+     */
+    default void blameResult(InputFile file, BlameResult result) {
+      blameResult(file, result.toBlameLines());
+    }
+
   }
 
 }
@@ -0,0 +1,322 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.scm;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import org.apache.commons.lang3.StringUtils;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Compact, columnar form of the blame of a file, as an alternative to a list of {@link BlameLine}s.
+ * <br>
+ * Each distinct commit of the file (revision, date and author) is stored once, with its date as epoch milliseconds.
+ * Consecutive lines of the same commit are stored as a single run, so a file mostly written by a few commits only
+ * needs a few entries whatever its number of lines.
+ * <br>
+ * Lines start at 1. Commits and runs are indexed from 0.
+ *
+ * @see BlameCommand.BlameOutput#blameResult(org.sonar.api.batch.fs.InputFile, BlameResult)
+ * @since 13.12
+ */
+@Immutable
+public final class BlameResult {
+
+  private final String[] revisions;
+  private final long[] dates;
+  private final String[] authors;
+  // first line of each run, in ascending order
+  private final int[] runStartLines;
+  private final int[] runCommits;
+  private final int lines;
+
+  private BlameResult(Builder builder) {
+    this.revisions = builder.revisions.toArray(new String[0]);
+    this.authors = builder.authors.toArray(new String[0]);
+    this.dates = Arrays.copyOf(builder.dates, revisions.length);
+    this.runStartLines = Arrays.copyOf(builder.runStartLines, builder.runCount);
+    this.runCommits = Arrays.copyOf(builder.runCommits, builder.runCount);
+    this.lines = builder.lines;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Converts blame lines to the columnar form.
+   *
+   * @throws NullPointerException if the date or the revision of a line is missing
+   */
+  public static BlameResult of(List<BlameLine> blameLines) {
+    Builder builder = new Builder();
+    for (BlameLine line : blameLines) {
+      Date date = requireNonNull(line.date(), "Blame date can't be null");
+      builder.addLine(line.revision(), date.getTime(), line.author());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Number of blamed lines.
+   */
+  public int lines() {
+    return lines;
+  }
+
+  public int commitCount() {
+    return revisions.length;
+  }
+
+  public String commitRevision(int commit) {
+    return revisions[commit];
+  }
+
+  /**
+   * Date of the commit, in milliseconds since epoch.
+   */
+  public long commitDate(int commit) {
+    return dates[commit];
+  }
+
+  @CheckForNull
+  public String commitAuthor(int commit) {
+    return authors[commit];
+  }
+
+  public int runCount() {
+    return runStartLines.length;
+  }
+
+  public int runStartLine(int run) {
+    return runStartLines[run];
+  }
+
+  public int runLength(int run) {
+    int nextStart = run + 1 < runStartLines.length ? runStartLines[run + 1] : (lines + 1);
+    return nextStart - runStartLines[run];
+  }
+
+  public int runCommit(int run) {
+    return runCommits[run];
+  }
+
+  /**
+   * Index of the commit of the given line.
+   *
+   * @throws IndexOutOfBoundsException if line is not between 1 and {@link #lines()}
+   */
+  public int commitOfLine(int line) {
+    if (line < 1 || line > lines) {
+      throw new IndexOutOfBoundsException("Line " + line + " is out of range [1, " + lines + "]");
+    }
+    int index = Arrays.binarySearch(runStartLines, line);
+    return runCommits[index >= 0 ? index : (-index - 2)];
+  }
+
+  /**
+   * Converts back to blame lines, one per line.
+   */
+  public List<BlameLine> toBlameLines() {
+    List<BlameLine> result = new ArrayList<>(lines);
+    for (int run = 0; run < runStartLines.length; run++) {
+      int commit = runCommits[run];
+      for (int i = 0; i < runLength(run); i++) {
+        result.add(new BlameLine(new Date(dates[commit]), revisions[commit]).author(authors[commit]));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes this result in a compact binary form, that can be read back with {@link #readFrom(DataInput)}.
+   */
+  public void writeTo(DataOutput output) throws IOException {
+    output.writeInt(revisions.length);
+    for (int commit = 0; commit < revisions.length; commit++) {
+      output.writeUTF(revisions[commit]);
+      output.writeLong(dates[commit]);
+      output.writeBoolean(authors[commit] != null);
+      if (authors[commit] != null) {
+        output.writeUTF(authors[commit]);
+      }
+    }
+    output.writeInt(runStartLines.length);
+    for (int run = 0; run < runStartLines.length; run++) {
+      output.writeInt(runLength(run));
+      output.writeInt(runCommits[run]);
+    }
+  }
+
+  /**
+   * Reads a result written by {@link #writeTo(DataOutput)}.
+   */
+  public static BlameResult readFrom(DataInput input) throws IOException {
+    int commitCount = input.readInt();
+    String[] commitRevisions = new String[commitCount];
+    long[] commitDates = new long[commitCount];
+    String[] commitAuthors = new String[commitCount];
+    for (int commit = 0; commit < commitCount; commit++) {
+      commitRevisions[commit] = input.readUTF();
+      commitDates[commit] = input.readLong();
+      commitAuthors[commit] = input.readBoolean() ? input.readUTF() : null;
+    }
+    Builder builder = new Builder();
+    int runCount = input.readInt();
+    for (int run = 0; run < runCount; run++) {
+      int length = input.readInt();
+      int commit = input.readInt();
+      checkArgument(commit >= 0 && commit < commitCount, "Invalid commit index in blame result: %s", commit);
+      builder.addLines(length, commitRevisions[commit], commitDates[commit], commitAuthors[commit]);
+    }
+    return builder.build();
+  }
+
+  public static final class Builder {
+    private final Map<Commit, Integer> commits = new HashMap<>();
+    private final List<String> revisions = new ArrayList<>();
+    private final List<String> authors = new ArrayList<>();
+    private long[] dates = new long[8];
+    private int[] runStartLines = new int[8];
+    private int[] runCommits = new int[8];
+    private int runCount = 0;
+    private int lines = 0;
+
+    private Builder() {
+      // use BlameResult.builder()
+    }
+
+    /**
+     * Adds the blame of the next line.
+     *
+     * @param date   commit date, in milliseconds since epoch
+     * @param author trimmed, and ignored if empty
+     */
+    public Builder addLine(String revision, long date, @Nullable String author) {
+      return addLines(1, revision, date, author);
+    }
+
+    /**
+     * Adds the blame of the {@code count} next lines, all from the same commit.
+     */
+    public Builder addLines(int count, String revision, long date, @Nullable String author) {
+      checkArgument(count > 0, "Number of lines must be greater than 0: %s", count);
+      requireNonNull(revision, "Blame revision can't be null");
+      int commit = commitIndex(revision, date, StringUtils.trimToNull(author));
+      if (runCount == 0 || runCommits[runCount - 1] != commit) {
+        if (runCount == runStartLines.length) {
+          runStartLines = Arrays.copyOf(runStartLines, runCount * 2);
+          runCommits = Arrays.copyOf(runCommits, runCount * 2);
+        }
+        runStartLines[runCount] = lines + 1;
+        runCommits[runCount] = commit;
+        runCount++;
+      }
+      lines += count;
+      return this;
+    }
+
+    /**
+     * Adds the blame of {@code count} lines of another result, starting at {@code startLine}.
+     *
+     * @throws IndexOutOfBoundsException if the lines are not in the other result
+     */
+    public Builder addLines(BlameResult source, int startLine, int count) {
+      if (count == 0) {
+        return this;
+      }
+      int endLine = startLine + count - 1;
+      if (startLine < 1 || count < 0 || endLine > source.lines) {
+        throw new IndexOutOfBoundsException("Lines [" + startLine + ", " + endLine + "] are out of range [1, " + source.lines + "]");
+      }
+      int index = Arrays.binarySearch(source.runStartLines, startLine);
+      int run = index >= 0 ? index : (-index - 2);
+      int line = startLine;
+      while (line <= endLine) {
+        int runEnd = source.runStartLines[run] + source.runLength(run) - 1;
+        int commit = source.runCommits[run];
+        addLines(Math.min(runEnd, endLine) - line + 1, source.revisions[commit], source.dates[commit], source.authors[commit]);
+        line = runEnd + 1;
+        run++;
+      }
+      return this;
+    }
+
+    private int commitIndex(String revision, long date, @Nullable String author) {
+      return commits.computeIfAbsent(new Commit(revision, date, author), c -> {
+        int index = revisions.size();
+        revisions.add(revision);
+        authors.add(author);
+        if (index == dates.length) {
+          dates = Arrays.copyOf(dates, index * 2);
+        }
+        dates[index] = date;
+        return index;
+      });
+    }
+
+    public BlameResult build() {
+      return new BlameResult(this);
+    }
+  }
+
+  private static final class Commit {
+    private final String revision;
+    private final long date;
+    @Nullable
+    private final String author;
+
+    private Commit(String revision, long date, @Nullable String author) {
+      this.revision = revision;
+      this.date = date;
+      this.author = author;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Commit)) {
+        return false;
+      }
+      Commit other = (Commit) o;
+      return date == other.date && revision.equals(other.revision) && Objects.equals(author, other.author);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(revision, date, author);
+    }
+  }
+}
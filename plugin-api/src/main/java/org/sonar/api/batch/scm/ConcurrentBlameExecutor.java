@@ -0,0 +1,270 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.scm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.scm.BlameCommand.BlameInput;
+import org.sonar.api.batch.scm.BlameCommand.BlameOutput;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Executes a {@link BlameCommand} on several workers. If the command {@link BlameCommand#isConcurrent() is concurrent},
+ * the files to blame are partitioned across the workers, each worker calling the command with its own partition.
+ * Otherwise the command is executed once, on the caller thread.
+ * <br>
+ * Results are passed to the {@link BlameOutput} as soon as they are reported by the command, so they can be stored
+ * incrementally. The progress of each worker is reported to a {@link ProgressListener}.
+ *
+ * @since 13.12
+ */
+public final class ConcurrentBlameExecutor {
+
+  private final int workers;
+  private ProgressListener progressListener = stats -> {
+  };
+
+  /**
+   * @param workers maximum number of concurrent workers
+   */
+  public ConcurrentBlameExecutor(int workers) {
+    checkArgument(workers > 0, "Number of workers must be greater than 0: %s", workers);
+    this.workers = workers;
+  }
+
+  /**
+   * Listener called by each worker after each blamed file, from the thread of the worker.
+   */
+  public ConcurrentBlameExecutor setProgressListener(ProgressListener progressListener) {
+    this.progressListener = requireNonNull(progressListener, "Progress listener can't be null");
+    return this;
+  }
+
+  /**
+   * Blames the files of the input, and waits for all the workers to complete. If a worker fails, the others
+   * are interrupted and the failure is thrown.
+   *
+   * @return the statistics of each worker
+   */
+  public List<WorkerStats> execute(BlameCommand command, BlameInput input, BlameOutput output) {
+    List<InputFile> files = new ArrayList<>();
+    input.filesToBlame().forEach(files::add);
+    int workerCount = command.isConcurrent() ? Math.min(workers, files.size()) : 1;
+    if (workerCount <= 1) {
+      WorkerStats stats = new WorkerStats(0);
+      command.blame(new PartitionInput(input.fileSystem(), files), new WorkerOutput(output, stats));
+      stats.complete();
+      return List.of(stats);
+    }
+
+    List<List<InputFile>> partitions = partition(files, workerCount);
+    ExecutorService executor = Executors.newFixedThreadPool(workerCount, new WorkerThreadFactory());
+    try {
+      CompletionService<WorkerStats> completion = new ExecutorCompletionService<>(executor);
+      for (int i = 0; i < workerCount; i++) {
+        BlameInput partitionInput = new PartitionInput(input.fileSystem(), partitions.get(i));
+        WorkerStats stats = new WorkerStats(i);
+        completion.submit(() -> {
+          command.blame(partitionInput, new WorkerOutput(output, stats));
+          stats.complete();
+          return stats;
+        });
+      }
+      return awaitWorkers(completion, workerCount);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static List<WorkerStats> awaitWorkers(CompletionService<WorkerStats> completion, int workerCount) {
+    WorkerStats[] result = new WorkerStats[workerCount];
+    try {
+      for (int i = 0; i < workerCount; i++) {
+        WorkerStats stats = completion.take().get();
+        result[stats.worker()] = stats;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for blame workers", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Fail to blame files", e.getCause());
+    }
+    return List.of(result);
+  }
+
+  /**
+   * Round-robin partitioning, so that files of the same directories, which often have similar histories,
+   * are spread across workers.
+   */
+  private static List<List<InputFile>> partition(List<InputFile> files, int count) {
+    List<List<InputFile>> partitions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      partitions.add(new ArrayList<>(files.size() / count + 1));
+    }
+    for (int i = 0; i < files.size(); i++) {
+      partitions.get(i % count).add(files.get(i));
+    }
+    return partitions;
+  }
+
+  @FunctionalInterface
+  public interface ProgressListener {
+    void onProgress(WorkerStats stats);
+  }
+
+  /**
+   * Progress and throughput of a worker. Values are updated by the worker thread only, and are visible to other
+   * threads once {@link #execute(BlameCommand, BlameInput, BlameOutput)} returns.
+   */
+  public static final class WorkerStats {
+    private final int worker;
+    private final long startNanos = System.nanoTime();
+    private long files = 0;
+    private long lines = 0;
+    private long durationNanos = 0;
+    private boolean completed = false;
+
+    private WorkerStats(int worker) {
+      this.worker = worker;
+    }
+
+    public int worker() {
+      return worker;
+    }
+
+    /**
+     * Number of files blamed so far.
+     */
+    public long files() {
+      return files;
+    }
+
+    /**
+     * Number of lines blamed so far.
+     */
+    public long lines() {
+      return lines;
+    }
+
+    public boolean isCompleted() {
+      return completed;
+    }
+
+    /**
+     * Time since the worker started, until the last blamed file or its completion.
+     */
+    public long durationNanos() {
+      return durationNanos;
+    }
+
+    public double filesPerSecond() {
+      return durationNanos == 0 ? 0.0 : (files * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos);
+    }
+
+    private void fileBlamed(int fileLines) {
+      files++;
+      lines += fileLines;
+      durationNanos = System.nanoTime() - startNanos;
+    }
+
+    private void complete() {
+      durationNanos = System.nanoTime() - startNanos;
+      completed = true;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Blame worker %d: %d files, %d lines in %d ms", worker, files, lines, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+  }
+
+  private static final class PartitionInput implements BlameInput {
+    private final FileSystem fileSystem;
+    private final List<InputFile> files;
+
+    private PartitionInput(FileSystem fileSystem, List<InputFile> files) {
+      this.fileSystem = fileSystem;
+      this.files = files;
+    }
+
+    @Override
+    public FileSystem fileSystem() {
+      return fileSystem;
+    }
+
+    @Override
+    public Iterable<InputFile> filesToBlame() {
+      return files;
+    }
+  }
+
+  private final class WorkerOutput implements BlameOutput {
+    private final BlameOutput delegate;
+    private final WorkerStats stats;
+
+    private WorkerOutput(BlameOutput delegate, WorkerStats stats) {
+      this.delegate = delegate;
+      this.stats = stats;
+    }
+
+    @Override
+    public void blameResult(InputFile file, List<BlameLine> lines) {
+      delegate.blameResult(file, lines);
+      fileBlamed(lines.size());
+    }
+
+    @Override
+    public void blameResult(InputFile file, BlameResult result) {
+      delegate.blameResult(file, result);
+      fileBlamed(result.lines());
+    }
+
+    private void fileBlamed(int lines) {
+      stats.fileBlamed(lines);
+      progressListener.onProgress(stats);
+    }
+  }
+
+  private static final class WorkerThreadFactory implements ThreadFactory {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "blame-worker-" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,341 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.scm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkState;
+
+/**
+ * {@link IgnoreCommand} based on {@code .gitignore}-style files, that SCM providers can use or extend.
+ * <br>
+ * Ignore files are loaded lazily, when a directory is first visited, and their patterns are compiled once.
+ * Directories form a tree mirroring the file system, where each node holds the compiled rules of its ignore
+ * file and whether the directory itself is ignored. Checking a file then only evaluates the rules of its directory
+ * and of its parents, and whole ignored directories are answered by {@link #isDirectoryIgnored(Path)} without
+ * listing their content.
+ * <br>
+ * Supported syntax is the one of gitignore: blank lines and {@code #} comments, {@code !} negations, trailing
+ * {@code /} for directories only, patterns anchored to the directory of the ignore file when they contain a
+ * {@code /}, and the {@code *}, {@code ?}, {@code [...]} and {@code **} wildcards. As with git, a file can't be
+ * re-included if one of its parent directories is ignored.
+ *
+ * @since 13.12
+ */
+@ThreadSafe
+public class GitIgnoreMatcher implements IgnoreCommand {
+
+  public static final String GITIGNORE = ".gitignore";
+
+  private final String ignoreFileName;
+  private final List<String> globalPatterns;
+  private final Map<Path, DirectoryNode> directories = new ConcurrentHashMap<>();
+  private volatile Path baseDir;
+
+  /**
+   * Matcher of the {@code .gitignore} files of the project.
+   */
+  public GitIgnoreMatcher() {
+    this(GITIGNORE, Collections.emptyList());
+  }
+
+  /**
+   * @param ignoreFileName name of the ignore files, like {@code .gitignore}
+   * @param globalPatterns patterns applying to the whole project, evaluated before the ignore file of the base directory,
+   *                       like the content of {@code .git/info/exclude}
+   */
+  public GitIgnoreMatcher(String ignoreFileName, List<String> globalPatterns) {
+    this.ignoreFileName = requireNonNull(ignoreFileName, "Ignore file name can't be null");
+    this.globalPatterns = List.copyOf(globalPatterns);
+  }
+
+  @Override
+  public void init(Path baseDir) {
+    this.baseDir = baseDir.toAbsolutePath().normalize();
+    directories.clear();
+  }
+
+  @Override
+  public void clean() {
+    directories.clear();
+  }
+
+  @Override
+  public boolean isIgnored(Path file) {
+    Path path = file.toAbsolutePath().normalize();
+    Path parent = path.getParent();
+    if (parent == null || !parent.startsWith(baseDir())) {
+      return false;
+    }
+    DirectoryNode directory = node(parent);
+    return directory.ignored || Boolean.TRUE.equals(directory.match(path, false));
+  }
+
+  /**
+   * Files are grouped by directory, so that each directory is looked up once.
+   */
+  @Override
+  public Set<Path> ignoredFiles(Collection<Path> files) {
+    Map<Path, DirectoryNode> nodes = new HashMap<>();
+    Set<Path> ignored = new HashSet<>();
+    Path base = baseDir();
+    for (Path file : files) {
+      Path path = file.toAbsolutePath().normalize();
+      Path parent = path.getParent();
+      if (parent != null && parent.startsWith(base)) {
+        DirectoryNode directory = nodes.computeIfAbsent(parent, this::node);
+        if (directory.ignored || Boolean.TRUE.equals(directory.match(path, false))) {
+          ignored.add(file);
+        }
+      }
+    }
+    return ignored;
+  }
+
+  @Override
+  public boolean isDirectoryIgnored(Path directory) {
+    Path path = directory.toAbsolutePath().normalize();
+    return path.startsWith(baseDir()) && node(path).ignored;
+  }
+
+  /**
+   * Reads the ignore file of the directory, if any. Can be overridden to read rules from another source.
+   *
+   * @return the lines of the ignore file, or an empty list if there is no ignore file
+   */
+  protected List<String> readIgnoreFile(Path directory) {
+    Path ignoreFile = directory.resolve(ignoreFileName);
+    if (!Files.isRegularFile(ignoreFile)) {
+      return Collections.emptyList();
+    }
+    try {
+      return Files.readAllLines(ignoreFile, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Fail to read " + ignoreFile, e);
+    }
+  }
+
+  private Path baseDir() {
+    Path base = baseDir;
+    checkState(base != null, "init(Path) must be called before checking ignored files");
+    return base;
+  }
+
+  private DirectoryNode node(Path directory) {
+    DirectoryNode node = directories.get(directory);
+    if (node != null) {
+      return node;
+    }
+    DirectoryNode parent = null;
+    List<Rule> rules = new ArrayList<>();
+    if (directory.equals(baseDir())) {
+      compile(globalPatterns, rules);
+    } else {
+      parent = node(directory.getParent());
+    }
+    compile(readIgnoreFile(directory), rules);
+    boolean ignored = parent != null && (parent.ignored || Boolean.TRUE.equals(parent.match(directory, true)));
+    DirectoryNode created = new DirectoryNode(parent, directory, rules, ignored);
+    DirectoryNode existing = directories.putIfAbsent(directory, created);
+    return existing == null ? created : existing;
+  }
+
+  private static void compile(List<String> lines, List<Rule> rules) {
+    for (String line : lines) {
+      Rule rule = Rule.compile(line);
+      if (rule != null) {
+        rules.add(rule);
+      }
+    }
+  }
+
+  private static final class DirectoryNode {
+    @Nullable
+    private final DirectoryNode parent;
+    private final Path directory;
+    private final Rule[] rules;
+    private final boolean ignored;
+
+    private DirectoryNode(@Nullable DirectoryNode parent, Path directory, List<Rule> rules, boolean ignored) {
+      this.parent = parent;
+      this.directory = directory;
+      this.rules = rules.toArray(new Rule[0]);
+      this.ignored = ignored;
+    }
+
+    /**
+     * Result of the last rule matching the path, from this directory up to the base directory.
+     *
+     * @return true if ignored, false if re-included by a negation, null if no rule matches
+     */
+    @CheckForNull
+    private Boolean match(Path path, boolean isDirectory) {
+      if (rules.length > 0) {
+        String relativePath = toSlashSeparated(directory.relativize(path));
+        String fileName = path.getFileName().toString();
+        for (int i = rules.length - 1; i >= 0; i--) {
+          Rule rule = rules[i];
+          if (rule.matches(relativePath, fileName, isDirectory)) {
+            return !rule.negated;
+          }
+        }
+      }
+      return parent == null ? null : parent.match(path, isDirectory);
+    }
+
+    private static String toSlashSeparated(Path relativePath) {
+      if (relativePath.getNameCount() == 1) {
+        return relativePath.toString();
+      }
+      StringBuilder sb = new StringBuilder();
+      for (Path name : relativePath) {
+        if (sb.length() > 0) {
+          sb.append('/');
+        }
+        sb.append(name);
+      }
+      return sb.toString();
+    }
+  }
+
+  static final class Rule {
+    private final Pattern pattern;
+    private final boolean negated;
+    private final boolean directoryOnly;
+    private final boolean anchored;
+
+    private Rule(Pattern pattern, boolean negated, boolean directoryOnly, boolean anchored) {
+      this.pattern = pattern;
+      this.negated = negated;
+      this.directoryOnly = directoryOnly;
+      this.anchored = anchored;
+    }
+
+    boolean matches(String relativePath, String fileName, boolean isDirectory) {
+      if (directoryOnly && !isDirectory) {
+        return false;
+      }
+      return pattern.matcher(anchored ? relativePath : fileName).matches();
+    }
+
+    boolean isNegated() {
+      return negated;
+    }
+
+    @CheckForNull
+    static Rule compile(String line) {
+      String text = trimTrailingSpaces(line);
+      if (text.isEmpty() || text.startsWith("#")) {
+        return null;
+      }
+      boolean negated = false;
+      if (text.startsWith("!")) {
+        negated = true;
+        text = text.substring(1);
+      } else if (text.startsWith("\\!") || text.startsWith("\\#")) {
+        text = text.substring(1);
+      }
+      boolean directoryOnly = text.endsWith("/");
+      if (directoryOnly) {
+        text = text.substring(0, text.length() - 1);
+      }
+      boolean anchored = text.contains("/");
+      if (text.startsWith("/")) {
+        text = text.substring(1);
+      }
+      if (text.isEmpty()) {
+        return null;
+      }
+      return new Rule(Pattern.compile(toRegex(text)), negated, directoryOnly, anchored);
+    }
+
+    private static String trimTrailingSpaces(String line) {
+      int end = line.length();
+      while (end > 0 && line.charAt(end - 1) == ' ' && (end < 2 || line.charAt(end - 2) != '\\')) {
+        end--;
+      }
+      return line.substring(0, end);
+    }
+
+    private static String toRegex(String glob) {
+      StringBuilder regex = new StringBuilder();
+      int i = 0;
+      while (i < glob.length()) {
+        char c = glob.charAt(i);
+        if (glob.startsWith("**/", i) && (i == 0 || glob.charAt(i - 1) == '/')) {
+          regex.append("(?:.*/)?");
+          i += 3;
+        } else if (glob.startsWith("**", i) && i + 2 == glob.length() && (i == 0 || glob.charAt(i - 1) == '/')) {
+          regex.append(".*");
+          i += 2;
+        } else if (c == '*') {
+          regex.append("[^/]*");
+          i++;
+        } else if (c == '?') {
+          regex.append("[^/]");
+          i++;
+        } else if (c == '[') {
+          i = appendCharacterClass(glob, i, regex);
+        } else if (c == '\\' && i + 1 < glob.length()) {
+          regex.append(Pattern.quote(String.valueOf(glob.charAt(i + 1))));
+          i += 2;
+        } else {
+          regex.append(Pattern.quote(String.valueOf(c)));
+          i++;
+        }
+      }
+      return regex.toString();
+    }
+
+    private static int appendCharacterClass(String glob, int start, StringBuilder regex) {
+      int end = glob.indexOf(']', start + 2);
+      if (end < 0) {
+        regex.append("\\[");
+        return start + 1;
+      }
+      String content = glob.substring(start + 1, end);
+      regex.append('[');
+      if (content.startsWith("!") || content.startsWith("^")) {
+        regex.append('^');
+        content = content.substring(1);
+      }
+      regex.append(content.replace("\\", "\\\\").replace("[", "\\[")).append(']');
+      return end + 1;
+    }
+  }
+}
@@ -20,6 +20,9 @@
 package org.sonar.api.batch.scm;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import org.sonar.api.scanner.ScannerSide;
 
 /**
@@ -37,6 +40,40 @@ public interface IgnoreCommand {
    */
   boolean isIgnored(Path file);
 
+  /**
+   * Check which files of a batch are ignored by the scm. Implementations can group the files by directory to share
+   * the evaluation of the ignore rules of their parent directories.
+   * <br>
+   * The default implementation calls {@link #isIgnored(Path)} for each file.
+   *
+   * @param files Absolute paths of project files
+   * @return the ignored files among the given ones
+   * @since 13.12
+   */
+  default Set<Path> ignoredFiles(Collection<Path> files) {
+    Set<Path> ignored = new HashSet<>();
+    for (Path file : files) {
+      if (isIgnored(file)) {
+        ignored.add(file);
+      }
+    }
+    return ignored;
+  }
+
+  /**
+   * Check if a whole directory is ignored by the scm, so that the files and directories it contains don't have to be
+   * listed. A file walker can use it to skip ignored subtrees, like {@code node_modules} or {@code target}.
+   * <br>
+   * The default implementation returns {@code false}, meaning that the content of the directory must be checked.
+   *
+   * @param directory Absolute path of a project directory
+   * @return true if the directory and everything it contains is ignored, false if unknown or not ignored
+   * @since 13.12
+   */
+  default boolean isDirectoryIgnored(Path directory) {
+    return false;
+  }
+
   /**
    * Must be called before the calling {@link #isIgnored(Path)}
    *
@@ -0,0 +1,179 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.scm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import javax.annotation.CheckForNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Reuses the blame of files computed by a previous analysis. The blame of each file is stored in the analysis cache
+ * with the hash of the file content and the revision it was computed at.
+ * <ul>
+ *   <li>If the content of the file did not change, the previous blame is reused as is</li>
+ *   <li>Otherwise, if the {@link BlameCommand} is {@link BlameCommand#isIncremental() incremental}, the previous blame
+ *   is shifted according to the {@link BlameCommand#diff(InputFile, String) differences} since the previous revision,
+ *   and only the changed lines are {@link BlameCommand#blameLines(InputFile, int, int) blamed}</li>
+ *   <li>Otherwise, the file must be blamed again</li>
+ * </ul>
+ * For files with a few changes, the cost of blame then depends on the size of the changes instead of the history of the file.
+ *
+ * @since 13.12
+ */
+public final class IncrementalBlameCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IncrementalBlameCache.class);
+
+  static final String KEY_PREFIX = "scm:blame:";
+  static final int VERSION = 1;
+
+  private final ReadCache previousCache;
+  private final WriteCache nextCache;
+
+  public IncrementalBlameCache(ReadCache previousCache, WriteCache nextCache) {
+    this.previousCache = requireNonNull(previousCache, "Read cache can't be null");
+    this.nextCache = requireNonNull(nextCache, "Write cache can't be null");
+  }
+
+  /**
+   * Computes the blame of the file from its previous blame.
+   *
+   * @return null if the file must be fully blamed, for example if it was not blamed by the previous analysis
+   */
+  @CheckForNull
+  public BlameResult blame(BlameCommand command, InputFile file) {
+    String key = key(file);
+    if (!previousCache.contains(key)) {
+      return null;
+    }
+    Entry previous;
+    try {
+      previous = read(key);
+    } catch (IOException | IllegalArgumentException e) {
+      LOG.debug("Previous blame of {} can't be read", file, e);
+      return null;
+    }
+    if (previous.hash.equals(file.md5Hash()) && previous.result.lines() == file.lines()) {
+      return previous.result;
+    }
+    if (!command.isIncremental()) {
+      return null;
+    }
+    LineDiff diff = command.diff(file, previous.revision);
+    if (diff == null) {
+      return null;
+    }
+    try {
+      return shift(previous.result, diff, file.lines(), (startLine, endLine) -> command.blameLines(file, startLine, endLine));
+    } catch (IllegalArgumentException e) {
+      LOG.debug("Previous blame of {} can't be reused: {}", file, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Stores the blame of the file for the next analysis.
+   *
+   * @param revision the revision the blame was computed at
+   */
+  public void save(InputFile file, String revision, BlameResult result) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeInt(VERSION);
+      output.writeUTF(file.md5Hash());
+      output.writeUTF(requireNonNull(revision, "Revision can't be null"));
+      result.writeTo(output);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    nextCache.write(key(file), bytes.toByteArray());
+  }
+
+  /**
+   * Applies the differences to the previous blame: unchanged lines keep their previous blame, and the lines of the
+   * current version of each hunk are blamed again.
+   *
+   * @throws IllegalArgumentException if the differences are not consistent with the number of lines
+   */
+  static BlameResult shift(BlameResult previous, LineDiff diff, int currentLines, LinesBlamer blamer) {
+    BlameResult.Builder builder = BlameResult.builder();
+    int previousLine = 1;
+    for (LineDiff.Hunk hunk : diff.hunks()) {
+      int unchanged = hunk.previousStartLine() - previousLine;
+      checkArgument(hunk.previousStartLine() + hunk.previousLineCount() - 1 <= previous.lines(),
+        "Hunk at line %s is out of the %s lines of the previous blame", hunk.previousStartLine(), previous.lines());
+      builder.addLines(previous, previousLine, unchanged);
+      if (hunk.currentLineCount() > 0) {
+        int endLine = hunk.currentStartLine() + hunk.currentLineCount() - 1;
+        BlameResult changed = blamer.blame(hunk.currentStartLine(), endLine);
+        checkArgument(changed.lines() == hunk.currentLineCount(), "Blame of lines [%s, %s] has %s lines", hunk.currentStartLine(), endLine, changed.lines());
+        builder.addLines(changed, 1, changed.lines());
+      }
+      previousLine = hunk.previousStartLine() + hunk.previousLineCount();
+    }
+    builder.addLines(previous, previousLine, previous.lines() - previousLine + 1);
+    BlameResult result = builder.build();
+    checkArgument(result.lines() == currentLines, "Blame has %s lines instead of %s", result.lines(), currentLines);
+    return result;
+  }
+
+  private Entry read(String key) throws IOException {
+    try (InputStream stream = previousCache.read(key); DataInputStream input = new DataInputStream(stream)) {
+      int version = input.readInt();
+      checkArgument(version == VERSION, "Unsupported version of cached blame: %s", version);
+      String hash = input.readUTF();
+      String revision = input.readUTF();
+      return new Entry(hash, revision, BlameResult.readFrom(input));
+    }
+  }
+
+  private static String key(InputFile file) {
+    return KEY_PREFIX + file.key();
+  }
+
+  @FunctionalInterface
+  interface LinesBlamer {
+    BlameResult blame(int startLine, int endLine);
+  }
+
+  private static final class Entry {
+    private final String hash;
+    private final String revision;
+    private final BlameResult result;
+
+    private Entry(String hash, String revision, BlameResult result) {
+      this.hash = hash;
+      this.revision = revision;
+      this.result = result;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.scm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.concurrent.Immutable;
+
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Differences between two versions of a file, as a list of hunks ordered by line, similar to the hunks of a unified diff.
+ * Lines that are not in a hunk are unchanged.
+ * <br>
+ * A hunk replaces {@code previousLineCount} lines of the previous version, starting at {@code previousStartLine}, by
+ * {@code currentLineCount} lines of the current version, starting at {@code currentStartLine}. Counts are zero for
+ * pure insertions or deletions, and start lines are then the line that follows the insertion or deletion point.
+ * Lines start at 1.
+ *
+ * @see BlameCommand#diff(org.sonar.api.batch.fs.InputFile, String)
+ * @since 13.12
+ */
+@Immutable
+public final class LineDiff {
+
+  private final List<Hunk> hunks;
+
+  private LineDiff(List<Hunk> hunks) {
+    this.hunks = Collections.unmodifiableList(hunks);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public List<Hunk> hunks() {
+    return hunks;
+  }
+
+  @Immutable
+  public static final class Hunk {
+    private final int previousStartLine;
+    private final int previousLineCount;
+    private final int currentStartLine;
+    private final int currentLineCount;
+
+    private Hunk(int previousStartLine, int previousLineCount, int currentStartLine, int currentLineCount) {
+      this.previousStartLine = previousStartLine;
+      this.previousLineCount = previousLineCount;
+      this.currentStartLine = currentStartLine;
+      this.currentLineCount = currentLineCount;
+    }
+
+    public int previousStartLine() {
+      return previousStartLine;
+    }
+
+    public int previousLineCount() {
+      return previousLineCount;
+    }
+
+    public int currentStartLine() {
+      return currentStartLine;
+    }
+
+    public int currentLineCount() {
+      return currentLineCount;
+    }
+  }
+
+  public static final class Builder {
+    private final List<Hunk> hunks = new ArrayList<>();
+    private int previousNextLine = 1;
+    private int currentNextLine = 1;
+
+    private Builder() {
+      // use LineDiff.builder()
+    }
+
+    /**
+     * Adds the next hunk. Hunks must be added in line order and must not overlap.
+     */
+    public Builder addHunk(int previousStartLine, int previousLineCount, int currentStartLine, int currentLineCount) {
+      checkArgument(previousLineCount >= 0 && currentLineCount >= 0, "Line counts can't be negative");
+      checkArgument(previousStartLine >= previousNextLine && currentStartLine >= currentNextLine,
+        "Hunks must be ordered and must not overlap: hunk %s,%s +%s,%s", previousStartLine, previousLineCount, currentStartLine, currentLineCount);
+      checkArgument(previousStartLine - previousNextLine == currentStartLine - currentNextLine,
+        "Unchanged lines before hunk %s,%s +%s,%s differ between versions", previousStartLine, previousLineCount, currentStartLine, currentLineCount);
+      hunks.add(new Hunk(previousStartLine, previousLineCount, currentStartLine, currentLineCount));
+      previousNextLine = previousStartLine + previousLineCount;
+      currentNextLine = currentStartLine + currentLineCount;
+      return this;
+    }
+
+    public LineDiff build() {
+      return new LineDiff(new ArrayList<>(hunks));
+    }
+  }
+}
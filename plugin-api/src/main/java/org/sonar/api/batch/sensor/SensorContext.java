@@ -26,6 +26,7 @@ import org.sonar.api.SonarRuntime;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputModule;
+import org.sonar.api.batch.measure.Metric;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.sensor.cache.ReadCache;
 import org.sonar.api.batch.sensor.cache.WriteCache;
@@ -41,6 +42,7 @@ import org.sonar.api.batch.sensor.issue.NewExternalIssue;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueResolution;
 import org.sonar.api.batch.sensor.measure.Measure;
+import org.sonar.api.batch.sensor.measure.MeasureBatch;
 import org.sonar.api.batch.sensor.measure.NewMeasure;
 import org.sonar.api.batch.sensor.rule.AdHocRule;
 import org.sonar.api.batch.sensor.rule.NewAdHocRule;
@@ -138,6 +140,27 @@ public interface SensorContext {
    */
   <G extends Serializable> NewMeasure<G> newMeasure();
 
+  /**
+   * Saves measures of several metrics on many components at once, with primitive values. It is equivalent to saving
+   * each value of the batch with {@link #newMeasure()}, which is what the default implementation does, but it allows
+   * implementations to store the columns without creating a builder and boxing a value per measure.
+   *
+   * @since 13.12
+   */
+  default void saveMeasures(MeasureBatch batch) {
+    for (MeasureBatch.Column column : batch.columns()) {
+      @SuppressWarnings("unchecked")
+      Metric<Serializable> metric = (Metric<Serializable>) column.metric();
+      for (int i = 0; i < batch.size(); i++) {
+        this.<Serializable>newMeasure()
+          .on(batch.components().get(i))
+          .forMetric(metric)
+          .withValue(column.value(i))
+          .save();
+      }
+    }
+  }
+
   // ----------- ISSUES --------------
 
   /**
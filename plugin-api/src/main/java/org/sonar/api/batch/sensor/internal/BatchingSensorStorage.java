@@ -0,0 +1,348 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.sonar.api.batch.sensor.code.NewSignificantCode;
+import org.sonar.api.batch.sensor.coverage.NewCoverage;
+import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
+import org.sonar.api.batch.sensor.error.AnalysisError;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
+import org.sonar.api.batch.sensor.issue.ExternalIssue;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.issue.IssueResolution;
+import org.sonar.api.batch.sensor.measure.Measure;
+import org.sonar.api.batch.sensor.rule.AdHocRule;
+import org.sonar.api.batch.sensor.symbol.NewSymbolTable;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * {@link SensorStorage} that persists data asynchronously, so that sensors don't wait for the serialization of their data.
+ * <ul>
+ *   <li>Stored data is enqueued into a bounded ring buffer.</li>
+ *   <li>A single background writer drains the buffer by chunks of up to {@code chunkSize} items. Consecutive items of the
+ *   same kind are passed at once to the delegate storage with {@link SensorStorage#store(SensorStorage.DataKind, List)},
+ *   which persists them synchronously.</li>
+ *   <li>When the buffer is full, store methods block until the writer makes room. This bounds the memory used by pending
+ *   data and slows down sensors that produce data faster than it can be persisted.</li>
+ *   <li>{@link #flush()} is a barrier: it blocks until all the data stored before the call is persisted. It should be
+ *   called at the end of each sensor.</li>
+ * </ul>
+ * The delegate is only called by the writer thread, never concurrently, so it does not need to be thread-safe. Data is
+ * passed to the delegate in the order it was stored. Stored objects must not be modified afterward, which is the case of
+ * objects saved by sensors.
+ * <br>
+ * Errors of the delegate, including the validation errors thrown by its store methods, are not thrown to the sensor that
+ * stored the faulty data. The first error is thrown, wrapped in an {@link IllegalStateException}, by the next call to a
+ * store method or to {@link #flush()}, whatever the sensor that makes it. All the data pending or stored after the
+ * error is silently dropped.
+ * <br>
+ * {@link #close()} can be called several times. Once closed, store methods and {@link #flush()} fail, including the
+ * ones of sensors waiting for room in the buffer or for the end of a flush.
+ *
+ * @since 13.12
+ */
+@ThreadSafe
+public final class BatchingSensorStorage implements SensorStorage, AutoCloseable {
+
+  private final SensorStorage delegate;
+  private final int chunkSize;
+  private final BlockingQueue<Pending> queue;
+  private final Object monitor = new Object();
+  // guarded by monitor
+  private Thread writer;
+  private boolean closed;
+  private volatile RuntimeException failure;
+
+  /**
+   * @param delegate storage that persists data. It is called by a single thread.
+   * @param capacity maximum number of pending items
+   * @param chunkSize maximum number of items drained by the writer in one go
+   */
+  public BatchingSensorStorage(SensorStorage delegate, int capacity, int chunkSize) {
+    checkArgument(capacity > 0, "Capacity must be greater than 0: %s", capacity);
+    checkArgument(chunkSize > 0 && chunkSize <= capacity, "Chunk size must be between 1 and the capacity (%s): %s", capacity, chunkSize);
+    this.delegate = requireNonNull(delegate, "Delegate storage can't be null");
+    this.chunkSize = chunkSize;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+  }
+
+  @SuppressWarnings("rawtypes")
+  @Override
+  public void store(Measure measure) {
+    enqueue(DataKind.MEASURE, measure);
+  }
+
+  @Override
+  public void store(Issue issue) {
+    enqueue(DataKind.ISSUE, issue);
+  }
+
+  @Override
+  public void store(ExternalIssue issue) {
+    enqueue(DataKind.EXTERNAL_ISSUE, issue);
+  }
+
+  @Override
+  public void store(AdHocRule adHocRule) {
+    enqueue(DataKind.AD_HOC_RULE, adHocRule);
+  }
+
+  @Override
+  public void store(NewHighlighting highlighting) {
+    enqueue(DataKind.HIGHLIGHTING, highlighting);
+  }
+
+  @Override
+  public void store(NewCoverage defaultCoverage) {
+    enqueue(DataKind.COVERAGE, defaultCoverage);
+  }
+
+  @Override
+  public void store(NewCpdTokens cpdTokens) {
+    enqueue(DataKind.CPD_TOKENS, cpdTokens);
+  }
+
+  @Override
+  public void store(NewSymbolTable symbolTable) {
+    enqueue(DataKind.SYMBOL_TABLE, symbolTable);
+  }
+
+  @Override
+  public void store(AnalysisError analysisError) {
+    enqueue(DataKind.ANALYSIS_ERROR, analysisError);
+  }
+
+  @Override
+  public void storeProperty(String key, String value) {
+    checkArgument(key != null, "Key of context property must not be null");
+    checkArgument(value != null, "Value of context property must not be null");
+    enqueue(DataKind.PROPERTY, Map.entry(key, value));
+  }
+
+  @Override
+  public void store(NewSignificantCode significantCode) {
+    enqueue(DataKind.SIGNIFICANT_CODE, significantCode);
+  }
+
+  @Override
+  public void store(IssueResolution issueResolution) {
+    enqueue(DataKind.ISSUE_RESOLUTION, issueResolution);
+  }
+
+  @Override
+  public <T> void store(DataKind<T> kind, List<? extends T> items) {
+    requireNonNull(kind, "Kind can't be null");
+    for (T item : items) {
+      enqueue(kind, item);
+    }
+  }
+
+  /**
+   * Blocks until all the data stored before the call is persisted by the delegate, then calls {@link SensorStorage#flush()}
+   * on the delegate, from the writer thread.
+   *
+   * @throws IllegalStateException if the delegate failed, or if interrupted while waiting
+   */
+  @Override
+  public void flush() {
+    Pending barrier = new Pending(null, null, new CountDownLatch(1));
+    put(barrier);
+    try {
+      barrier.flushed.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while flushing sensor storage", e);
+    }
+    if (barrier.dropped) {
+      throw new IllegalStateException("Sensor storage is closed");
+    }
+    throwFailure();
+  }
+
+  /**
+   * Flushes pending data and stops the writer. Data can't be stored afterward. Does nothing if already closed.
+   */
+  @Override
+  public void close() {
+    synchronized (monitor) {
+      if (closed) {
+        return;
+      }
+    }
+    try {
+      flush();
+    } finally {
+      synchronized (monitor) {
+        closed = true;
+        if (writer != null) {
+          writer.interrupt();
+        }
+        monitor.notifyAll();
+      }
+    }
+  }
+
+  private void enqueue(DataKind<?> kind, Object item) {
+    requireNonNull(item, "Stored data can't be null");
+    put(new Pending(kind, item, null));
+  }
+
+  /**
+   * Items are only enqueued while holding the monitor, after checking that the storage is not closed, so that
+   * nothing is enqueued once the writer is stopped. When the buffer is full, waits for the writer to drain it.
+   */
+  private void put(Pending pending) {
+    throwFailure();
+    synchronized (monitor) {
+      while (true) {
+        if (closed) {
+          throw new IllegalStateException("Sensor storage is closed");
+        }
+        if (writer == null) {
+          writer = new Thread(this::write, "sensor-storage-writer");
+          writer.setDaemon(true);
+          writer.start();
+        }
+        if (queue.offer(pending)) {
+          return;
+        }
+        try {
+          monitor.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while storing sensor data", e);
+        }
+      }
+    }
+  }
+
+  private void throwFailure() {
+    RuntimeException e = failure;
+    if (e != null) {
+      throw new IllegalStateException("Fail to persist sensor data", e);
+    }
+  }
+
+  private void write() {
+    List<Pending> chunk = new ArrayList<>(chunkSize);
+    List<Object> run = new ArrayList<>(chunkSize);
+    try {
+      while (true) {
+        chunk.add(queue.take());
+        queue.drainTo(chunk, chunkSize - 1);
+        synchronized (monitor) {
+          // wake up the sensors waiting for room in the buffer
+          monitor.notifyAll();
+        }
+        DataKind<?> runKind = null;
+        for (Pending pending : chunk) {
+          if (pending.kind != runKind) {
+            storeRun(runKind, run);
+            runKind = pending.kind;
+          }
+          if (pending.flushed != null) {
+            flushDelegate();
+            pending.flushed.countDown();
+          } else {
+            run.add(pending.item);
+          }
+        }
+        storeRun(runKind, run);
+        chunk.clear();
+      }
+    } catch (InterruptedException e) {
+      // the storage is closed
+      releaseRemainingBarriers();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Data stored after the last flush of {@link #close()} is not persisted. The flushes waiting for it are released, and fail.
+   */
+  private void releaseRemainingBarriers() {
+    List<Pending> remaining = new ArrayList<>();
+    queue.drainTo(remaining);
+    for (Pending pending : remaining) {
+      if (pending.flushed != null) {
+        pending.dropped = true;
+        pending.flushed.countDown();
+      }
+    }
+  }
+
+  /**
+   * Once the delegate has failed, items are discarded so that sensors waiting for room in the queue are not blocked.
+   */
+  private void storeRun(@Nullable DataKind<?> kind, List<Object> run) {
+    if (kind != null && !run.isEmpty() && failure == null) {
+      try {
+        storeChunk(delegate, kind, run);
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+    run.clear();
+  }
+
+  private void flushDelegate() {
+    if (failure == null) {
+      try {
+        delegate.flush();
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void storeChunk(SensorStorage storage, DataKind<T> kind, List<Object> items) {
+    storage.store(kind, (List<T>) List.copyOf(items));
+  }
+
+  private static final class Pending {
+    @CheckForNull
+    private final DataKind<?> kind;
+    @CheckForNull
+    private final Object item;
+    // not null for flush barriers
+    @CheckForNull
+    private final CountDownLatch flushed;
+    // set on flush barriers that are released without being reached by the writer, before counting down the latch
+    private boolean dropped;
+
+    private Pending(@Nullable DataKind<?> kind, @Nullable Object item, @Nullable CountDownLatch flushed) {
+      this.kind = kind;
+      this.item = item;
+      this.flushed = flushed;
+    }
+  }
+}
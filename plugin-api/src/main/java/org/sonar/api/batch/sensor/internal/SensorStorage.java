@@ -19,6 +19,9 @@
  */
 package org.sonar.api.batch.sensor.internal;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 import org.sonar.api.batch.sensor.code.NewSignificantCode;
 import org.sonar.api.batch.sensor.coverage.NewCoverage;
 import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
@@ -32,6 +35,8 @@ import org.sonar.api.batch.sensor.rule.AdHocRule;
 import org.sonar.api.batch.sensor.symbol.NewSymbolTable;
 import org.sonar.api.scanner.ScannerSide;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * Interface for storing data computed by sensors.
  *
@@ -88,4 +93,71 @@ public interface SensorStorage {
    * @since 13.5
    */
   void store(IssueResolution issueResolution);
+
+  /**
+   * Stores a chunk of data of the same kind, in order. The default implementation calls the store method of the
+   * kind on each item. Implementations can override it to persist the chunk at once, for example in a single
+   * sequential write.
+   *
+   * @since 13.12
+   * @see BatchingSensorStorage
+   */
+  default <T> void store(DataKind<T> kind, List<? extends T> items) {
+    for (T item : items) {
+      kind.storeOne(this, item);
+    }
+  }
+
+  /**
+   * Barrier called at sensor boundaries: blocks until all the data stored so far is persisted. Implementations that
+   * persist data synchronously, which is the default, have nothing to do.
+   *
+   * @since 13.12
+   * @see BatchingSensorStorage
+   */
+  default void flush() {
+    // data is persisted by store methods
+  }
+
+  /**
+   * Kind of data stored by a {@link SensorStorage}, used to store chunks of data with {@link #store(DataKind, List)}.
+   * Context properties are stored as entries of key and value.
+   *
+   * @since 13.12
+   */
+  final class DataKind<T> {
+    public static final DataKind<Measure<?>> MEASURE = new DataKind<>("measure", SensorStorage::store);
+    public static final DataKind<Issue> ISSUE = new DataKind<>("issue", SensorStorage::store);
+    public static final DataKind<ExternalIssue> EXTERNAL_ISSUE = new DataKind<>("external_issue", SensorStorage::store);
+    public static final DataKind<AdHocRule> AD_HOC_RULE = new DataKind<>("ad_hoc_rule", SensorStorage::store);
+    public static final DataKind<NewHighlighting> HIGHLIGHTING = new DataKind<>("highlighting", SensorStorage::store);
+    public static final DataKind<NewCoverage> COVERAGE = new DataKind<>("coverage", SensorStorage::store);
+    public static final DataKind<NewCpdTokens> CPD_TOKENS = new DataKind<>("cpd_tokens", SensorStorage::store);
+    public static final DataKind<NewSymbolTable> SYMBOL_TABLE = new DataKind<>("symbol_table", SensorStorage::store);
+    public static final DataKind<AnalysisError> ANALYSIS_ERROR = new DataKind<>("analysis_error", SensorStorage::store);
+    public static final DataKind<Map.Entry<String, String>> PROPERTY = new DataKind<>("property",
+      (storage, property) -> storage.storeProperty(property.getKey(), property.getValue()));
+    public static final DataKind<NewSignificantCode> SIGNIFICANT_CODE = new DataKind<>("significant_code", SensorStorage::store);
+    public static final DataKind<IssueResolution> ISSUE_RESOLUTION = new DataKind<>("issue_resolution", SensorStorage::store);
+
+    private final String name;
+    private final BiConsumer<SensorStorage, T> store;
+
+    private DataKind(String name, BiConsumer<SensorStorage, T> store) {
+      this.name = name;
+      this.store = store;
+    }
+
+    /**
+     * Calls the store method of this kind on {@code storage}.
+     */
+    public void storeOne(SensorStorage storage, T item) {
+      store.accept(requireNonNull(storage, "Storage can't be null"), item);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
 }
@@ -0,0 +1,268 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.issue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.rule.NewAdHocRule;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Imports the issues of a report of an external rule engine, without loading the report in memory.
+ * <br>
+ * The report is read by an {@link ExternalIssueReportParser}. Findings are buffered in batches of
+ * {@link #setBatchSize(int) batch size}, so that the {@link InputFile} of each distinct path of a batch is resolved once
+ * through the index of the {@link FileSystem}. Resolved files are kept in a bounded cache, as findings of a file are usually
+ * grouped in reports. Issues are then saved through {@link SensorContext#newExternalIssue()} before the next batch
+ * is read. Memory only depends on the batch size, the cache size and the number of distinct ad-hoc rules, whatever the
+ * size of the report.
+ * <br>
+ * Example, in a {@link org.sonar.api.batch.sensor.Sensor}:
+ * <pre>
+ *   try (InputStream report = Files.newInputStream(reportPath)) {
+ *     ExternalIssueImporter.Result result = new ExternalIssueImporter(context).importReport(report, new MySarifParser());
+ *     LOG.info("Imported {} issues", result.importedIssues());
+ *   }
+ * </pre>
+ * Findings on files unknown to the file system, or with a location that does not exist in the file, are ignored.
+ *
+ * @since 13.12
+ */
+public final class ExternalIssueImporter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ExternalIssueImporter.class);
+
+  static final int DEFAULT_BATCH_SIZE = 1_000;
+  static final int DEFAULT_FILE_CACHE_SIZE = 1_000;
+
+  private final SensorContext context;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  private int fileCacheSize = DEFAULT_FILE_CACHE_SIZE;
+
+  public ExternalIssueImporter(SensorContext context) {
+    this.context = requireNonNull(context, "Sensor context can't be null");
+  }
+
+  /**
+   * Maximum number of findings buffered before resolving their files and saving them. Default is {@value #DEFAULT_BATCH_SIZE}.
+   */
+  public ExternalIssueImporter setBatchSize(int batchSize) {
+    checkArgument(batchSize > 0, "Batch size must be greater than 0: %s", batchSize);
+    this.batchSize = batchSize;
+    return this;
+  }
+
+  /**
+   * Maximum number of resolved files kept between batches. Default is {@value #DEFAULT_FILE_CACHE_SIZE}.
+   */
+  public ExternalIssueImporter setFileCacheSize(int fileCacheSize) {
+    checkArgument(fileCacheSize >= 0, "File cache size can't be negative: %s", fileCacheSize);
+    this.fileCacheSize = fileCacheSize;
+    return this;
+  }
+
+  /**
+   * Parses the report and saves its issues, and the ad-hoc rules they declare.
+   *
+   * @param report the report. It is not closed by this method.
+   */
+  public Result importReport(InputStream report, ExternalIssueReportParser parser) throws IOException {
+    requireNonNull(report, "Report can't be null");
+    requireNonNull(parser, "Parser can't be null");
+    Import currentImport = new Import();
+    parser.parse(report, currentImport::add);
+    currentImport.flush();
+    return currentImport.result;
+  }
+
+  private class Import {
+    private final Result result = new Result();
+    private final List<ExternalIssueRecord> batch = new ArrayList<>(batchSize);
+    private final Set<String> adHocRules = new HashSet<>();
+    private final Map<String, Optional<InputFile>> filesByPath = new LinkedHashMap<>(16, 0.75F, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Optional<InputFile>> eldest) {
+        return size() > fileCacheSize;
+      }
+    };
+
+    private void add(ExternalIssueRecord issue) {
+      batch.add(requireNonNull(issue, "Issue can't be null"));
+      if (batch.size() >= batchSize) {
+        flush();
+      }
+    }
+
+    private void flush() {
+      Map<String, InputFile> batchFiles = resolveFiles();
+      for (ExternalIssueRecord issue : batch) {
+        InputFile inputFile = batchFiles.get(issue.filePath());
+        if (inputFile == null) {
+          LOG.debug("External issue of rule {}:{} ignored, file not found: {}", issue.engineId(), issue.ruleId(), issue.filePath());
+          result.unknownFileIssues++;
+        } else {
+          save(issue, inputFile);
+        }
+      }
+      batch.clear();
+    }
+
+    private Map<String, InputFile> resolveFiles() {
+      FileSystem fs = context.fileSystem();
+      Map<String, InputFile> batchFiles = new HashMap<>();
+      for (ExternalIssueRecord issue : batch) {
+        String path = issue.filePath();
+        if (!batchFiles.containsKey(path)) {
+          Optional<InputFile> inputFile = filesByPath.get(path);
+          if (inputFile == null) {
+            // a single path predicate is resolved through the index of the file system
+            inputFile = Optional.ofNullable(fs.inputFile(fs.predicates().hasPath(path)));
+            filesByPath.put(path, inputFile);
+          }
+          batchFiles.put(path, inputFile.orElse(null));
+        }
+      }
+      return batchFiles;
+    }
+
+    private void save(ExternalIssueRecord issue, InputFile inputFile) {
+      NewExternalIssue newIssue = context.newExternalIssue();
+      NewIssueLocation location = newIssue.newLocation().on(inputFile);
+      try {
+        TextRange range = range(issue, inputFile);
+        if (range != null) {
+          location.at(range);
+        }
+      } catch (IllegalArgumentException e) {
+        LOG.debug("External issue of rule {}:{} ignored, invalid location in {}: {}", issue.engineId(), issue.ruleId(), inputFile, e.getMessage());
+        result.invalidLocationIssues++;
+        return;
+      }
+      if (issue.message() != null) {
+        location.message(issue.message());
+      }
+      newIssue
+        .engineId(issue.engineId())
+        .ruleId(issue.ruleId())
+        .remediationEffortMinutes(issue.remediationEffortMinutes())
+        .at(location);
+      if (issue.type() != null) {
+        newIssue.type(issue.type());
+      }
+      if (issue.severity() != null) {
+        newIssue.severity(issue.severity());
+      }
+      issue.impacts().forEach(newIssue::addImpact);
+      if (issue.cleanCodeAttribute() != null) {
+        newIssue.cleanCodeAttribute(issue.cleanCodeAttribute());
+      }
+      saveAdHocRuleIfFirstMet(issue);
+      newIssue.save();
+      result.importedIssues++;
+    }
+
+    private void saveAdHocRuleIfFirstMet(ExternalIssueRecord issue) {
+      if (issue.adHocRuleName() == null || !adHocRules.add(issue.engineId() + ":" + issue.ruleId())) {
+        return;
+      }
+      NewAdHocRule rule = context.newAdHocRule()
+        .engineId(issue.engineId())
+        .ruleId(issue.ruleId())
+        .name(issue.adHocRuleName())
+        .description(issue.adHocRuleDescription());
+      if (issue.type() != null) {
+        rule.type(issue.type());
+      }
+      if (issue.severity() != null) {
+        rule.severity(issue.severity());
+      }
+      issue.impacts().forEach(rule::addDefaultImpact);
+      if (issue.cleanCodeAttribute() != null) {
+        rule.cleanCodeAttribute(issue.cleanCodeAttribute());
+      }
+      rule.save();
+      result.adHocRules++;
+    }
+  }
+
+  @CheckForNull
+  private static TextRange range(ExternalIssueRecord issue, InputFile inputFile) {
+    if (issue.startLine() == 0) {
+      return null;
+    }
+    if (issue.endLine() == 0) {
+      return inputFile.selectLine(issue.startLine());
+    }
+    return inputFile.newRange(issue.startLine(), issue.startLineOffset(), issue.endLine(), issue.endLineOffset());
+  }
+
+  /**
+   * Counters of an import.
+   */
+  public static final class Result {
+    private long importedIssues;
+    private long unknownFileIssues;
+    private long invalidLocationIssues;
+    private int adHocRules;
+
+    private Result() {
+      // created by ExternalIssueImporter
+    }
+
+    public long importedIssues() {
+      return importedIssues;
+    }
+
+    /**
+     * Number of issues ignored because their file is not known by the {@link FileSystem}.
+     */
+    public long unknownFileIssues() {
+      return unknownFileIssues;
+    }
+
+    /**
+     * Number of issues ignored because their location does not exist in their file.
+     */
+    public long invalidLocationIssues() {
+      return invalidLocationIssues;
+    }
+
+    public int adHocRules() {
+      return adHocRules;
+    }
+  }
+}
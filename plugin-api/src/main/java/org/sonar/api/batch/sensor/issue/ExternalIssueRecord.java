@@ -0,0 +1,287 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.issue;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.batch.rule.Severity;
+import org.sonar.api.issue.impact.SoftwareQuality;
+import org.sonar.api.rules.CleanCodeAttribute;
+import org.sonar.api.rules.RuleType;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * A finding read from the report of an external rule engine by an {@link ExternalIssueReportParser}.
+ * <br>
+ * The location is either the whole file (no line), a line (only the start line), or a text range (all the lines and
+ * offsets). Lines start at 1 and offsets at 0.
+ * <br>
+ * If {@link #adHocRuleName()} is set, an ad-hoc rule is registered the first time the rule is met during the import.
+ * Its default impacts and clean code attribute are the ones of this finding.
+ *
+ * @since 13.12
+ */
+@Immutable
+public final class ExternalIssueRecord {
+
+  private final String engineId;
+  private final String ruleId;
+  private final String filePath;
+  @Nullable
+  private final String message;
+  private final int startLine;
+  private final int startLineOffset;
+  private final int endLine;
+  private final int endLineOffset;
+  @Nullable
+  private final RuleType type;
+  @Nullable
+  private final Severity severity;
+  private final Map<SoftwareQuality, org.sonar.api.issue.impact.Severity> impacts;
+  @Nullable
+  private final CleanCodeAttribute cleanCodeAttribute;
+  @Nullable
+  private final Long remediationEffortMinutes;
+  @Nullable
+  private final String adHocRuleName;
+  @Nullable
+  private final String adHocRuleDescription;
+
+  private ExternalIssueRecord(Builder builder) {
+    this.engineId = requireNonNull(builder.engineId, "Engine id can't be null");
+    this.ruleId = requireNonNull(builder.ruleId, "Rule id can't be null");
+    this.filePath = requireNonNull(builder.filePath, "File path can't be null");
+    this.message = builder.message;
+    this.startLine = builder.startLine;
+    this.startLineOffset = builder.startLineOffset;
+    this.endLine = builder.endLine;
+    this.endLineOffset = builder.endLineOffset;
+    this.type = builder.type;
+    this.severity = builder.severity;
+    this.impacts = Collections.unmodifiableMap(new EnumMap<>(builder.impacts));
+    this.cleanCodeAttribute = builder.cleanCodeAttribute;
+    this.remediationEffortMinutes = builder.remediationEffortMinutes;
+    this.adHocRuleName = builder.adHocRuleName;
+    this.adHocRuleDescription = builder.adHocRuleDescription;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public String engineId() {
+    return engineId;
+  }
+
+  public String ruleId() {
+    return ruleId;
+  }
+
+  /**
+   * Path of the file, relative to the base directory of the project or absolute.
+   */
+  public String filePath() {
+    return filePath;
+  }
+
+  @CheckForNull
+  public String message() {
+    return message;
+  }
+
+  /**
+   * @return the start line, or {@code 0} if the issue is on the whole file
+   */
+  public int startLine() {
+    return startLine;
+  }
+
+  /**
+   * @return the start line offset, or {@code -1} if the issue is on the whole file or line
+   */
+  public int startLineOffset() {
+    return startLineOffset;
+  }
+
+  /**
+   * @return the end line, or {@code 0} if the issue is on the whole file or line
+   */
+  public int endLine() {
+    return endLine;
+  }
+
+  /**
+   * @return the end line offset, or {@code -1} if the issue is on the whole file or line
+   */
+  public int endLineOffset() {
+    return endLineOffset;
+  }
+
+  @CheckForNull
+  public RuleType type() {
+    return type;
+  }
+
+  @CheckForNull
+  public Severity severity() {
+    return severity;
+  }
+
+  /**
+   * @return the impacts of the issue, empty if the report only provides the legacy type and severity
+   */
+  public Map<SoftwareQuality, org.sonar.api.issue.impact.Severity> impacts() {
+    return impacts;
+  }
+
+  @CheckForNull
+  public CleanCodeAttribute cleanCodeAttribute() {
+    return cleanCodeAttribute;
+  }
+
+  @CheckForNull
+  public Long remediationEffortMinutes() {
+    return remediationEffortMinutes;
+  }
+
+  @CheckForNull
+  public String adHocRuleName() {
+    return adHocRuleName;
+  }
+
+  @CheckForNull
+  public String adHocRuleDescription() {
+    return adHocRuleDescription;
+  }
+
+  public static final class Builder {
+    private String engineId;
+    private String ruleId;
+    private String filePath;
+    private String message;
+    private int startLine = 0;
+    private int startLineOffset = -1;
+    private int endLine = 0;
+    private int endLineOffset = -1;
+    private RuleType type;
+    private Severity severity;
+    private final Map<SoftwareQuality, org.sonar.api.issue.impact.Severity> impacts = new EnumMap<>(SoftwareQuality.class);
+    private CleanCodeAttribute cleanCodeAttribute;
+    private Long remediationEffortMinutes;
+    private String adHocRuleName;
+    private String adHocRuleDescription;
+
+    private Builder() {
+      // use ExternalIssueRecord.builder()
+    }
+
+    public Builder engineId(String engineId) {
+      this.engineId = engineId;
+      return this;
+    }
+
+    public Builder ruleId(String ruleId) {
+      this.ruleId = ruleId;
+      return this;
+    }
+
+    public Builder filePath(String filePath) {
+      this.filePath = filePath;
+      return this;
+    }
+
+    public Builder message(@Nullable String message) {
+      this.message = message;
+      return this;
+    }
+
+    /**
+     * Locates the issue on a whole line.
+     */
+    public Builder line(int line) {
+      checkArgument(line > 0, "Line must be greater than 0: %s", line);
+      this.startLine = line;
+      this.startLineOffset = -1;
+      this.endLine = 0;
+      this.endLineOffset = -1;
+      return this;
+    }
+
+    /**
+     * Locates the issue on a text range.
+     */
+    public Builder range(int startLine, int startLineOffset, int endLine, int endLineOffset) {
+      checkArgument(startLine > 0, "Start line must be greater than 0: %s", startLine);
+      checkArgument(startLineOffset >= 0 && endLineOffset >= 0, "Line offsets can't be negative");
+      checkArgument(endLine >= startLine, "End line %s must be greater than or equal to start line %s", endLine, startLine);
+      this.startLine = startLine;
+      this.startLineOffset = startLineOffset;
+      this.endLine = endLine;
+      this.endLineOffset = endLineOffset;
+      return this;
+    }
+
+    public Builder type(@Nullable RuleType type) {
+      this.type = type;
+      return this;
+    }
+
+    public Builder severity(@Nullable Severity severity) {
+      this.severity = severity;
+      return this;
+    }
+
+    /**
+     * Adds an impact of the issue. A second impact on the same software quality replaces the first one.
+     */
+    public Builder addImpact(SoftwareQuality softwareQuality, org.sonar.api.issue.impact.Severity severity) {
+      requireNonNull(softwareQuality, "Software quality can't be null");
+      requireNonNull(severity, "Severity can't be null");
+      this.impacts.put(softwareQuality, severity);
+      return this;
+    }
+
+    public Builder cleanCodeAttribute(@Nullable CleanCodeAttribute cleanCodeAttribute) {
+      this.cleanCodeAttribute = cleanCodeAttribute;
+      return this;
+    }
+
+    public Builder remediationEffortMinutes(@Nullable Long remediationEffortMinutes) {
+      this.remediationEffortMinutes = remediationEffortMinutes;
+      return this;
+    }
+
+    public Builder adHocRule(@Nullable String name, @Nullable String description) {
+      this.adHocRuleName = name;
+      this.adHocRuleDescription = description;
+      return this;
+    }
+
+    public ExternalIssueRecord build() {
+      return new ExternalIssueRecord(this);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.issue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Parser of a report of an external rule engine (SARIF, ESLint JSON, Checkstyle XML, ...), used by
+ * {@link ExternalIssueImporter}. Implementations must read the report in a streaming fashion and pass each finding
+ * to the consumer as soon as it is parsed, without keeping the report or the findings in memory.
+ * <br>
+ * The consumer stores the finding before returning, so parsing is naturally paced by the storage of the issues.
+ *
+ * @since 13.12
+ */
+@FunctionalInterface
+public interface ExternalIssueReportParser {
+
+  /**
+   * @param report   the report. It must not be closed by the parser.
+   * @param consumer called once per finding of the report, in report order
+   */
+  void parse(InputStream report, Consumer<ExternalIssueRecord> consumer) throws IOException;
+}
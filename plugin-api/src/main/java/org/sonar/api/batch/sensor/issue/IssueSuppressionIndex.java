@@ -0,0 +1,167 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.issue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.rule.ActiveRulesIndex;
+import org.sonar.api.rule.RuleKey;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Compact index of the suppressions registered on a file: the lines flagged with NOSONAR, see
+ * {@link org.sonar.api.issue.NoSonarFilter}, and the lines covered by {@link IssueResolution}s, per rule.
+ * Rules are identified by their ordinal in an {@link ActiveRulesIndex}, so that checking whether an issue
+ * is suppressed only requires a couple of bit tests.
+ * <br>
+ * Suppressions are resolved at the line level: a resolution suppresses the issues of its rules that start on any of the
+ * lines of its text range. Lines start at 1.
+ *
+ * @since 13.12
+ */
+@Immutable
+public final class IssueSuppressionIndex {
+
+  private static final IssueSuppressionIndex EMPTY = new IssueSuppressionIndex(new Builder());
+
+  private final BitSet noSonarLines;
+  private final BitSet[] resolvedLinesByRuleOrdinal;
+
+  private IssueSuppressionIndex(Builder builder) {
+    this.noSonarLines = (BitSet) builder.noSonarLines.clone();
+    this.resolvedLinesByRuleOrdinal = new BitSet[builder.resolvedLinesByRuleOrdinal.length];
+    for (int i = 0; i < resolvedLinesByRuleOrdinal.length; i++) {
+      BitSet lines = builder.resolvedLinesByRuleOrdinal[i];
+      resolvedLinesByRuleOrdinal[i] = lines == null ? null : (BitSet) lines.clone();
+    }
+  }
+
+  public static IssueSuppressionIndex empty() {
+    return EMPTY;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Whether the line is flagged with NOSONAR.
+   */
+  public boolean isNoSonar(int line) {
+    return line > 0 && noSonarLines.get(line);
+  }
+
+  /**
+   * Whether the line is covered by a resolution of the rule with the given ordinal.
+   */
+  public boolean isResolved(int ruleOrdinal, int line) {
+    if (line <= 0 || ruleOrdinal < 0 || ruleOrdinal >= resolvedLinesByRuleOrdinal.length) {
+      return false;
+    }
+    BitSet lines = resolvedLinesByRuleOrdinal[ruleOrdinal];
+    return lines != null && lines.get(line);
+  }
+
+  /**
+   * Whether an issue of the rule with the given ordinal, starting on the given line, is suppressed either by NOSONAR
+   * or by a resolution.
+   */
+  public boolean isSuppressed(int ruleOrdinal, int line) {
+    return isNoSonar(line) || isResolved(ruleOrdinal, line);
+  }
+
+  /**
+   * Copy of the lines flagged with NOSONAR.
+   */
+  public BitSet noSonarLines() {
+    return (BitSet) noSonarLines.clone();
+  }
+
+  public static final class Builder {
+    private final BitSet noSonarLines = new BitSet();
+    private BitSet[] resolvedLinesByRuleOrdinal = new BitSet[0];
+
+    private Builder() {
+      // use IssueSuppressionIndex.builder()
+    }
+
+    public Builder addNoSonarLine(int line) {
+      checkLine(line);
+      noSonarLines.set(line);
+      return this;
+    }
+
+    /**
+     * @param lines the lines flagged with NOSONAR. Bit 0 is ignored, as lines start at 1.
+     */
+    public Builder addNoSonarLines(BitSet lines) {
+      noSonarLines.or(requireNonNull(lines, "Lines can't be null"));
+      noSonarLines.clear(0);
+      return this;
+    }
+
+    /**
+     * Suppresses the issues of the rule with the given ordinal on the lines between {@code startLine} and
+     * {@code endLine}, both inclusive.
+     */
+    public Builder addResolution(int ruleOrdinal, int startLine, int endLine) {
+      checkArgument(ruleOrdinal >= 0, "Rule ordinal can't be negative: %s", ruleOrdinal);
+      checkLine(startLine);
+      checkArgument(endLine >= startLine, "End line %s must be greater than or equal to start line %s", endLine, startLine);
+      if (ruleOrdinal >= resolvedLinesByRuleOrdinal.length) {
+        resolvedLinesByRuleOrdinal = Arrays.copyOf(resolvedLinesByRuleOrdinal, Math.max(ruleOrdinal + 1, resolvedLinesByRuleOrdinal.length * 2));
+      }
+      BitSet lines = resolvedLinesByRuleOrdinal[ruleOrdinal];
+      if (lines == null) {
+        lines = new BitSet(endLine + 1);
+        resolvedLinesByRuleOrdinal[ruleOrdinal] = lines;
+      }
+      lines.set(startLine, endLine + 1);
+      return this;
+    }
+
+    /**
+     * Suppresses the issues of the rules of the resolution on the lines of its text range. The rules that are
+     * not active in the given index are ignored, as they can't raise issues.
+     */
+    public Builder addResolution(IssueResolution resolution, ActiveRulesIndex activeRules) {
+      TextRange range = resolution.textRange();
+      for (RuleKey ruleKey : resolution.ruleKeys()) {
+        int ordinal = activeRules.ordinal(ruleKey);
+        if (ordinal >= 0) {
+          addResolution(ordinal, range.start().line(), range.end().line());
+        }
+      }
+      return this;
+    }
+
+    public IssueSuppressionIndex build() {
+      return new IssueSuppressionIndex(this);
+    }
+
+    private static void checkLine(int line) {
+      checkArgument(line > 0, "Line must be greater than 0: %s", line);
+    }
+  }
+}
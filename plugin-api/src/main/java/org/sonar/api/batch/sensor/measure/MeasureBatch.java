@@ -0,0 +1,202 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.measure;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.batch.fs.InputComponent;
+import org.sonar.api.batch.measure.Metric;
+import org.sonar.api.batch.sensor.SensorContext;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Measures of several metrics on many components, stored in columns of primitive values. Each column holds the values of
+ * one metric, aligned with the list of components: the value at index {@code i} is the measure of component {@code i}.
+ * <pre>
+ *   MeasureBatch batch = MeasureBatch.builder(files)
+ *     .addIntColumn(CoreMetrics.NCLOC, nclocs)
+ *     .addIntColumn(CoreMetrics.COMPLEXITY, complexities)
+ *     .addDoubleColumn(CoreMetrics.COMMENT_LINES_DENSITY, densities)
+ *     .build();
+ *   context.saveMeasures(batch);
+ * </pre>
+ * The type of each metric is checked once per column, when it is added. As for {@link NewMeasure#save()}, it is not
+ * permitted to save several measures of the same metric on the same component.
+ * <br>
+ * Arrays are not copied: they must not be modified after being added to the builder.
+ *
+ * @see SensorContext#saveMeasures(MeasureBatch)
+ * @since 13.12
+ */
+@Immutable
+public final class MeasureBatch {
+
+  private final List<InputComponent> components;
+  private final List<Column> columns;
+
+  private MeasureBatch(Builder builder) {
+    this.components = builder.components;
+    this.columns = Collections.unmodifiableList(new ArrayList<>(builder.columns));
+  }
+
+  /**
+   * @param components the components of the measures, in the order of the values of the columns
+   */
+  public static Builder builder(List<? extends InputComponent> components) {
+    return new Builder(components);
+  }
+
+  public List<InputComponent> components() {
+    return components;
+  }
+
+  /**
+   * Number of components, which is also the number of values of each column.
+   */
+  public int size() {
+    return components.size();
+  }
+
+  public List<Column> columns() {
+    return columns;
+  }
+
+  /**
+   * Values of a metric, aligned with {@link MeasureBatch#components()}.
+   */
+  @Immutable
+  public static final class Column {
+    private final Metric<? extends Serializable> metric;
+    private final int[] ints;
+    private final long[] longs;
+    private final double[] doubles;
+
+    private Column(Metric<? extends Serializable> metric, int[] ints, long[] longs, double[] doubles) {
+      this.metric = metric;
+      this.ints = ints;
+      this.longs = longs;
+      this.doubles = doubles;
+    }
+
+    public Metric<? extends Serializable> metric() {
+      return metric;
+    }
+
+    /**
+     * Type of the values: {@code Integer.class}, {@code Long.class} or {@code Double.class}.
+     */
+    public Class<?> valueType() {
+      if (ints != null) {
+        return Integer.class;
+      }
+      return longs != null ? Long.class : Double.class;
+    }
+
+    /**
+     * @throws IllegalStateException if the column doesn't hold int values
+     */
+    public int intValue(int index) {
+      checkType(ints != null, Integer.class);
+      return ints[index];
+    }
+
+    /**
+     * @throws IllegalStateException if the column doesn't hold long values
+     */
+    public long longValue(int index) {
+      checkType(longs != null, Long.class);
+      return longs[index];
+    }
+
+    /**
+     * @throws IllegalStateException if the column doesn't hold double values
+     */
+    public double doubleValue(int index) {
+      checkType(doubles != null, Double.class);
+      return doubles[index];
+    }
+
+    /**
+     * Boxed value, for consumers that don't need primitive values.
+     */
+    public Serializable value(int index) {
+      if (ints != null) {
+        return ints[index];
+      }
+      if (longs != null) {
+        return longs[index];
+      }
+      return doubles[index];
+    }
+
+    private void checkType(boolean expression, Class<?> type) {
+      if (!expression) {
+        throw new IllegalStateException(String.format("Column of metric '%s' holds values of type %s, not %s", metric.key(), valueType().getSimpleName(),
+          type.getSimpleName()));
+      }
+    }
+  }
+
+  public static final class Builder {
+    private final List<InputComponent> components;
+    private final List<Column> columns = new ArrayList<>();
+    private final Set<String> metricKeys = new HashSet<>();
+
+    private Builder(List<? extends InputComponent> components) {
+      requireNonNull(components, "Components can't be null");
+      components.forEach(component -> requireNonNull(component, "Component can't be null"));
+      this.components = Collections.unmodifiableList(new ArrayList<>(components));
+    }
+
+    public Builder addIntColumn(Metric<Integer> metric, int[] values) {
+      return add(metric, Integer.class, values.length, new Column(metric, values, null, null));
+    }
+
+    public Builder addLongColumn(Metric<Long> metric, long[] values) {
+      return add(metric, Long.class, values.length, new Column(metric, null, values, null));
+    }
+
+    public Builder addDoubleColumn(Metric<Double> metric, double[] values) {
+      return add(metric, Double.class, values.length, new Column(metric, null, null, values));
+    }
+
+    private Builder add(Metric<?> metric, Class<?> type, int length, Column column) {
+      requireNonNull(metric, "Metric can't be null");
+      // generics are not enough when metrics are loaded with raw types, for instance from MetricFinder
+      checkArgument(type.equals(metric.valueType()), "Metric '%s' has values of type %s, not %s", metric.key(), metric.valueType().getSimpleName(),
+        type.getSimpleName());
+      checkArgument(length == components.size(), "Column of metric '%s' has %s values but there are %s components", metric.key(), length, components.size());
+      checkArgument(metricKeys.add(metric.key()), "Metric '%s' is already added to the batch", metric.key());
+      columns.add(column);
+      return this;
+    }
+
+    public MeasureBatch build() {
+      return new MeasureBatch(this);
+    }
+  }
+}
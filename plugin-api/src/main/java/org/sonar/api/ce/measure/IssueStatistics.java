@@ -0,0 +1,185 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.ce.measure;
+
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.issue.IssueStatus;
+import org.sonar.api.issue.impact.Severity;
+import org.sonar.api.issue.impact.SoftwareQuality;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pre-aggregated counters over the issues of a component, as returned by
+ * {@link MeasureComputer.MeasureComputerContext#getIssueStatistics()}.
+ * <p>
+ * Counters are stored in arrays indexed by enum ordinals, so the memory footprint does not depend on the number of issues.
+ * All the issues returned by {@link MeasureComputer.MeasureComputerContext#getIssues()} are counted, whatever their status.
+ *
+ * @since 13.12
+ */
+@Immutable
+public final class IssueStatistics {
+
+  private static final IssueStatistics EMPTY = new Builder().build();
+
+  private final int total;
+  private final long totalEffort;
+  private final int[] countByImpact;
+  private final int[] countBySoftwareQuality;
+  private final long[] effortBySoftwareQuality;
+  private final int[] countByType;
+  private final long[] effortByType;
+  private final int[] countByStatus;
+
+  private IssueStatistics(Builder builder) {
+    this.total = builder.total;
+    this.totalEffort = builder.totalEffort;
+    this.countByImpact = builder.countByImpact.clone();
+    this.countBySoftwareQuality = builder.countBySoftwareQuality.clone();
+    this.effortBySoftwareQuality = builder.effortBySoftwareQuality.clone();
+    this.countByType = builder.countByType.clone();
+    this.effortByType = builder.effortByType.clone();
+    this.countByStatus = builder.countByStatus.clone();
+  }
+
+  public static IssueStatistics empty() {
+    return EMPTY;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Aggregates the issues returned by the iterator, without keeping any reference to them.
+   */
+  public static IssueStatistics of(Iterator<? extends Issue> issues) {
+    Builder builder = new Builder();
+    while (issues.hasNext()) {
+      builder.add(issues.next());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Total number of issues.
+   */
+  public int count() {
+    return total;
+  }
+
+  /**
+   * Number of issues having an impact on the given software quality with the given severity.
+   */
+  public int count(SoftwareQuality softwareQuality, Severity severity) {
+    return countByImpact[impactIndex(softwareQuality, severity)];
+  }
+
+  /**
+   * Number of issues having an impact on the given software quality, whatever its severity.
+   */
+  public int count(SoftwareQuality softwareQuality) {
+    return countBySoftwareQuality[softwareQuality.ordinal()];
+  }
+
+  public int count(RuleType type) {
+    return countByType[type.ordinal()];
+  }
+
+  /**
+   * Number of issues with the given status. Issues without status, like security hotspots, are not counted.
+   */
+  public int count(IssueStatus status) {
+    return countByStatus[status.ordinal()];
+  }
+
+  /**
+   * Sum of the efforts of all issues, in minutes.
+   */
+  public long effortInMinutes() {
+    return totalEffort;
+  }
+
+  /**
+   * Sum of the efforts, in minutes, of the issues having an impact on the given software quality.
+   */
+  public long effortInMinutes(SoftwareQuality softwareQuality) {
+    return effortBySoftwareQuality[softwareQuality.ordinal()];
+  }
+
+  /**
+   * Sum of the efforts, in minutes, of the issues of the given type.
+   */
+  public long effortInMinutes(RuleType type) {
+    return effortByType[type.ordinal()];
+  }
+
+  private static int impactIndex(SoftwareQuality softwareQuality, Severity severity) {
+    return softwareQuality.ordinal() * Severity.values().length + severity.ordinal();
+  }
+
+  public static final class Builder {
+    private int total;
+    private long totalEffort;
+    private final int[] countByImpact = new int[SoftwareQuality.values().length * Severity.values().length];
+    private final int[] countBySoftwareQuality = new int[SoftwareQuality.values().length];
+    private final long[] effortBySoftwareQuality = new long[SoftwareQuality.values().length];
+    private final int[] countByType = new int[RuleType.values().length];
+    private final long[] effortByType = new long[RuleType.values().length];
+    private final int[] countByStatus = new int[IssueStatus.values().length];
+
+    private Builder() {
+      // use IssueStatistics#builder()
+    }
+
+    public Builder add(Issue issue) {
+      requireNonNull(issue, "Issue can't be null");
+      Duration effort = issue.effort();
+      long effortInMinutes = effort == null ? 0L : effort.toMinutes();
+      total++;
+      totalEffort += effortInMinutes;
+      for (Map.Entry<SoftwareQuality, Severity> impact : issue.impacts().entrySet()) {
+        int quality = impact.getKey().ordinal();
+        countByImpact[impactIndex(impact.getKey(), impact.getValue())]++;
+        countBySoftwareQuality[quality]++;
+        effortBySoftwareQuality[quality] += effortInMinutes;
+      }
+      RuleType type = issue.type();
+      if (type != null) {
+        countByType[type.ordinal()]++;
+        effortByType[type.ordinal()] += effortInMinutes;
+      }
+      IssueStatus status = issue.issueStatus();
+      if (status != null) {
+        countByStatus[status.ordinal()]++;
+      }
+      return this;
+    }
+
+    public IssueStatistics build() {
+      return new IssueStatistics(this);
+    }
+  }
+}
@@ -19,6 +19,7 @@
  */
 package org.sonar.api.ce.measure;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.CheckForNull;
@@ -236,5 +237,27 @@ public interface MeasureComputer {
      * Return list of all issues (open, closed, etc.) of current component.
      */
     List<? extends Issue> getIssues();
+
+    /**
+     * Return an iterator over all issues (open, closed, etc.) of current component.
+     * Contrary to {@link #getIssues()}, implementations are not required to load all the issues in memory, which
+     * matters on components with a large number of issues.
+     *
+     * @since 13.12
+     */
+    default Iterator<? extends Issue> getIssuesIterator() {
+      return getIssues().iterator();
+    }
+
+    /**
+     * Return counters and effort sums over all issues (open, closed, etc.) of current component, grouped by
+     * impact, type and status. Computers that only need such aggregated values should prefer this method to
+     * {@link #getIssues()}.
+     *
+     * @since 13.12
+     */
+    default IssueStatistics getIssueStatistics() {
+      return IssueStatistics.of(getIssuesIterator());
+    }
   }
 }
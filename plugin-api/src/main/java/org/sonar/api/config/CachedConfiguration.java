@@ -0,0 +1,167 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.config;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link Configuration} that memoizes the values of its delegate, raw and converted. Each property is read
+ * and converted once, until it is invalidated:
+ * <ul>
+ *   <li>the scanner configuration is immutable, so that invalidation is never needed</li>
+ *   <li>on server side, {@link #invalidationHandler()} can be registered to invalidate the properties changed
+ *   from the web application</li>
+ * </ul>
+ * Arrays returned by {@link #getStringArray(String)} are copies of the cached array. Prefer {@link ConfigKey#ofStringList(String)}
+ * to read multi-valued properties without copy.
+ *
+ * @since 13.12
+ */
+@ThreadSafe
+public final class CachedConfiguration implements Configuration {
+
+  private static final Object NULL = new Object();
+  private static final Object RAW = new Object();
+  private static final Object STRING_ARRAY = new Object();
+  private static final Object BOOLEAN = new Object();
+  private static final Object INT = new Object();
+  private static final Object LONG = new Object();
+  private static final Object FLOAT = new Object();
+  private static final Object DOUBLE = new Object();
+
+  private final Configuration delegate;
+  private final Map<String, Map<Object, Object>> valuesByKey = new ConcurrentHashMap<>();
+
+  private CachedConfiguration(Configuration delegate) {
+    this.delegate = requireNonNull(delegate, "Configuration can't be null");
+  }
+
+  /**
+   * Caches the values of {@code delegate}. Returns {@code delegate} if it is already a {@link CachedConfiguration}.
+   */
+  public static CachedConfiguration of(Configuration delegate) {
+    if (delegate instanceof CachedConfiguration) {
+      return (CachedConfiguration) delegate;
+    }
+    return new CachedConfiguration(delegate);
+  }
+
+  @Override
+  public Optional<String> get(String key) {
+    return cached(key, RAW, () -> delegate.get(key));
+  }
+
+  @Override
+  public boolean hasKey(String key) {
+    return delegate.hasKey(key);
+  }
+
+  @Override
+  public String[] getStringArray(String key) {
+    String[] values = cached(key, STRING_ARRAY, () -> delegate.getStringArray(key));
+    return values.clone();
+  }
+
+  @Override
+  public Optional<Boolean> getBoolean(String key) {
+    return cached(key, BOOLEAN, () -> delegate.getBoolean(key));
+  }
+
+  @Override
+  public Optional<Integer> getInt(String key) {
+    return cached(key, INT, () -> delegate.getInt(key));
+  }
+
+  @Override
+  public Optional<Long> getLong(String key) {
+    return cached(key, LONG, () -> delegate.getLong(key));
+  }
+
+  @Override
+  public Optional<Float> getFloat(String key) {
+    return cached(key, FLOAT, () -> delegate.getFloat(key));
+  }
+
+  @Override
+  public Optional<Double> getDouble(String key) {
+    return cached(key, DOUBLE, () -> delegate.getDouble(key));
+  }
+
+  @CheckForNull
+  @Override
+  public <T> T getValue(ConfigKey<T> key) {
+    return key.withDefaultIfNull(cached(key.key(), key.converter(), () -> key.read(delegate)));
+  }
+
+  /**
+   * Forgets the values of a property, so that they are read again from the delegate on next access.
+   */
+  public void invalidate(String key) {
+    valuesByKey.remove(key);
+  }
+
+  public void invalidateAll() {
+    valuesByKey.clear();
+  }
+
+  /**
+   * Handler to be registered on server side, that invalidates the global properties changed from the web application.
+   *
+   * @see GlobalPropertyChangeHandler
+   */
+  public GlobalPropertyChangeHandler invalidationHandler() {
+    return new GlobalPropertyChangeHandler() {
+      @Override
+      public void onChange(PropertyChange change) {
+        invalidate(change.getKey());
+      }
+    };
+  }
+
+  /**
+   * Number of properties that have cached values.
+   */
+  public int size() {
+    return valuesByKey.size();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T cached(String key, Object converter, Supplier<T> loader) {
+    Map<Object, Object> values = valuesByKey.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+    Object value = values.get(converter);
+    if (value == null) {
+      // not computeIfAbsent(): loaders read the delegate, which must not be done while holding a lock of the map
+      T loaded = loader.get();
+      value = loaded == null ? NULL : loaded;
+      Object previous = values.putIfAbsent(converter, value);
+      if (previous != null) {
+        value = previous;
+      }
+    }
+    return value == NULL ? null : (T) value;
+  }
+}
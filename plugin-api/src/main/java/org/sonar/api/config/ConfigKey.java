@@ -0,0 +1,183 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Typed handle on a property, to be read with {@link Configuration#getValue(ConfigKey)}. Keys are meant to be
+ * created once, for example as constants, then read as many times as needed:
+ * <pre>
+ * private static final ConfigKey&lt;Integer&gt; MAX_DEPTH = ConfigKey.ofInt("sonar.foo.maxDepth").withDefault(10);
+ *
+ * public void execute(SensorContext context) {
+ *   int maxDepth = context.config().getValue(MAX_DEPTH);
+ *   // ...
+ * }
+ * </pre>
+ * Values are converted with the same rules as the methods {@link Configuration#getBoolean(String)},
+ * {@link Configuration#getInt(String)}, etc. When the configuration is a {@link CachedConfiguration}, the
+ * conversion is done once per property, then the value is read without parsing nor allocation.
+ *
+ * @since 13.12
+ */
+@Immutable
+public final class ConfigKey<T> {
+
+  private static final BiFunction<Configuration, String, String> STRING_READER = (config, key) -> config.get(key).orElse(null);
+  private static final BiFunction<Configuration, String, Boolean> BOOLEAN_READER = (config, key) -> config.getBoolean(key).orElse(null);
+  private static final BiFunction<Configuration, String, Integer> INT_READER = (config, key) -> config.getInt(key).orElse(null);
+  private static final BiFunction<Configuration, String, Long> LONG_READER = (config, key) -> config.getLong(key).orElse(null);
+  private static final BiFunction<Configuration, String, Float> FLOAT_READER = (config, key) -> config.getFloat(key).orElse(null);
+  private static final BiFunction<Configuration, String, Double> DOUBLE_READER = (config, key) -> config.getDouble(key).orElse(null);
+  private static final BiFunction<Configuration, String, List<String>> STRING_LIST_READER = (config, key) -> Collections
+    .unmodifiableList(Arrays.asList(config.getStringArray(key)));
+
+  private final String key;
+  private final BiFunction<Configuration, String, T> reader;
+  private final T defaultValue;
+
+  private ConfigKey(String key, BiFunction<Configuration, String, T> reader, @Nullable T defaultValue) {
+    this.key = key;
+    this.reader = reader;
+    this.defaultValue = defaultValue;
+  }
+
+  private static <T> ConfigKey<T> create(String key, BiFunction<Configuration, String, T> reader) {
+    requireNonNull(key, "Key can't be null");
+    checkArgument(!key.isEmpty(), "Key can't be empty");
+    return new ConfigKey<>(key, reader, null);
+  }
+
+  /**
+   * @see Configuration#get(String)
+   */
+  public static ConfigKey<String> ofString(String key) {
+    return create(key, STRING_READER);
+  }
+
+  /**
+   * @see Configuration#getBoolean(String)
+   */
+  public static ConfigKey<Boolean> ofBoolean(String key) {
+    return create(key, BOOLEAN_READER);
+  }
+
+  /**
+   * @see Configuration#getInt(String)
+   */
+  public static ConfigKey<Integer> ofInt(String key) {
+    return create(key, INT_READER);
+  }
+
+  /**
+   * @see Configuration#getLong(String)
+   */
+  public static ConfigKey<Long> ofLong(String key) {
+    return create(key, LONG_READER);
+  }
+
+  /**
+   * @see Configuration#getFloat(String)
+   */
+  public static ConfigKey<Float> ofFloat(String key) {
+    return create(key, FLOAT_READER);
+  }
+
+  /**
+   * @see Configuration#getDouble(String)
+   */
+  public static ConfigKey<Double> ofDouble(String key) {
+    return create(key, DOUBLE_READER);
+  }
+
+  /**
+   * Unmodifiable list of the values of a multi-valued property. It is empty, and never {@code null},
+   * if the property is not set.
+   *
+   * @see Configuration#getStringArray(String)
+   */
+  public static ConfigKey<List<String>> ofStringList(String key) {
+    return create(key, STRING_LIST_READER);
+  }
+
+  /**
+   * Property converted by {@code parser}. The parser is called on the untrimmed value, and only if the
+   * property is set. The converted value is shared between readers, so it should be immutable.
+   */
+  public static <T> ConfigKey<T> of(String key, Function<String, T> parser) {
+    requireNonNull(parser, "Parser can't be null");
+    return create(key, (config, k) -> config.get(k).map(parser).orElse(null));
+  }
+
+  /**
+   * Copy of this key that returns {@code defaultValue} when the property is not set. The default value
+   * defined by {@link PropertyDefinition}, if any, still has precedence.
+   */
+  public ConfigKey<T> withDefault(T defaultValue) {
+    requireNonNull(defaultValue, "Default value can't be null");
+    return new ConfigKey<>(key, reader, defaultValue);
+  }
+
+  public String key() {
+    return key;
+  }
+
+  @CheckForNull
+  public T defaultValue() {
+    return defaultValue;
+  }
+
+  /**
+   * Identifies the conversion of the key, regardless of the default value. Two keys with the
+   * same property and converter share the same cached value.
+   */
+  Object converter() {
+    return reader;
+  }
+
+  /**
+   * Reads and converts the value, without applying the default value.
+   */
+  @CheckForNull
+  T read(Configuration config) {
+    return reader.apply(config, key);
+  }
+
+  @CheckForNull
+  T withDefaultIfNull(@Nullable T value) {
+    return value == null ? defaultValue : value;
+  }
+
+  @Override
+  public String toString() {
+    return "ConfigKey{" + key + "}";
+  }
+}
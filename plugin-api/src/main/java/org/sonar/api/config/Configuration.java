@@ -20,6 +20,7 @@
 package org.sonar.api.config;
 
 import java.util.Optional;
+import javax.annotation.CheckForNull;
 import org.sonar.api.scanner.ScannerSide;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
@@ -179,4 +180,17 @@ public interface Configuration {
     }
   }
 
+  /**
+   * Effective value of a typed key. Contrary to the other getters, it does not allocate an {@link Optional}, and
+   * implementations like {@link CachedConfiguration} convert the value only once.
+   *
+   * @return the converted value, else {@link ConfigKey#defaultValue()} if the property does not have value nor default value
+   * @throws IllegalStateException if the value can't be converted
+   * @since 13.12
+   */
+  @CheckForNull
+  default <T> T getValue(ConfigKey<T> key) {
+    return key.withDefaultIfNull(key.read(this));
+  }
+
 }
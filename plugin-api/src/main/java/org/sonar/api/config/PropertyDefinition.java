@@ -24,6 +24,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -94,6 +96,12 @@ import static org.sonar.api.utils.Preconditions.checkArgument;
 @SuppressWarnings({"removal"})
 public final class PropertyDefinition {
 
+  private static final Map<PropertyType, Function<String, Result>> VALIDATIONS = createValidations();
+  // results of the validations that are costly, like the compilation of regular expressions, by value.
+  // Each cache is cleared when it reaches its max size.
+  private static final int VALIDATION_CACHE_MAX_SIZE = 1_000;
+  private static final Map<PropertyType, Map<String, Result>> VALIDATION_CACHE = createValidationCache();
+
   public enum ConfigScope {
     PROJECT(org.sonar.api.resources.Qualifiers.PROJECT),
     VIEW(org.sonar.api.resources.Qualifiers.VIEW),
@@ -218,20 +226,42 @@ public final class PropertyDefinition {
     if (isBlank(value)) {
       return Result.SUCCESS;
     }
-
-    EnumMap<PropertyType, Function<String, Result>> validations = createValidations(options);
-    return validations.getOrDefault(type, aValue -> Result.SUCCESS).apply(value);
+    if (type == SINGLE_SELECT_LIST) {
+      return options.contains(value) ? Result.SUCCESS : Result.newError("notInOptions");
+    }
+    Function<String, Result> validation = VALIDATIONS.get(type);
+    if (validation == null) {
+      return Result.SUCCESS;
+    }
+    Map<String, Result> cache = VALIDATION_CACHE.get(type);
+    if (cache == null) {
+      return validation.apply(value);
+    }
+    Result result = cache.get(value);
+    if (result == null) {
+      result = validation.apply(value);
+      if (cache.size() >= VALIDATION_CACHE_MAX_SIZE) {
+        cache.clear();
+      }
+      cache.put(value, result);
+    }
+    return result;
   }
 
-  private static EnumMap<PropertyType, Function<String, Result>> createValidations(List<String> options) {
+  private static EnumMap<PropertyType, Function<String, Result>> createValidations() {
     EnumMap<PropertyType, Function<String, Result>> map = new EnumMap<>(PropertyType.class);
     map.put(BOOLEAN, validateBoolean());
     map.put(INTEGER, validateInteger());
     map.put(FLOAT, validateFloat());
     map.put(REGULAR_EXPRESSION, validateRegexp());
     map.put(EMAIL, validateEmail());
-    map.put(SINGLE_SELECT_LIST,
-      aValue -> options.contains(aValue) ? Result.SUCCESS : Result.newError("notInOptions"));
+    return map;
+  }
+
+  private static EnumMap<PropertyType, Map<String, Result>> createValidationCache() {
+    EnumMap<PropertyType, Map<String, Result>> map = new EnumMap<>(PropertyType.class);
+    map.put(REGULAR_EXPRESSION, new ConcurrentHashMap<>());
+    map.put(EMAIL, new ConcurrentHashMap<>());
     return map;
   }
 
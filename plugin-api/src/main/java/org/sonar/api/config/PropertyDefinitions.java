@@ -22,7 +22,9 @@ package org.sonar.api.config;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -62,6 +64,15 @@ public final class PropertyDefinitions {
   // deprecated key -> new key
   private final Map<String, String> deprecatedKeys = new HashMap<>();
 
+  // category -> subcategory -> definitions, updated when definitions are added. The indexes and their snapshots are
+  // guarded by indexLock, so that a snapshot built while a definition is added can't survive the addition.
+  private final Object indexLock = new Object();
+  private final Map<Category, Map<SubCategory, Collection<PropertyDefinition>>> globalIndex = newGlobalIndex();
+  private final Map<String, Map<Category, Map<SubCategory, Collection<PropertyDefinition>>>> indexByQualifier = new HashMap<>();
+  // immutable copies of the indexes, returned by propertiesByCategory(). Reset when definitions are added.
+  private Map<Category, Map<SubCategory, Collection<PropertyDefinition>>> globalSnapshot;
+  private final Map<String, Map<Category, Map<SubCategory, Collection<PropertyDefinition>>>> snapshotByQualifier = new HashMap<>();
+
   private final System2 system;
 
   public PropertyDefinitions(System2 system, Object... components) {
@@ -74,6 +85,23 @@ public final class PropertyDefinitions {
     addComponents(components);
   }
 
+  private static Map<Category, Map<SubCategory, Collection<PropertyDefinition>>> newGlobalIndex() {
+    Map<Category, Map<SubCategory, Collection<PropertyDefinition>>> byCategory = new HashMap<>();
+    // Special categories on global page
+    Map<SubCategory, Collection<PropertyDefinition>> emailSubCategories = new HashMap<>();
+    emailSubCategories.put(new SubCategory("email", true), new ArrayList<>());
+    byCategory.put(new Category(CoreProperties.CATEGORY_GENERAL, false), emailSubCategories);
+
+    HashMap<SubCategory, Collection<PropertyDefinition>> licenseSubCategories = new HashMap<>();
+    licenseSubCategories.put(new SubCategory("server_id", true), new ArrayList<>());
+    byCategory.put(new Category(CoreProperties.CATEGORY_LICENSES, false), licenseSubCategories);
+
+    HashMap<SubCategory, Collection<PropertyDefinition>> encryptionSubCategories = new HashMap<>();
+    encryptionSubCategories.put(new SubCategory("encryption", true), new ArrayList<>());
+    byCategory.put(new Category(CoreProperties.CATEGORY_SECURITY, false), encryptionSubCategories);
+    return byCategory;
+  }
+
   public PropertyDefinitions addComponents(Collection components) {
     return addComponents(components, "");
   }
@@ -129,10 +157,35 @@ public final class PropertyDefinitions {
       if (!StringUtils.isEmpty(definition.deprecatedKey()) && !definition.deprecatedKey().equals(definition.key())) {
         deprecatedKeys.put(definition.deprecatedKey(), definition.key());
       }
+      index(definition);
     }
     return this;
   }
 
+  @SuppressWarnings({"removal"})
+  private void index(PropertyDefinition definition) {
+    Category category = categories.get(definition.key());
+    SubCategory subCategory = subcategories.get(definition.key());
+    synchronized (indexLock) {
+      if (definition.global()) {
+        addToIndex(globalIndex, category, subCategory, definition);
+      }
+      for (String qualifier : new LinkedHashSet<>(definition.qualifiers())) {
+        addToIndex(indexByQualifier.computeIfAbsent(qualifier, q -> new HashMap<>()), category, subCategory, definition);
+      }
+      globalSnapshot = null;
+      snapshotByQualifier.clear();
+    }
+  }
+
+  private static void addToIndex(Map<Category, Map<SubCategory, Collection<PropertyDefinition>>> index, Category category, SubCategory subCategory,
+    PropertyDefinition definition) {
+    index
+      .computeIfAbsent(category, c -> new HashMap<>())
+      .computeIfAbsent(subCategory, c -> new ArrayList<>())
+      .add(definition);
+  }
+
   @CheckForNull
   public PropertyDefinition get(String key) {
     return definitions.get(validKey(key));
@@ -157,39 +210,32 @@ public final class PropertyDefinitions {
   }
 
   /**
+   * Definitions of the properties that can be set globally, when {@code qualifier} is {@code null}, or on the components
+   * of the given qualifier, grouped by category and subcategory. The index is maintained when definitions are added,
+   * so that this method does not iterate over all the definitions. Since 13.12, the returned maps are unmodifiable.
+   *
    * @since 3.7
    */
-  @SuppressWarnings({"removal"})
   public Map<Category, Map<SubCategory, Collection<PropertyDefinition>>> propertiesByCategory(@Nullable String qualifier) {
-    Map<Category, Map<SubCategory, Collection<PropertyDefinition>>> byCategory = new HashMap<>();
-    if (qualifier == null) {
-      // Special categories on global page
-      Map<SubCategory, Collection<PropertyDefinition>> emailSubCategories = new HashMap<>();
-      emailSubCategories.put(new SubCategory("email", true), new ArrayList<>());
-      byCategory.put(new Category(CoreProperties.CATEGORY_GENERAL, false), emailSubCategories);
-
-      HashMap<SubCategory, Collection<PropertyDefinition>> licenseSubCategories = new HashMap<>();
-      licenseSubCategories.put(new SubCategory("server_id", true), new ArrayList<>());
-      byCategory.put(new Category(CoreProperties.CATEGORY_LICENSES, false), licenseSubCategories);
-
-      HashMap<SubCategory, Collection<PropertyDefinition>> encryptionSubCategories = new HashMap<>();
-      encryptionSubCategories.put(new SubCategory("encryption", true), new ArrayList<>());
-      byCategory.put(new Category(CoreProperties.CATEGORY_SECURITY, false), encryptionSubCategories);
-    }
-    for (PropertyDefinition definition : getAll()) {
-      if (qualifier == null ? definition.global() : definition.qualifiers().contains(qualifier)) {
-        Category category = categories.get(definition.key());
-        if (!byCategory.containsKey(category)) {
-          byCategory.put(category, new HashMap<>());
-        }
-        SubCategory subCategory = subcategories.get(definition.key());
-        if (!byCategory.get(category).containsKey(subCategory)) {
-          byCategory.get(category).put(subCategory, new ArrayList<>());
+    synchronized (indexLock) {
+      if (qualifier == null) {
+        if (globalSnapshot == null) {
+          globalSnapshot = immutableCopy(globalIndex);
         }
-        byCategory.get(category).get(subCategory).add(definition);
+        return globalSnapshot;
       }
+      return snapshotByQualifier.computeIfAbsent(qualifier, q -> immutableCopy(indexByQualifier.getOrDefault(q, Collections.emptyMap())));
     }
-    return byCategory;
+  }
+
+  private static Map<Category, Map<SubCategory, Collection<PropertyDefinition>>> immutableCopy(Map<Category, Map<SubCategory, Collection<PropertyDefinition>>> index) {
+    Map<Category, Map<SubCategory, Collection<PropertyDefinition>>> copy = new HashMap<>();
+    index.forEach((category, bySubCategory) -> {
+      Map<SubCategory, Collection<PropertyDefinition>> subCopy = new HashMap<>();
+      bySubCategory.forEach((subCategory, definitions) -> subCopy.put(subCategory, Collections.unmodifiableList(new ArrayList<>(definitions))));
+      copy.put(category, Collections.unmodifiableMap(subCopy));
+    });
+    return Collections.unmodifiableMap(copy);
   }
 
   @CheckForNull
@@ -19,6 +19,8 @@
  */
 package org.sonar.api.issue;
 
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.Set;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.scanner.ScannerSide;
@@ -44,4 +46,19 @@ public abstract class NoSonarFilter {
    * @since 7.6 the method can be called multiple times by different sensors, and NOSONAR lines are merged
    */
   public abstract NoSonarFilter noSonarInFile(InputFile inputFile, Set<Integer> noSonarLines);
+
+  /**
+   * Register lines in a file that contains the NOSONAR flag, without boxing line numbers.
+   * The default implementation converts the lines to a {@link Set} and calls {@link #noSonarInFile(InputFile, Set)},
+   * implementations should override it to store the lines directly.
+   *
+   * @param noSonarLines bit {@code n} is set if line {@code n} contains the NOSONAR flag. Line number starts at 1 in a file
+   * @see org.sonar.api.batch.sensor.issue.IssueSuppressionIndex
+   * @since 13.12
+   */
+  public NoSonarFilter noSonarInFile(InputFile inputFile, BitSet noSonarLines) {
+    Set<Integer> lines = new HashSet<>(noSonarLines.cardinality());
+    noSonarLines.stream().filter(line -> line > 0).forEach(lines::add);
+    return noSonarInFile(inputFile, lines);
+  }
 }
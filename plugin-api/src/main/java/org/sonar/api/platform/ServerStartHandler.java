@@ -19,11 +19,20 @@
  */
 package org.sonar.api.platform;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import javax.annotation.CheckForNull;
 import org.sonar.api.ExtensionPoint;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
 
 /**
+ * Handlers are executed at server startup. By default they are executed one after the other, in registration order.
+ * A handler can declare with the default methods of this interface that it can run concurrently with other handlers,
+ * the handlers it depends on, whether the server waits for it before being ready, and a timeout. See
+ * {@link ServerStartHandlerExecutor}.
+ *
  * @since 2.2
  */
 @ServerSide
@@ -33,4 +42,44 @@ public interface ServerStartHandler {
 
   void onServerStart(Server server);
 
+  /**
+   * Whether this handler can run concurrently with other handlers, on another thread. Handlers that can't, which is the
+   * default, are executed one after the other, in registration order.
+   *
+   * @since 13.12
+   */
+  default boolean isConcurrent() {
+    return false;
+  }
+
+  /**
+   * Classes of the handlers that must be completed before this handler starts.
+   *
+   * @since 13.12
+   */
+  default Set<Class<? extends ServerStartHandler>> dependsOn() {
+    return Collections.emptySet();
+  }
+
+  /**
+   * Whether the server waits for this handler to be completed before being ready, which is the default. Handlers that
+   * don't block readiness, for instance handlers warming caches, are completed in background.
+   *
+   * @since 13.12
+   */
+  default boolean blocksReadiness() {
+    return true;
+  }
+
+  /**
+   * Maximum duration of this handler, after which it is considered as failed. The handler is not interrupted.
+   *
+   * @return null if the handler has no timeout, which is the default
+   * @since 13.12
+   */
+  @CheckForNull
+  default Duration startTimeout() {
+    return null;
+  }
+
 }
@@ -0,0 +1,318 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.platform;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.utils.dag.DirectAcyclicGraph;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Executes {@link ServerStartHandler}s, running independent handlers in parallel:
+ * <ul>
+ *   <li>a handler starts once the handlers it {@link ServerStartHandler#dependsOn() depends on} are completed</li>
+ *   <li>handlers that are not {@link ServerStartHandler#isConcurrent() concurrent} also wait for the previous
+ *   non-concurrent handler, so that they keep running one after the other, in registration order. Handlers that
+ *   {@link ServerStartHandler#blocksReadiness() block readiness} and background handlers form two separate chains, so
+ *   that readiness never waits for a background handler, unless explicitly depending on it</li>
+ *   <li>{@link #execute(List, Server)} returns once the handlers that block readiness are completed, the others being
+ *   completed in background</li>
+ *   <li>a handler whose execution exceeds its {@link ServerStartHandler#startTimeout() timeout} is considered as failed.
+ *   The timeout starts when the handler starts, not when it is waiting for its dependencies or for a free thread. The
+ *   handler is not interrupted: it keeps its thread until {@link ServerStartHandler#onServerStart(Server)} returns</li>
+ *   <li>the handlers depending on a failed handler, including a timed out handler, are skipped. This also applies to the
+ *   non-concurrent handlers chained after it, so that a non-concurrent handler never starts while the previous one of its
+ *   chain is still running</li>
+ * </ul>
+ * The timing of each handler is logged and published in the returned {@link Report}.
+ *
+ * @since 13.12
+ */
+public final class ServerStartHandlerExecutor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ServerStartHandlerExecutor.class);
+
+  public enum Status {
+    SUCCESS, FAILED, TIMED_OUT, SKIPPED
+  }
+
+  private final int threads;
+
+  /**
+   * @param threads maximum number of handlers running concurrently
+   */
+  public ServerStartHandlerExecutor(int threads) {
+    checkArgument(threads > 0, "Number of threads must be greater than 0: %s", threads);
+    this.threads = threads;
+  }
+
+  /**
+   * Executes the handlers and waits for the handlers blocking readiness.
+   *
+   * @throws IllegalArgumentException if a handler depends on a handler that is not registered
+   * @throws org.sonar.api.utils.dag.CyclicDependenciesException if dependencies are cyclic
+   * @throws RuntimeException the failure of the first failed handler blocking readiness
+   */
+  public Report execute(List<? extends ServerStartHandler> handlers, Server server) {
+    Map<ServerStartHandler, List<ServerStartHandler>> dependencies = resolveDependencies(handlers);
+    List<ServerStartHandler> sorted = new DependencyGraph(handlers, dependencies).sorted();
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new HandlerThreadFactory());
+    List<HandlerTiming> timings = Collections.synchronizedList(new ArrayList<>());
+    Map<ServerStartHandler, CompletableFuture<Void>> futures = new IdentityHashMap<>();
+    List<CompletableFuture<Void>> blocking = new ArrayList<>();
+    long start = System.nanoTime();
+
+    for (ServerStartHandler handler : sorted) {
+      List<CompletableFuture<Void>> prerequisites = new ArrayList<>();
+      dependencies.get(handler).forEach(dependency -> prerequisites.add(futures.get(dependency)));
+      CompletableFuture<Void> future = CompletableFuture.allOf(prerequisites.toArray(new CompletableFuture<?>[0]))
+        .handle((v, failure) -> failure)
+        .thenCompose(failure -> {
+          if (failure != null) {
+            timings.add(new HandlerTiming(handler, Status.SKIPPED, 0L));
+            return CompletableFuture.<Void>failedFuture(failure);
+          }
+          return run(handler, server, executor, timings);
+        });
+      futures.put(handler, future);
+      if (handler.blocksReadiness()) {
+        blocking.add(future);
+      }
+    }
+
+    CompletableFuture<Void> all = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]));
+    all.whenComplete((v, failure) -> executor.shutdown());
+    try {
+      CompletableFuture.allOf(blocking.toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+    LOG.info("Server start handlers blocking readiness completed in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return new Report(timings, all.handle((v, failure) -> null));
+  }
+
+  private static CompletableFuture<Void> run(ServerStartHandler handler, Server server, ExecutorService executor, List<HandlerTiming> timings) {
+    AtomicLong start = new AtomicLong();
+    Duration timeout = handler.startTimeout();
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    executor.execute(() -> {
+      start.set(System.nanoTime());
+      if (timeout != null) {
+        // the timeout only starts now, once a thread is available
+        future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+      }
+      try {
+        handler.onServerStart(server);
+        future.complete(null);
+      } catch (RuntimeException | Error e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future.whenComplete((v, failure) -> {
+      long started = start.get();
+      long duration = started == 0L ? 0L : (System.nanoTime() - started);
+      HandlerTiming timing = new HandlerTiming(handler, status(failure), duration);
+      timings.add(timing);
+      if (failure == null) {
+        LOG.debug("{}", timing);
+      } else {
+        LOG.warn("{}", timing, failure);
+      }
+    });
+  }
+
+  private static Status status(@Nullable Throwable failure) {
+    if (failure == null) {
+      return Status.SUCCESS;
+    }
+    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+    return cause instanceof TimeoutException ? Status.TIMED_OUT : Status.FAILED;
+  }
+
+  private static Map<ServerStartHandler, List<ServerStartHandler>> resolveDependencies(List<? extends ServerStartHandler> handlers) {
+    Map<ServerStartHandler, List<ServerStartHandler>> dependencies = new IdentityHashMap<>();
+    // last non-concurrent handler of the chain of the handlers blocking readiness, and of the chain of background handlers
+    ServerStartHandler previousBlocking = null;
+    ServerStartHandler previousBackground = null;
+    for (ServerStartHandler handler : handlers) {
+      requireNonNull(handler, "Server start handler can't be null");
+      List<ServerStartHandler> handlerDependencies = new ArrayList<>();
+      for (Class<? extends ServerStartHandler> dependencyClass : handler.dependsOn()) {
+        List<ServerStartHandler> matching = new ArrayList<>();
+        handlers.stream().filter(other -> other != handler && dependencyClass.isInstance(other)).forEach(matching::add);
+        checkArgument(!matching.isEmpty(), "Server start handler %s depends on %s, which is not registered", handler.getClass().getName(),
+          dependencyClass.getName());
+        handlerDependencies.addAll(matching);
+      }
+      if (!handler.isConcurrent()) {
+        ServerStartHandler previous = handler.blocksReadiness() ? previousBlocking : previousBackground;
+        if (previous != null) {
+          handlerDependencies.add(previous);
+        }
+        if (handler.blocksReadiness()) {
+          previousBlocking = handler;
+        } else {
+          previousBackground = handler;
+        }
+      }
+      dependencies.put(handler, handlerDependencies);
+    }
+    return dependencies;
+  }
+
+  /**
+   * Sorts handlers so that each handler comes after its dependencies, and fails if dependencies are cyclic.
+   */
+  private static final class DependencyGraph {
+    private final DirectAcyclicGraph graph = new DirectAcyclicGraph();
+
+    private DependencyGraph(List<? extends ServerStartHandler> handlers, Map<ServerStartHandler, List<ServerStartHandler>> dependencies) {
+      for (ServerStartHandler handler : handlers) {
+        graph.add(new Identity(handler), dependencies.get(handler).stream().map(Identity::new).toArray());
+      }
+    }
+
+    private List<ServerStartHandler> sorted() {
+      List<ServerStartHandler> result = new ArrayList<>();
+      for (Object identity : graph.sort()) {
+        result.add(((Identity) identity).handler);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Compares handlers by identity, whatever their implementation of {@code equals}.
+   */
+  private static final class Identity {
+    private final ServerStartHandler handler;
+
+    private Identity(ServerStartHandler handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Identity && ((Identity) o).handler == handler;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(handler);
+    }
+
+    @Override
+    public String toString() {
+      return handler.getClass().getName();
+    }
+  }
+
+  @Immutable
+  public static final class HandlerTiming {
+    private final String handlerClass;
+    private final Status status;
+    private final long durationNanos;
+
+    private HandlerTiming(ServerStartHandler handler, Status status, long durationNanos) {
+      this.handlerClass = handler.getClass().getName();
+      this.status = status;
+      this.durationNanos = durationNanos;
+    }
+
+    public String handlerClass() {
+      return handlerClass;
+    }
+
+    public Status status() {
+      return status;
+    }
+
+    public long durationNanos() {
+      return durationNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Server start handler %s: %s in %d ms", handlerClass, status, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+  }
+
+  public static final class Report {
+    private final List<HandlerTiming> timings;
+    private final CompletableFuture<Void> completion;
+
+    private Report(List<HandlerTiming> timings, CompletableFuture<Void> completion) {
+      this.timings = timings;
+      this.completion = completion;
+    }
+
+    /**
+     * Timings of the completed handlers, in completion order. Timings of background handlers are added as they complete.
+     */
+    public List<HandlerTiming> timings() {
+      synchronized (timings) {
+        return new ArrayList<>(timings);
+      }
+    }
+
+    /**
+     * Completed once all the handlers, including background handlers, are completed, whether they succeeded or not.
+     */
+    public CompletableFuture<Void> completion() {
+      return completion;
+    }
+
+    @CheckForNull
+    public HandlerTiming timing(Class<? extends ServerStartHandler> handlerClass) {
+      return timings().stream().filter(timing -> timing.handlerClass.equals(handlerClass.getName())).findFirst().orElse(null);
+    }
+  }
+
+  private static final class HandlerThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "server-start-handler-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
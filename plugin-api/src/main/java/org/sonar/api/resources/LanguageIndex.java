@@ -0,0 +1,208 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.resources;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Index of the {@link Language#getFileSuffixes() file suffixes} of languages, to find the languages of a file name in a
+ * time proportional to the length of the name, whatever the number of languages and suffixes.
+ * <br>
+ * Suffixes are stored reversed in a trie, so that compound suffixes such as {@code d.ts} or {@code spec.js} are found
+ * along with the shorter suffixes they end with. As for language detection by the scanner, a suffix matches a file name
+ * if the name ends with a dot followed by the suffix, ignoring case, and a leading dot in declared suffixes is ignored.
+ * <br>
+ * Filename patterns of languages are not indexed.
+ *
+ * @see Languages#index()
+ * @since 13.12
+ */
+@Immutable
+public final class LanguageIndex {
+
+  private final Node root = new Node();
+  private final Map<String, List<Language>> languagesBySuffix = new LinkedHashMap<>();
+
+  private LanguageIndex(Collection<Language> languages) {
+    for (Language language : languages) {
+      requireNonNull(language, "Language can't be null");
+      for (String declared : language.getFileSuffixes()) {
+        String suffix = sanitize(declared);
+        if (suffix.isEmpty()) {
+          continue;
+        }
+        List<Language> declaring = languagesBySuffix.computeIfAbsent(suffix, s -> new ArrayList<>());
+        if (!declaring.contains(language)) {
+          declaring.add(language);
+          root.insert(suffix).languages.add(language);
+        }
+      }
+    }
+  }
+
+  public static LanguageIndex of(Collection<Language> languages) {
+    return new LanguageIndex(requireNonNull(languages, "Languages can't be null"));
+  }
+
+  /**
+   * Finds the languages whose suffixes match the given file name. A path can be given as well, as suffixes are
+   * searched from the end of the name.
+   */
+  public Detection detect(String fileName) {
+    requireNonNull(fileName, "File name can't be null");
+    List<Match> matches = new ArrayList<>(1);
+    Node node = root;
+    for (int i = fileName.length() - 1; i > 0; i--) {
+      node = node.children.get(Character.toLowerCase(fileName.charAt(i)));
+      if (node == null) {
+        break;
+      }
+      if (!node.languages.isEmpty() && fileName.charAt(i - 1) == '.') {
+        matches.add(new Match(fileName.length() - i, node.languages));
+      }
+    }
+    return new Detection(fileName, matches);
+  }
+
+  /**
+   * Suffixes declared by several languages, with the keys of these languages. Files with these suffixes can't be
+   * assigned to a language.
+   */
+  public Map<String, List<String>> ambiguousSuffixes() {
+    Map<String, List<String>> result = new LinkedHashMap<>();
+    languagesBySuffix.forEach((suffix, languages) -> {
+      if (languages.size() > 1) {
+        List<String> keys = new ArrayList<>();
+        languages.forEach(language -> keys.add(language.getKey()));
+        result.put(suffix, Collections.unmodifiableList(keys));
+      }
+    });
+    return Collections.unmodifiableMap(result);
+  }
+
+  static String sanitize(@Nullable String suffix) {
+    if (suffix == null) {
+      return "";
+    }
+    String trimmed = suffix.trim().toLowerCase(Locale.ENGLISH);
+    return trimmed.startsWith(".") ? trimmed.substring(1) : trimmed;
+  }
+
+  /**
+   * Result of {@link LanguageIndex#detect(String)}.
+   */
+  @Immutable
+  public static final class Detection {
+    private final String fileName;
+    private final List<Match> matches;
+
+    private Detection(String fileName, List<Match> matches) {
+      this.fileName = fileName;
+      // matches are found from the shortest suffix to the longest one
+      Collections.reverse(matches);
+      this.matches = matches;
+    }
+
+    /**
+     * Language of the longest matching suffix, if this suffix is declared by a single language. For instance, if a
+     * language declares {@code d.ts} and another one declares {@code ts}, "types.d.ts" is assigned to the first one.
+     *
+     * @return null if no suffix matches, or if the longest matching suffix is declared by several languages
+     */
+    @CheckForNull
+    public Language language() {
+      if (matches.isEmpty() || matches.get(0).languages.size() > 1) {
+        return null;
+      }
+      return matches.get(0).languages.get(0);
+    }
+
+    /**
+     * Longest matching suffix, without leading dot and in lower case.
+     *
+     * @return null if no suffix matches
+     */
+    @CheckForNull
+    public String suffix() {
+      if (matches.isEmpty()) {
+        return null;
+      }
+      int length = matches.get(0).length;
+      return fileName.substring(fileName.length() - length).toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * All the languages with a suffix matching the file name, longest suffixes first.
+     */
+    public List<Language> candidates() {
+      List<Language> candidates = new ArrayList<>();
+      for (Match match : matches) {
+        for (Language language : match.languages) {
+          if (!candidates.contains(language)) {
+            candidates.add(language);
+          }
+        }
+      }
+      return candidates;
+    }
+
+    /**
+     * Whether several languages have a suffix matching the file name, including suffixes shorter than the longest one.
+     */
+    public boolean isAmbiguous() {
+      return candidates().size() > 1;
+    }
+  }
+
+  private static final class Match {
+    private final int length;
+    private final List<Language> languages;
+
+    private Match(int length, List<Language> languages) {
+      this.length = length;
+      this.languages = languages;
+    }
+  }
+
+  private static final class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private final List<Language> languages = new ArrayList<>(1);
+
+    private Node insert(String suffix) {
+      Node node = this;
+      for (int i = suffix.length() - 1; i >= 0; i--) {
+        node = node.children.computeIfAbsent(suffix.charAt(i), c -> new Node());
+      }
+      return node;
+    }
+  }
+}
@@ -29,9 +29,11 @@ import org.sonar.api.utils.log.Loggers;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A class to store the list of languages
@@ -46,6 +48,7 @@ public class Languages {
   private static final Logger LOG = Loggers.get(Languages.class);
 
   private final Map<String, Language> map = new LinkedHashMap<>();
+  private LanguageIndex index;
 
   /**
    * Creates a list of languages
@@ -71,15 +74,29 @@ public class Languages {
    */
   public String[] getSuffixes(String... keys) {
     List<String> suffixes = new ArrayList<>();
+    Set<String> keySet = ArrayUtils.isEmpty(keys) ? null : new HashSet<>(Arrays.asList(keys));
 
     for (Map.Entry<String, Language> entry : map.entrySet()) {
-      if (ArrayUtils.isEmpty(keys) || ArrayUtils.contains(keys, entry.getKey())) {
+      if (keySet == null || keySet.contains(entry.getKey())) {
         suffixes.addAll(Arrays.asList(entry.getValue().getFileSuffixes()));
       }
     }
     return suffixes.toArray(new String[suffixes.size()]);
   }
 
+  /**
+   * Index of the file suffixes of the languages, to find the language of a file without iterating over all the languages.
+   * The index is built on first call, and rebuilt after a language is {@link #add(Language) added}.
+   *
+   * @since 13.12
+   */
+  public synchronized LanguageIndex index() {
+    if (index == null) {
+      index = LanguageIndex.of(map.values());
+    }
+    return index;
+  }
+
   /**
    * Return a language from the current object based on its key
    */
@@ -90,8 +107,9 @@ public class Languages {
   /**
    * Adds a language to the current object
    */
-  public void add(Language language) {
+  public synchronized void add(Language language) {
     map.put(language.getKey(), language);
+    index = null;
   }
 
   /**
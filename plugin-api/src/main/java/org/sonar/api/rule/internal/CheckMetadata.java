@@ -0,0 +1,290 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.rule.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+import org.apache.commons.lang3.StringUtils;
+import org.sonar.api.utils.AnnotationUtils;
+import org.sonar.api.utils.FieldUtils2;
+import org.sonar.api.utils.SonarException;
+import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reflective metadata of a class annotated with sonar-check-api annotations: the {@link Rule} annotation, the fields
+ * annotated with {@link RuleProperty} and the way to instantiate the class. The metadata is computed once per class
+ * and cached, so that instantiating and configuring checks does not walk the class hierarchy again.
+ * <p>
+ * Not part of the public API, used by {@link org.sonar.api.batch.rule.Checks} and
+ * {@link org.sonar.api.server.rule.RulesDefinitionAnnotationLoader}.
+ *
+ * @since 13.12
+ */
+@Immutable
+public final class CheckMetadata {
+
+  private static final ClassValue<CheckMetadata> CACHE = new ClassValue<>() {
+    @Override
+    protected CheckMetadata computeValue(Class<?> type) {
+      return new CheckMetadata(type);
+    }
+  };
+
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+  private static final Map<Class<?>, Function<String, Object>> CONVERTERS = converters();
+
+  private final Class<?> type;
+  @CheckForNull
+  private final Rule ruleAnnotation;
+  private final String ruleKey;
+  private final List<PropertyField> properties;
+  private final Map<String, PropertyField> propertiesByKey;
+  @CheckForNull
+  private final MethodHandle constructor;
+  @CheckForNull
+  private final ReflectiveOperationException constructorFailure;
+
+  private CheckMetadata(Class<?> type) {
+    this.type = type;
+    this.ruleAnnotation = AnnotationUtils.getAnnotation(type, Rule.class);
+    this.ruleKey = StringUtils.defaultIfEmpty(ruleAnnotation != null ? ruleAnnotation.key() : null, type.getCanonicalName());
+
+    List<PropertyField> fields = new ArrayList<>();
+    Map<String, PropertyField> byKey = new HashMap<>();
+    for (Field field : FieldUtils2.getFields(type, true)) {
+      RuleProperty propertyAnnotation = field.getAnnotation(RuleProperty.class);
+      if (propertyAnnotation != null) {
+        PropertyField property = new PropertyField(field, propertyAnnotation);
+        fields.add(property);
+        // the first field matching either by name or by annotation key wins, as fields are ordered from the class to its parents
+        byKey.putIfAbsent(field.getName(), property);
+        byKey.putIfAbsent(propertyAnnotation.key(), property);
+      }
+    }
+    this.properties = Collections.unmodifiableList(fields);
+    this.propertiesByKey = byKey;
+
+    MethodHandle handle = null;
+    ReflectiveOperationException failure = null;
+    try {
+      handle = lookupConstructor(type);
+    } catch (ReflectiveOperationException e) {
+      failure = e;
+    }
+    this.constructor = handle;
+    this.constructorFailure = failure;
+  }
+
+  /**
+   * Metadata of the given class, computed on first call then cached for the lifetime of the class.
+   */
+  public static CheckMetadata of(Class<?> type) {
+    return CACHE.get(requireNonNull(type, "Class can't be null"));
+  }
+
+  /**
+   * Metadata of the given class, or of the class of the given object.
+   */
+  public static CheckMetadata ofClassOrObject(Object classOrObject) {
+    requireNonNull(classOrObject, "Class or object can't be null");
+    return of(classOrObject instanceof Class<?> ? (Class<?>) classOrObject : classOrObject.getClass());
+  }
+
+  public Class<?> type() {
+    return type;
+  }
+
+  /**
+   * The {@link Rule} annotation of the class or of one of its parents, if any.
+   */
+  @CheckForNull
+  public Rule ruleAnnotation() {
+    return ruleAnnotation;
+  }
+
+  /**
+   * The key declared by {@link Rule#key()}, or the canonical name of the class if not declared.
+   */
+  public String ruleKey() {
+    return ruleKey;
+  }
+
+  /**
+   * Fields annotated with {@link RuleProperty}, declared by the class then by its parents.
+   */
+  public List<PropertyField> properties() {
+    return properties;
+  }
+
+  /**
+   * The first field annotated with {@link RuleProperty} whose name or annotation key is the given key.
+   */
+  @CheckForNull
+  public PropertyField property(String key) {
+    return propertiesByKey.get(key);
+  }
+
+  /**
+   * Creates a new instance with the no-arg constructor of the class.
+   *
+   * @throws ReflectiveOperationException if the class can't be instantiated, or if the constructor throws a checked exception
+   */
+  public Object newInstance() throws ReflectiveOperationException {
+    if (constructor == null) {
+      throw requireNonNull(constructorFailure);
+    }
+    try {
+      return (Object) constructor.invokeExact();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new InvocationTargetException(e);
+    }
+  }
+
+  private static MethodHandle lookupConstructor(Class<?> type) throws ReflectiveOperationException {
+    if (Modifier.isAbstract(type.getModifiers()) || type.isInterface()) {
+      throw new InstantiationException(type.getName());
+    }
+    Constructor<?> noArgConstructor = type.getDeclaredConstructor();
+    noArgConstructor.trySetAccessible();
+    return MethodHandles.lookup().unreflectConstructor(noArgConstructor).asType(CONSTRUCTOR_TYPE);
+  }
+
+  private static Map<Class<?>, Function<String, Object>> converters() {
+    Map<Class<?>, Function<String, Object>> map = new HashMap<>();
+    map.put(String.class, value -> value);
+    map.put(int.class, Integer::valueOf);
+    map.put(short.class, Short::valueOf);
+    map.put(long.class, Long::valueOf);
+    map.put(double.class, Double::valueOf);
+    map.put(boolean.class, Boolean::valueOf);
+    map.put(byte.class, Byte::valueOf);
+    map.put(Integer.class, Integer::valueOf);
+    map.put(Long.class, Long::valueOf);
+    map.put(Double.class, Double::valueOf);
+    map.put(Boolean.class, Boolean::valueOf);
+    return Collections.unmodifiableMap(map);
+  }
+
+  /**
+   * A field annotated with {@link RuleProperty}, with a precompiled converter and setter.
+   */
+  @Immutable
+  public static final class PropertyField {
+    private final Field field;
+    private final RuleProperty annotation;
+    @CheckForNull
+    private final Function<String, Object> converter;
+    @CheckForNull
+    private final MethodHandle setter;
+
+    private PropertyField(Field field, RuleProperty annotation) {
+      this.field = field;
+      this.annotation = annotation;
+      this.converter = CONVERTERS.get(field.getType());
+      this.setter = converter == null ? null : lookupSetter(field);
+    }
+
+    /**
+     * The field is made accessible first, like public fields of non-public classes or final fields, which are not
+     * accessible to the lookup otherwise.
+     */
+    @CheckForNull
+    private static MethodHandle lookupSetter(Field field) {
+      try {
+        field.trySetAccessible();
+        MethodHandle handle = MethodHandles.lookup().unreflectSetter(field);
+        if (Modifier.isStatic(field.getModifiers())) {
+          handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asType(SETTER_TYPE);
+      } catch (IllegalAccessException e) {
+        // static final or inaccessible field, the value is set by reflection when injected
+        return null;
+      }
+    }
+
+    public Field field() {
+      return field;
+    }
+
+    public RuleProperty annotation() {
+      return annotation;
+    }
+
+    /**
+     * The key of the rule parameter: the key of the annotation, or the field name if not declared.
+     */
+    public String key() {
+      return StringUtils.defaultIfEmpty(annotation.key(), field.getName());
+    }
+
+    /**
+     * Converts the value to the type of the field then sets it on the given check.
+     *
+     * @throws SonarException if the type of the field is not supported, or if the field can't be set
+     * @throws NumberFormatException if the value can't be converted to the numeric type of the field
+     */
+    public void inject(Object check, String value) {
+      if (converter == null) {
+        throw new SonarException("The type of the field " + field + " is not supported: " + field.getType());
+      }
+      Object converted = converter.apply(value);
+      if (setter == null) {
+        setByReflection(check, converted);
+        return;
+      }
+      try {
+        setter.invokeExact(check, converted);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new SonarException("Can not set the value of the field " + field + " in the class: " + check.getClass().getName(), e);
+      }
+    }
+
+    private void setByReflection(Object check, Object value) {
+      try {
+        field.setAccessible(true);
+        field.set(check, value);
+      } catch (IllegalAccessException | RuntimeException e) {
+        throw new SonarException("Can not set the value of the field " + field + " in the class: " + check.getClass().getName(), e);
+      }
+    }
+  }
+}
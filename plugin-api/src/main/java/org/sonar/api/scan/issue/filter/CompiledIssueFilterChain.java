@@ -0,0 +1,160 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.scan.issue.filter;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.sonar.api.rule.RuleKey;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Chain of {@link IssueFilter}s that only calls the filters whose {@link IssueFilter#scope() scope} includes the issue.
+ * The filters that apply to a rule are computed once per rule key, and the component key of an issue is only read
+ * if one of these filters is restricted to some components.
+ * <br>
+ * Filters are called in the order they are given, and an issue is accepted if no filter rejects it.
+ *
+ * @since 13.12
+ * @deprecated since 13.12, as {@link IssueFilter} is deprecated since 7.6
+ */
+@ThreadSafe
+@Deprecated
+public final class CompiledIssueFilterChain implements IssueFilterChain {
+
+  private final IssueFilter[] filters;
+  private final IssueFilterScope[] scopes;
+  private final Map<RuleKey, Node> chainsByRuleKey = new ConcurrentHashMap<>();
+
+  private CompiledIssueFilterChain(List<? extends IssueFilter> filters) {
+    this.filters = filters.toArray(new IssueFilter[0]);
+    this.scopes = new IssueFilterScope[this.filters.length];
+    for (int i = 0; i < this.filters.length; i++) {
+      IssueFilter filter = requireNonNull(this.filters[i], "Issue filter can't be null");
+      scopes[i] = requireNonNull(filter.scope(), () -> "Scope of issue filter " + filter + " can't be null");
+    }
+  }
+
+  public static CompiledIssueFilterChain compile(List<? extends IssueFilter> filters) {
+    return new CompiledIssueFilterChain(requireNonNull(filters, "Issue filters can't be null"));
+  }
+
+  /**
+   * Whether the issue is accepted by all the filters in its scope.
+   */
+  @Override
+  public boolean accept(FilterableIssue issue) {
+    return Node.accept(chainOf(issue.ruleKey()), issue);
+  }
+
+  /**
+   * Filters the issues of a single component, usually a file. The component patterns of the filters are matched once
+   * for the whole batch, and {@link FilterableIssue#componentKey()} is not called.
+   *
+   * @return the indices of the accepted issues in the given list
+   */
+  public BitSet accept(String componentKey, List<? extends FilterableIssue> issues) {
+    requireNonNull(componentKey, "Component key can't be null");
+    BitSet inScopeOfComponent = new BitSet(filters.length);
+    for (int i = 0; i < filters.length; i++) {
+      inScopeOfComponent.set(i, scopes[i].appliesToComponent(componentKey));
+    }
+
+    Map<RuleKey, Node> chainsOfComponent = new HashMap<>();
+    BitSet accepted = new BitSet(issues.size());
+    for (int i = 0; i < issues.size(); i++) {
+      FilterableIssue issue = issues.get(i);
+      Node chain = chainsOfComponent.computeIfAbsent(issue.ruleKey(), ruleKey -> compileChain(ruleKey, inScopeOfComponent));
+      accepted.set(i, Node.accept(chain, issue));
+    }
+    return accepted;
+  }
+
+  @CheckForNull
+  private Node chainOf(RuleKey ruleKey) {
+    // null values are not supported by ConcurrentHashMap, so an empty chain is stored as Node.EMPTY
+    Node chain = chainsByRuleKey.computeIfAbsent(ruleKey, k -> {
+      Node compiled = compileChain(k, null);
+      return compiled == null ? Node.EMPTY : compiled;
+    });
+    return chain == Node.EMPTY ? null : chain;
+  }
+
+  /**
+   * @param inScopeOfComponent the filters that apply to the component of the issues, or {@code null} if the component
+   *                           patterns must be checked on each issue
+   */
+  @CheckForNull
+  private Node compileChain(RuleKey ruleKey, @Nullable BitSet inScopeOfComponent) {
+    Node next = null;
+    for (int i = filters.length - 1; i >= 0; i--) {
+      if (scopes[i].appliesToRule(ruleKey) && (inScopeOfComponent == null || inScopeOfComponent.get(i))) {
+        IssueFilterScope componentScope = inScopeOfComponent == null && !scopes[i].isAllComponents() ? scopes[i] : null;
+        next = new Node(filters[i], componentScope, next);
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Immutable link of a compiled chain. Nodes are shared by all the issues of a rule, and {@code null} ends the chain.
+   */
+  private static final class Node implements IssueFilterChain {
+    private static final Node EMPTY = new Node(null, null, null);
+
+    private final IssueFilter filter;
+    @Nullable
+    private final IssueFilterScope componentScope;
+    @Nullable
+    private final Node next;
+
+    private Node(@Nullable IssueFilter filter, @Nullable IssueFilterScope componentScope, @Nullable Node next) {
+      this.filter = filter;
+      this.componentScope = componentScope;
+      this.next = next;
+    }
+
+    @Override
+    public boolean accept(FilterableIssue issue) {
+      return accept(next, issue);
+    }
+
+    private static boolean accept(@Nullable Node chain, FilterableIssue issue) {
+      Node node = chain;
+      String componentKey = null;
+      while (node != null && node.componentScope != null) {
+        if (componentKey == null) {
+          componentKey = issue.componentKey();
+        }
+        if (node.componentScope.appliesToComponent(componentKey)) {
+          break;
+        }
+        node = node.next;
+      }
+      return node == null || node.filter.accept(issue, node);
+    }
+  }
+}
@@ -54,4 +54,17 @@ public interface IssueFilter {
    * @return <code>true</code> to accept the issue, <code>false</code> to reject it, {@link IssueFilterChain#accept} to let the other filters decide.
    */
   boolean accept(FilterableIssue issue, IssueFilterChain chain);
+
+  /**
+   * The issues this filter cares about. The filter is not called for the other issues, which are passed
+   * directly to the rest of the chain. By default, the filter is called for all the issues.
+   *
+   * @see CompiledIssueFilterChain
+   * @since 13.12
+   * @deprecated since 13.12, as {@link IssueFilter} is deprecated since 7.6
+   */
+  @Deprecated
+  default IssueFilterScope scope() {
+    return IssueFilterScope.all();
+  }
 }
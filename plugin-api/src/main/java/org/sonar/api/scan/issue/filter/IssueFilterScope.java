@@ -0,0 +1,152 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.scan.issue.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.WildcardPattern;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Declares the issues an {@link IssueFilter} cares about, so that filters can be skipped for the other issues
+ * without being called. See {@link IssueFilter#scope()}.
+ * <br>
+ * An issue is in the scope if:
+ * <ul>
+ *   <li>no rule key nor repository is declared, or its rule key is declared, or the repository of its rule is declared</li>
+ *   <li>and no component pattern is declared, or its component key matches one of the patterns</li>
+ * </ul>
+ *
+ * @since 13.12
+ * @deprecated since 13.12, as {@link IssueFilter} is deprecated since 7.6
+ */
+@Immutable
+@Deprecated
+public final class IssueFilterScope {
+
+  private static final IssueFilterScope ALL = new IssueFilterScope(new Builder());
+
+  private final Set<RuleKey> ruleKeys;
+  private final Set<String> repositories;
+  private final List<WildcardPattern> componentPatterns;
+
+  private IssueFilterScope(Builder builder) {
+    this.ruleKeys = Collections.unmodifiableSet(new LinkedHashSet<>(builder.ruleKeys));
+    this.repositories = Collections.unmodifiableSet(new LinkedHashSet<>(builder.repositories));
+    this.componentPatterns = Collections.unmodifiableList(new ArrayList<>(builder.componentPatterns));
+  }
+
+  /**
+   * Scope of the filters that must be called for all the issues. This is the default scope.
+   */
+  public static IssueFilterScope all() {
+    return ALL;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public Set<RuleKey> ruleKeys() {
+    return ruleKeys;
+  }
+
+  public Set<String> repositories() {
+    return repositories;
+  }
+
+  public List<WildcardPattern> componentPatterns() {
+    return componentPatterns;
+  }
+
+  /**
+   * Whether the filter applies to all the rules.
+   */
+  public boolean isAllRules() {
+    return ruleKeys.isEmpty() && repositories.isEmpty();
+  }
+
+  /**
+   * Whether the filter applies to all the components.
+   */
+  public boolean isAllComponents() {
+    return componentPatterns.isEmpty();
+  }
+
+  public boolean appliesToRule(RuleKey ruleKey) {
+    return isAllRules() || ruleKeys.contains(ruleKey) || repositories.contains(ruleKey.repository());
+  }
+
+  public boolean appliesToComponent(String componentKey) {
+    if (isAllComponents()) {
+      return true;
+    }
+    for (WildcardPattern pattern : componentPatterns) {
+      if (pattern.match(componentKey)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static final class Builder {
+    private final Set<RuleKey> ruleKeys = new LinkedHashSet<>();
+    private final Set<String> repositories = new LinkedHashSet<>();
+    private final List<WildcardPattern> componentPatterns = new ArrayList<>();
+
+    private Builder() {
+      // use IssueFilterScope.builder()
+    }
+
+    public Builder addRuleKeys(RuleKey... keys) {
+      for (RuleKey key : keys) {
+        ruleKeys.add(requireNonNull(key, "Rule key can't be null"));
+      }
+      return this;
+    }
+
+    public Builder addRepositories(String... keys) {
+      for (String key : keys) {
+        repositories.add(requireNonNull(key, "Repository can't be null"));
+      }
+      return this;
+    }
+
+    /**
+     * Patterns of component keys, see {@link WildcardPattern}.
+     */
+    public Builder addComponentPatterns(String... patterns) {
+      for (String pattern : patterns) {
+        componentPatterns.add(WildcardPattern.create(requireNonNull(pattern, "Component pattern can't be null")));
+      }
+      return this;
+    }
+
+    public IssueFilterScope build() {
+      return new IssueFilterScope(this);
+    }
+  }
+}
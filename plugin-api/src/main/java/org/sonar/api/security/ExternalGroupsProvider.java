@@ -19,10 +19,19 @@
  */
 package org.sonar.api.security;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.server.http.HttpRequest;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * Note that prefix "do" for names of methods is reserved for future enhancements, thus should not be used in subclasses.
  *
@@ -43,6 +52,32 @@ public abstract class ExternalGroupsProvider {
     return null;
   }
 
+  /**
+   * Override this method in order to load the groups of many users at once, without HTTP request, for instance to
+   * warm up or refresh a {@link SecurityRealmCache} in background.
+   *
+   * @return groups by username, without the users that don't exist, or null if bulk loading is not supported, which is the default
+   * @throws RuntimeException in case of unexpected error such as connection failure
+   * @since 13.12
+   */
+  @CheckForNull
+  public Map<String, Collection<String>> doGetGroups(BulkContext context) {
+    return null;
+  }
+
+  /**
+   * Override this method in order to stream the groups of all the users, or of the users whose memberships changed
+   * since {@link StreamContext#getModifiedSince()}, by calling {@link StreamContext#accept(String, Collection)} for
+   * each user.
+   *
+   * @return true if streaming is supported, false otherwise, which is the default
+   * @throws RuntimeException in case of unexpected error such as connection failure
+   * @since 13.12
+   */
+  public boolean doStreamGroups(StreamContext context) {
+    return false;
+  }
+
   public static final class Context {
     private String username;
     private HttpRequest httpRequest;
@@ -66,4 +101,56 @@ public abstract class ExternalGroupsProvider {
       return httpRequest;
     }
   }
+
+  /**
+   * @since 13.12
+   */
+  public static final class BulkContext {
+    private final List<String> usernames;
+
+    /**
+     * This class is not meant to be instantiated by plugins, except for tests.
+     */
+    public BulkContext(Collection<String> usernames) {
+      this.usernames = Collections.unmodifiableList(new ArrayList<>(requireNonNull(usernames, "Usernames can't be null")));
+    }
+
+    public List<String> getUsernames() {
+      return usernames;
+    }
+  }
+
+  /**
+   * @since 13.12
+   */
+  public static final class StreamContext {
+    private final Instant modifiedSince;
+    private final BiConsumer<String, Collection<String>> consumer;
+
+    /**
+     * This class is not meant to be instantiated by plugins, except for tests.
+     */
+    public StreamContext(@Nullable Instant modifiedSince, BiConsumer<String, Collection<String>> consumer) {
+      this.modifiedSince = modifiedSince;
+      this.consumer = requireNonNull(consumer, "Consumer can't be null");
+    }
+
+    /**
+     * Only the users whose memberships changed since this instant are requested. Providers that can't tell when
+     * memberships changed may stream all the users.
+     *
+     * @return null if all the users are requested
+     */
+    @CheckForNull
+    public Instant getModifiedSince() {
+      return modifiedSince;
+    }
+
+    /**
+     * Reports the groups of a user.
+     */
+    public void accept(String username, Collection<String> groups) {
+      consumer.accept(requireNonNull(username, "Username can't be null"), requireNonNull(groups, "Groups can't be null"));
+    }
+  }
 }
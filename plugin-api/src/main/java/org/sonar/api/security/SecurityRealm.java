@@ -19,6 +19,7 @@
  */
 package org.sonar.api.security;
 
+import javax.annotation.CheckForNull;
 import org.sonar.api.ExtensionPoint;
 import org.sonar.api.server.ServerSide;
 
@@ -61,4 +62,16 @@ public abstract class SecurityRealm {
   public ExternalGroupsProvider getGroupsProvider() {
     return null;
   }
+
+  /**
+   * Override this method to cache the results of the authenticator and providers of this realm. The same instance
+   * must be returned by each call.
+   *
+   * @return the cache of this realm, null if results must not be cached, which is the default
+   * @since 13.12
+   */
+  @CheckForNull
+  public SecurityRealmCache getCache() {
+    return null;
+  }
 }
@@ -0,0 +1,469 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.security;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import org.sonar.api.utils.System2;
+
+import static java.util.Objects.requireNonNull;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Cache of the results of the providers of a {@link SecurityRealm}, so that the external system of the realm, for instance
+ * a LDAP directory, is not called on every authenticated request. A realm declares its cache with
+ * {@link SecurityRealm#getCache()}, and the server wraps the providers of the realm with {@link #wrap(Authenticator)},
+ * {@link #wrap(ExternalUsersProvider)} and {@link #wrap(ExternalGroupsProvider)}.
+ * <ul>
+ *   <li>Entries expire after a time-to-live, and each kind of entry is bounded in number, least recently used entries
+ *   being evicted first.</li>
+ *   <li>Successful authentications are cached as verifiers of the password, never as the password itself. Verifiers are
+ *   PBKDF2 hashes with a random salt and a modest number of iterations: enough to make a leaked heap dump expensive to
+ *   exploit, cheap enough compared to a call to the external system. Failed authentications are not cached, so that a new
+ *   password is accepted immediately. However the previous password keeps being accepted until its verifier expires or
+ *   the user is {@link #invalidate(String) invalidated}: the time-to-live bounds how long revoked credentials stay valid.</li>
+ *   <li>User details and groups are cached by username, including the absence of the user.</li>
+ *   <li>Concurrent lookups of the same entry are coalesced into a single call to the provider. A lookup that is in progress
+ *   when its user is invalidated returns its result, but does not cache it.</li>
+ *   <li>Failures of the providers are not cached.</li>
+ * </ul>
+ * Entries are keyed by username only: providers that depend on other data of the HTTP request should not be cached.
+ * Requests without username are never cached.
+ *
+ * @since 13.12
+ */
+@ThreadSafe
+public final class SecurityRealmCache {
+
+  public enum Kind {
+    AUTHENTICATION, USER_DETAILS, GROUPS
+  }
+
+  private static final int SALT_LENGTH = 16;
+  private static final String HASH_ALGORITHM = "PBKDF2WithHmacSHA256";
+  // verifiers are checked on every cache hit, so the cost must stay low compared to a call to the external system
+  private static final int HASH_ITERATIONS = 1_000;
+  private static final int HASH_LENGTH_BITS = 256;
+
+  private final long ttlMillis;
+  private final System2 system2;
+  private final SecureRandom random = new SecureRandom();
+  private final Map<Kind, Store<?>> stores = new EnumMap<>(Kind.class);
+  private final Store<Verifier> verifiers;
+  private final Store<UserDetails> users;
+  private final Store<Collection<String>> groups;
+
+  private SecurityRealmCache(Builder builder) {
+    this.ttlMillis = builder.ttl.toMillis();
+    this.system2 = builder.system2;
+    this.verifiers = new Store<>(builder.maxEntries);
+    this.users = new Store<>(builder.maxEntries);
+    this.groups = new Store<>(builder.maxEntries);
+    stores.put(Kind.AUTHENTICATION, verifiers);
+    stores.put(Kind.USER_DETAILS, users);
+    stores.put(Kind.GROUPS, groups);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public Authenticator wrap(Authenticator authenticator) {
+    requireNonNull(authenticator, "Authenticator can't be null");
+    return new Authenticator() {
+      @Override
+      public boolean doAuthenticate(Context context) {
+        return authenticate(authenticator, context);
+      }
+    };
+  }
+
+  public ExternalUsersProvider wrap(ExternalUsersProvider provider) {
+    requireNonNull(provider, "Users provider can't be null");
+    return new ExternalUsersProvider() {
+      @Override
+      public UserDetails doGetUserDetails(Context context) {
+        if (context.getUsername() == null) {
+          return provider.doGetUserDetails(context);
+        }
+        return copy(users.get(context.getUsername(), context.getUsername(), () -> copy(provider.doGetUserDetails(context)), value -> true, true));
+      }
+    };
+  }
+
+  public ExternalGroupsProvider wrap(ExternalGroupsProvider provider) {
+    requireNonNull(provider, "Groups provider can't be null");
+    return new ExternalGroupsProvider() {
+      @Override
+      public Collection<String> doGetGroups(Context context) {
+        if (context.getUsername() == null) {
+          return provider.doGetGroups(context);
+        }
+        return groups.get(context.getUsername(), context.getUsername(), () -> {
+          Collection<String> loaded = provider.doGetGroups(context);
+          return loaded == null ? null : unmodifiableGroups(loaded);
+        }, value -> true, true);
+      }
+    };
+  }
+
+  /**
+   * Loads the groups of many users with {@link ExternalGroupsProvider#doGetGroups(ExternalGroupsProvider.BulkContext)}, so
+   * that requests of these users don't call the provider. Users missing from the result are cached as unknown.
+   *
+   * @return false if the provider doesn't support bulk loading
+   */
+  public boolean warmUpGroups(ExternalGroupsProvider provider, Collection<String> usernames) {
+    Map<String, Collection<String>> loaded = provider.doGetGroups(new ExternalGroupsProvider.BulkContext(usernames));
+    if (loaded == null) {
+      return false;
+    }
+    for (String username : usernames) {
+      putGroups(username, loaded.get(username));
+    }
+    return true;
+  }
+
+  /**
+   * Refreshes the groups of the users reported by {@link ExternalGroupsProvider#doStreamGroups(ExternalGroupsProvider.StreamContext)},
+   * for instance from a periodic background task.
+   *
+   * @param modifiedSince only refresh the users whose memberships changed since this instant, or all the users if null
+   * @return false if the provider doesn't support streaming
+   */
+  public boolean syncGroups(ExternalGroupsProvider provider, @Nullable Instant modifiedSince) {
+    return provider.doStreamGroups(new ExternalGroupsProvider.StreamContext(modifiedSince, this::putGroups));
+  }
+
+  private void putGroups(String username, @Nullable Collection<String> userGroups) {
+    groups.put(username, userGroups == null ? null : unmodifiableGroups(userGroups));
+  }
+
+  /**
+   * Removes all the entries of a user, for instance when it is updated or deactivated. Lookups of the user that are in
+   * progress do not cache their result.
+   */
+  public void invalidate(String username) {
+    stores.values().forEach(store -> store.remove(username));
+  }
+
+  public void invalidateAll() {
+    stores.values().forEach(Store::clear);
+  }
+
+  /**
+   * Number of lookups served by the cache, including the lookups that waited for a concurrent lookup of the same entry.
+   */
+  public long hits(Kind kind) {
+    return stores.get(kind).hits.get();
+  }
+
+  /**
+   * Number of lookups that called the provider.
+   */
+  public long misses(Kind kind) {
+    return stores.get(kind).misses.get();
+  }
+
+  /**
+   * Number of entries, including expired entries that are not evicted yet.
+   */
+  public int size(Kind kind) {
+    return stores.get(kind).size();
+  }
+
+  private boolean authenticate(Authenticator authenticator, Authenticator.Context context) {
+    String username = context.getUsername();
+    String password = context.getPassword();
+    if (username == null || password == null) {
+      return authenticator.doAuthenticate(context);
+    }
+    Verifier verifier = verifiers.get(username, Arrays.asList(username, password), () -> {
+      if (authenticator.doAuthenticate(context)) {
+        return newVerifier(password);
+      }
+      return null;
+    }, cached -> cached.matches(password), false);
+    return verifier != null && verifier.matches(password);
+  }
+
+  private Verifier newVerifier(String password) {
+    byte[] salt = new byte[SALT_LENGTH];
+    random.nextBytes(salt);
+    return new Verifier(salt, hash(salt, password));
+  }
+
+  private static byte[] hash(byte[] salt, String password) {
+    PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, HASH_ITERATIONS, HASH_LENGTH_BITS);
+    try {
+      return SecretKeyFactory.getInstance(HASH_ALGORITHM).generateSecret(spec).getEncoded();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Fail to hash password with " + HASH_ALGORITHM, e);
+    } finally {
+      spec.clearPassword();
+    }
+  }
+
+  private static Collection<String> unmodifiableGroups(Collection<String> groups) {
+    return Collections.unmodifiableSet(new LinkedHashSet<>(groups));
+  }
+
+  @CheckForNull
+  private static UserDetails copy(@Nullable UserDetails details) {
+    if (details == null) {
+      return null;
+    }
+    UserDetails copy = new UserDetails();
+    copy.setName(details.getName());
+    copy.setEmail(details.getEmail());
+    copy.setUserId(details.getUserId());
+    return copy;
+  }
+
+  private static final class Verifier {
+    private final byte[] salt;
+    private final byte[] hash;
+
+    private Verifier(byte[] salt, byte[] hash) {
+      this.salt = salt;
+      this.hash = hash;
+    }
+
+    private boolean matches(String password) {
+      return MessageDigest.isEqual(hash, hash(salt, password));
+    }
+  }
+
+  private static final class CachedValue<V> {
+    @Nullable
+    private final V value;
+    private final long expiresAt;
+
+    private CachedValue(@Nullable V value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private static final class Load<V> {
+    private final Object loadKey;
+    private final CompletableFuture<V> future = new CompletableFuture<>();
+    // guarded by the entries of the store
+    private boolean stale;
+
+    private Load(Object loadKey) {
+      this.loadKey = loadKey;
+    }
+  }
+
+  /**
+   * LRU map of entries, plus the lookups in progress. Lookups in progress are keyed by a load key, which is the username
+   * for users and groups, and the username and password for authentications, so that only identical authentications
+   * are coalesced. They are also indexed by username, so that invalidations mark them as stale.
+   */
+  private final class Store<V> {
+    private final Map<String, CachedValue<V>> entries;
+    // guarded by entries
+    private final Map<String, List<Load<V>>> loadsByUsername = new HashMap<>();
+    private final ConcurrentMap<Object, Load<V>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private Store(int maxEntries) {
+      this.entries = new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedValue<V>> eldest) {
+          return size() > maxEntries;
+        }
+      };
+    }
+
+    /**
+     * @param valid whether a cached value can be returned for this lookup
+     * @param cacheAbsent whether a null value returned by the loader is cached
+     */
+    @CheckForNull
+    private V get(String username, Object loadKey, Supplier<V> loader, Predicate<V> valid, boolean cacheAbsent) {
+      CachedValue<V> entry;
+      synchronized (entries) {
+        entry = entries.get(username);
+      }
+      if (entry != null && entry.expiresAt > system2.now() && (entry.value == null || valid.test(entry.value))) {
+        hits.incrementAndGet();
+        return entry.value;
+      }
+      Load<V> created = new Load<>(loadKey);
+      Load<V> pending;
+      synchronized (entries) {
+        pending = loading.putIfAbsent(loadKey, created);
+        if (pending == null) {
+          loadsByUsername.computeIfAbsent(username, u -> new ArrayList<>(1)).add(created);
+        }
+      }
+      if (pending != null) {
+        hits.incrementAndGet();
+        return join(pending.future);
+      }
+      misses.incrementAndGet();
+      V value = null;
+      try {
+        value = loader.get();
+        created.future.complete(value);
+        return value;
+      } catch (RuntimeException e) {
+        created.future.completeExceptionally(e);
+        throw e;
+      } finally {
+        complete(username, created, value, !created.future.isCompletedExceptionally() && (value != null || cacheAbsent));
+      }
+    }
+
+    /**
+     * Caches the loaded value, unless the user was invalidated while it was loaded.
+     */
+    private void complete(String username, Load<V> load, @Nullable V value, boolean cache) {
+      synchronized (entries) {
+        loading.remove(load.loadKey, load);
+        List<Load<V>> loads = loadsByUsername.get(username);
+        if (loads != null) {
+          loads.remove(load);
+          if (loads.isEmpty()) {
+            loadsByUsername.remove(username);
+          }
+        }
+        if (cache && !load.stale) {
+          entries.put(username, new CachedValue<>(value, system2.now() + ttlMillis));
+        }
+      }
+    }
+
+    private V join(CompletableFuture<V> future) {
+      try {
+        return future.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    private void put(String username, @Nullable V value) {
+      synchronized (entries) {
+        entries.put(username, new CachedValue<>(value, system2.now() + ttlMillis));
+      }
+    }
+
+    private void remove(String username) {
+      synchronized (entries) {
+        entries.remove(username);
+        List<Load<V>> loads = loadsByUsername.remove(username);
+        if (loads != null) {
+          loads.forEach(this::markStale);
+        }
+      }
+    }
+
+    private void clear() {
+      synchronized (entries) {
+        entries.clear();
+        loadsByUsername.values().forEach(loads -> loads.forEach(this::markStale));
+        loadsByUsername.clear();
+      }
+    }
+
+    /**
+     * Stale loads are no more coalesced, so that subsequent lookups call the provider again.
+     */
+    private void markStale(Load<V> load) {
+      load.stale = true;
+      loading.remove(load.loadKey, load);
+    }
+
+    private int size() {
+      synchronized (entries) {
+        return entries.size();
+      }
+    }
+  }
+
+  public static final class Builder {
+    private Duration ttl = Duration.ofMinutes(5);
+    private int maxEntries = 10_000;
+    private System2 system2 = System2.INSTANCE;
+
+    private Builder() {
+      // use SecurityRealmCache.builder()
+    }
+
+    /**
+     * Time-to-live of entries. Default is 5 minutes.
+     */
+    public Builder setTtl(Duration ttl) {
+      requireNonNull(ttl, "TTL can't be null");
+      checkArgument(!ttl.isNegative() && !ttl.isZero(), "TTL must be positive: %s", ttl);
+      this.ttl = ttl;
+      return this;
+    }
+
+    /**
+     * Maximum number of entries of each {@link Kind}. Default is 10,000.
+     */
+    public Builder setMaxEntries(int maxEntries) {
+      checkArgument(maxEntries > 0, "Maximum number of entries must be greater than 0: %s", maxEntries);
+      this.maxEntries = maxEntries;
+      return this;
+    }
+
+    Builder setSystem2(System2 system2) {
+      this.system2 = system2;
+      return this;
+    }
+
+    public SecurityRealmCache build() {
+      return new SecurityRealmCache(this);
+    }
+  }
+}
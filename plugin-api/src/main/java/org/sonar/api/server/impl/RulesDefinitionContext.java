@@ -23,9 +23,9 @@ import static java.util.Collections.unmodifiableList;
 import static org.sonar.api.utils.Preconditions.checkState;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.rule.RuleKey;
@@ -33,10 +33,15 @@ import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.api.server.rule.internal.DefaultNewRepository;
 import org.sonar.api.server.rule.internal.DefaultRepository;
 
+/**
+ * Thread-safe context, so that the {@link RulesDefinition}s of different plugins can be executed concurrently.
+ * The current plugin key is bound to the calling thread: {@link #setCurrentPluginKey(String)} must be called by
+ * the thread that then executes {@link RulesDefinition#define(RulesDefinition.Context)}.
+ */
 public class RulesDefinitionContext extends RulesDefinition.Context {
 
-  private final Map<String, RulesDefinition.Repository> repositoriesByKey = new HashMap<>();
-  private String currentPluginKey = null;
+  private final Map<String, RulesDefinition.Repository> repositoriesByKey = new ConcurrentHashMap<>();
+  private final ThreadLocal<String> currentPluginKey = new ThreadLocal<>();
 
   @Override
   public RulesDefinition.NewRepository createRepository(String key, String language) {
@@ -61,23 +66,30 @@ public class RulesDefinitionContext extends RulesDefinition.Context {
 
   @Override
   public void registerRepository(DefaultNewRepository newRepository) {
-    RulesDefinition.Repository existing = repositoriesByKey.get(newRepository.key());
-    if (existing != null) {
-      String existingLanguage = existing.language();
-      checkState(existingLanguage.equals(newRepository.language()),
-          "The rule repository '%s' must not be defined for two different languages: %s and %s",
-          newRepository.key(), existingLanguage, newRepository.language());
-    }
-    repositoriesByKey.put(newRepository.key(), new DefaultRepository(newRepository, existing));
+    // merging with an existing repository must be atomic, as extended repositories can be registered concurrently
+    repositoriesByKey.compute(newRepository.key(), (key, existing) -> {
+      if (existing != null) {
+        String existingLanguage = existing.language();
+        checkState(existingLanguage.equals(newRepository.language()),
+            "The rule repository '%s' must not be defined for two different languages: %s and %s",
+            newRepository.key(), existingLanguage, newRepository.language());
+      }
+      return new DefaultRepository(newRepository, existing);
+    });
   }
 
   @Override
+  @CheckForNull
   public String currentPluginKey() {
-    return currentPluginKey;
+    return currentPluginKey.get();
   }
 
   @Override
   public void setCurrentPluginKey(@Nullable String pluginKey) {
-    this.currentPluginKey = pluginKey;
+    if (pluginKey == null) {
+      currentPluginKey.remove();
+    } else {
+      currentPluginKey.set(pluginKey);
+    }
   }
 }
@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -561,9 +562,25 @@ public interface RulesDefinition {
     /**
      * Load description from a file available in classpath. Example : <code>setHtmlDescription(getClass().getResource("/myrepo/Rule1234
      * .html")</code>
+     * <br>
+     * Since 13.12, the file is read lazily, as with {@link #setHtmlDescription(Supplier)}: on first call to
+     * {@link Rule#htmlDescription()}. A missing or empty file or JAR entry is still rejected when the rule is registered, but
+     * other read errors fail this first call instead of the registration of the rule.
      */
     public abstract NewRule setHtmlDescription(@Nullable URL classpathUrl);
 
+    /**
+     * Lazily loaded description, in HTML format. The supplier is not called during {@link RulesDefinition#define(Context)}
+     * but on first call to {@link Rule#htmlDescription()}, and its result is cached. It's exclusive with markdown description.
+     * Example : <code>setHtmlDescription(() -&gt; readResource("/myrepo/Rule1234.html"))</code>
+     * <br>
+     * As the description is not read when the repository is registered, a supplier returning an empty value is not
+     * detected by the validation of the rule.
+     *
+     * @since 13.12
+     */
+    public abstract NewRule setHtmlDescription(Supplier<String> supplier);
+
     /**
      * The optional description, in a restricted Markdown format, has no max length. It's exclusive with HTML description
      * (see {@link #setHtmlDescription(String)})
@@ -19,20 +19,19 @@
  */
 package org.sonar.api.server.rule;
 
-import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 import org.apache.commons.lang3.StringUtils;
 import org.sonar.api.rule.RuleStatus;
-import org.sonar.api.utils.AnnotationUtils;
-import org.sonar.api.utils.FieldUtils2;
+import org.sonar.api.rule.internal.CheckMetadata;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.check.Cardinality;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * Read definitions of rules based on the annotations provided by sonar-check-api. It is used
  * to feed {@link RulesDefinition}.
@@ -65,17 +64,18 @@ public class RulesDefinitionAnnotationLoader {
 
   @CheckForNull
   RulesDefinition.NewRule loadRule(RulesDefinition.NewExtendedRepository repo, Class clazz) {
-    org.sonar.check.Rule ruleAnnotation = AnnotationUtils.getAnnotation(clazz, org.sonar.check.Rule.class);
-    if (ruleAnnotation != null) {
-      return loadRule(repo, clazz, ruleAnnotation);
+    CheckMetadata metadata = CheckMetadata.of(clazz);
+    if (metadata.ruleAnnotation() != null) {
+      return loadRule(repo, metadata);
     } else {
       LOG.warn("The class " + clazz.getCanonicalName() + " should be annotated with " + org.sonar.check.Rule.class);
       return null;
     }
   }
 
-  private static RulesDefinition.NewRule loadRule(RulesDefinition.NewExtendedRepository repo, Class clazz, org.sonar.check.Rule ruleAnnotation) {
-    String ruleKey = StringUtils.defaultIfEmpty(ruleAnnotation.key(), clazz.getCanonicalName());
+  private static RulesDefinition.NewRule loadRule(RulesDefinition.NewExtendedRepository repo, CheckMetadata metadata) {
+    org.sonar.check.Rule ruleAnnotation = requireNonNull(metadata.ruleAnnotation());
+    String ruleKey = metadata.ruleKey();
     String ruleName = StringUtils.defaultIfEmpty(ruleAnnotation.name(), null);
     String description = StringUtils.defaultIfEmpty(ruleAnnotation.description(), null);
 
@@ -86,31 +86,27 @@ public class RulesDefinitionAnnotationLoader {
     rule.setStatus(RuleStatus.valueOf(ruleAnnotation.status()));
     rule.setTags(ruleAnnotation.tags());
 
-    List<Field> fields = FieldUtils2.getFields(clazz, true);
-    for (Field field : fields) {
-      loadParameters(rule, field);
+    for (CheckMetadata.PropertyField property : metadata.properties()) {
+      loadParameters(rule, property);
     }
 
     return rule;
   }
 
-  private static void loadParameters(RulesDefinition.NewRule rule, Field field) {
-    org.sonar.check.RuleProperty propertyAnnotation = field.getAnnotation(org.sonar.check.RuleProperty.class);
-    if (propertyAnnotation != null) {
-      String fieldKey = StringUtils.defaultIfEmpty(propertyAnnotation.key(), field.getName());
-      RulesDefinition.NewParam param = rule.createParam(fieldKey)
-        .setDescription(propertyAnnotation.description())
-        .setDefaultValue(propertyAnnotation.defaultValue());
+  private static void loadParameters(RulesDefinition.NewRule rule, CheckMetadata.PropertyField property) {
+    org.sonar.check.RuleProperty propertyAnnotation = property.annotation();
+    RulesDefinition.NewParam param = rule.createParam(property.key())
+      .setDescription(propertyAnnotation.description())
+      .setDefaultValue(propertyAnnotation.defaultValue());
 
-      if (!StringUtils.isBlank(propertyAnnotation.type())) {
-        try {
-          param.setType(RuleParamType.parse(propertyAnnotation.type().trim()));
-        } catch (IllegalArgumentException e) {
-          throw new IllegalArgumentException("Invalid property type [" + propertyAnnotation.type() + "]", e);
-        }
-      } else {
-        param.setType(guessType(field.getType()));
+    if (!StringUtils.isBlank(propertyAnnotation.type())) {
+      try {
+        param.setType(RuleParamType.parse(propertyAnnotation.type().trim()));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Invalid property type [" + propertyAnnotation.type() + "]", e);
       }
+    } else {
+      param.setType(guessType(property.field().getType()));
     }
   }
 
@@ -0,0 +1,252 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.server.rule;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.issue.impact.Severity;
+import org.sonar.api.issue.impact.SoftwareQuality;
+import org.sonar.api.rule.RuleScope;
+import org.sonar.api.rule.RuleStatus;
+import org.sonar.api.rules.CleanCodeAttribute;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.server.debt.DebtRemediationFunction;
+import org.sonarsource.api.sonarlint.SonarLintSide;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Loads definitions of rules from an index generated by {@link RulesDefinitionIndexWriter}, usually
+ * when building the plugin.
+ * <p>
+ * Contrary to {@link RulesDefinitionXmlLoader}, no XML parsing is involved, and HTML descriptions are
+ * only decoded when they are first requested (see {@link RulesDefinition.NewRule#setHtmlDescription(java.util.function.Supplier)}).
+ *
+ * <h3>Usage</h3>
+ * <pre>
+ * public class MyJsRulesDefinition implements RulesDefinition {
+ *
+ *   private static final String PATH = "/my_js.rules";
+ *   private final RulesDefinitionIndexLoader indexLoader;
+ *
+ *   public MyJsRulesDefinition(RulesDefinitionIndexLoader indexLoader) {
+ *     this.indexLoader = indexLoader;
+ *   }
+ *
+ *   {@literal @}Override
+ *   public void define(Context context) {
+ *     try (InputStream input = getClass().getResourceAsStream(PATH)) {
+ *       NewRepository repository = context.createRepository("my_js", "js").setName("My Javascript Analyzer");
+ *       indexLoader.load(repository, input);
+ *       repository.done();
+ *     } catch (IOException e) {
+ *       throw new IllegalStateException(String.format("Fail to read file %s", PATH), e);
+ *     }
+ *   }
+ * }
+ * </pre>
+ *
+ * @since 13.12
+ */
+@ServerSide
+@ComputeEngineSide
+@SonarLintSide
+public class RulesDefinitionIndexLoader {
+
+  static final int MAGIC = 0x534F4E52;
+  static final int VERSION = 2;
+  static final byte DESCRIPTION_NONE = 0;
+  static final byte DESCRIPTION_HTML = 1;
+  static final byte DESCRIPTION_MARKDOWN = 2;
+  static final String STANDARD_OWASP_TOP_10 = "owaspTop10";
+  static final String STANDARD_OWASP_MOBILE_TOP_10 = "owaspMobileTop10";
+  static final String STANDARD_OWASP_LLM_TOP_10 = "owaspLlmTop10";
+  static final String STANDARD_OWASP_ASVS = "owaspAsvs";
+  static final String STANDARD_MASVS = "masvs";
+  static final String STANDARD_PCI_DSS = "pciDss";
+  static final String STANDARD_CWE = "cwe";
+  static final String STANDARD_STIG = "stig";
+
+  /**
+   * Loads rules by reading the index. The input stream is not closed by the method, so it
+   * should be handled by the caller.
+   */
+  public void load(RulesDefinition.NewRepository repo, InputStream input) {
+    try {
+      byte[] index = input.readAllBytes();
+      DataInputStream header = new DataInputStream(new ByteArrayInputStream(index));
+      if (header.readInt() != MAGIC) {
+        throw new IllegalStateException("Rules index is not valid for repository " + repo.key());
+      }
+      int version = header.readInt();
+      if (version != VERSION) {
+        throw new IllegalStateException(format("Unsupported version %d of rules index for repository %s", version, repo.key()));
+      }
+      int descriptionsLength = header.readInt();
+      int descriptionsOffset = 3 * Integer.BYTES;
+      int rulesOffset = descriptionsOffset + descriptionsLength;
+      DataInputStream data = new DataInputStream(new ByteArrayInputStream(index, rulesOffset, index.length - rulesOffset));
+      int nbRules = data.readInt();
+      for (int i = 0; i < nbRules; i++) {
+        readRule(repo, data, index, descriptionsOffset);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Error while reading rules index for repository " + repo.key(), e);
+    }
+  }
+
+  @SuppressWarnings({"removal"})
+  private static void readRule(RulesDefinition.NewRepository repo, DataInputStream data, byte[] index, int descriptionsOffset) throws IOException {
+    String key = readString(data);
+    try {
+      RulesDefinition.NewRule rule = repo.createRule(key)
+        .setName(readString(data))
+        .setSeverity(readString(data))
+        .setType(RuleType.valueOf(readString(data)))
+        .setStatus(RuleStatus.valueOf(readString(data)))
+        .setScope(RuleScope.valueOf(readString(data)));
+      String cleanCodeAttribute = readString(data);
+      if (cleanCodeAttribute != null) {
+        rule.setCleanCodeAttribute(CleanCodeAttribute.valueOf(cleanCodeAttribute));
+      }
+      rule.setInternalKey(readString(data))
+        .setGapDescription(readString(data))
+        .setTemplate(data.readBoolean())
+        .setActivatedByDefault(data.readBoolean());
+
+      byte descriptionFormat = data.readByte();
+      if (descriptionFormat != DESCRIPTION_NONE) {
+        int offset = descriptionsOffset + data.readInt();
+        int length = data.readInt();
+        if (descriptionFormat == DESCRIPTION_HTML) {
+          rule.setHtmlDescription(() -> new String(index, offset, length, UTF_8));
+        } else {
+          rule.setMarkdownDescription(new String(index, offset, length, UTF_8));
+        }
+      }
+
+      String functionType = readString(data);
+      String gapMultiplier = readString(data);
+      String baseEffort = readString(data);
+      if (functionType != null) {
+        rule.setDebtRemediationFunction(rule.debtRemediationFunctions().create(DebtRemediationFunction.Type.valueOf(functionType), gapMultiplier, baseEffort));
+      }
+
+      int nbImpacts = data.readInt();
+      for (int i = 0; i < nbImpacts; i++) {
+        rule.addDefaultImpact(SoftwareQuality.valueOf(readString(data)), Severity.valueOf(readString(data)));
+      }
+      rule.setTags(readStrings(data));
+      int nbSecurityStandards = data.readInt();
+      for (int i = 0; i < nbSecurityStandards; i++) {
+        addSecurityStandard(rule, readString(data), readString(data), readStrings(data));
+      }
+      int nbParams = data.readInt();
+      for (int i = 0; i < nbParams; i++) {
+        rule.createParam(readString(data))
+          .setName(readString(data))
+          .setDescription(readString(data))
+          .setDefaultValue(readString(data))
+          .setType(RuleParamType.parse(readString(data)));
+      }
+      int nbDeprecatedRuleKeys = data.readInt();
+      for (int i = 0; i < nbDeprecatedRuleKeys; i++) {
+        rule.addDeprecatedRuleKey(readString(data), readString(data));
+      }
+      rule.addEducationPrincipleKeys(readStrings(data));
+      int nbSections = data.readInt();
+      for (int i = 0; i < nbSections; i++) {
+        String sectionKey = readString(data);
+        String htmlContent = readString(data);
+        String contextKey = readString(data);
+        String contextDisplayName = readString(data);
+        rule.addDescriptionSection(new RuleDescriptionSectionBuilder()
+          .sectionKey(sectionKey)
+          .htmlContent(htmlContent)
+          .context(contextKey == null ? null : new Context(contextKey, contextDisplayName))
+          .build());
+      }
+    } catch (RuntimeException e) {
+      throw new IllegalStateException(format("Fail to load the rule with key [%s:%s]", repo.key(), key), e);
+    }
+  }
+
+  private static void addSecurityStandard(RulesDefinition.NewRule rule, String standard, @Nullable String version, String[] values) {
+    switch (standard) {
+      case STANDARD_OWASP_TOP_10:
+        rule.addOwaspTop10(RulesDefinition.OwaspTop10Version.valueOf(version),
+          Arrays.stream(values).map(v -> RulesDefinition.OwaspTop10.valueOf(v.toUpperCase(Locale.ENGLISH))).toArray(RulesDefinition.OwaspTop10[]::new));
+        break;
+      case STANDARD_OWASP_MOBILE_TOP_10:
+        rule.addOwaspMobileTop10(RulesDefinition.OwaspMobileTop10Version.valueOf(version),
+          Arrays.stream(values).map(v -> RulesDefinition.OwaspMobileTop10.valueOf(v.toUpperCase(Locale.ENGLISH))).toArray(RulesDefinition.OwaspMobileTop10[]::new));
+        break;
+      case STANDARD_OWASP_LLM_TOP_10:
+        rule.addOwaspLlmTop10(RulesDefinition.OwaspLlmTop10Version.valueOf(version),
+          Arrays.stream(values).map(v -> RulesDefinition.OwaspLlmTop10.valueOf(v.toUpperCase(Locale.ENGLISH))).toArray(RulesDefinition.OwaspLlmTop10[]::new));
+        break;
+      case STANDARD_OWASP_ASVS:
+        rule.addOwaspAsvs(RulesDefinition.OwaspAsvsVersion.valueOf(version), values);
+        break;
+      case STANDARD_MASVS:
+        rule.addMasvs(RulesDefinition.MasvsVersion.valueOf(version), values);
+        break;
+      case STANDARD_PCI_DSS:
+        rule.addPciDss(RulesDefinition.PciDssVersion.valueOf(version), values);
+        break;
+      case STANDARD_CWE:
+        rule.addCwe(Arrays.stream(values).mapToInt(Integer::parseInt).toArray());
+        break;
+      case STANDARD_STIG:
+        rule.addStig(RulesDefinition.StigVersion.valueOf(version), values);
+        break;
+      default:
+        throw new IllegalStateException("Unsupported security standard: " + standard);
+    }
+  }
+
+  private static String[] readStrings(DataInputStream data) throws IOException {
+    String[] values = new String[data.readInt()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = readString(data);
+    }
+    return values;
+  }
+
+  @CheckForNull
+  private static String readString(DataInputStream data) throws IOException {
+    int length = data.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    data.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.server.rule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import org.sonar.api.issue.impact.Severity;
+import org.sonar.api.issue.impact.SoftwareQuality;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.server.debt.DebtRemediationFunction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.DESCRIPTION_HTML;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.DESCRIPTION_MARKDOWN;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.DESCRIPTION_NONE;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.MAGIC;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.STANDARD_CWE;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.STANDARD_MASVS;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.STANDARD_OWASP_ASVS;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.STANDARD_OWASP_LLM_TOP_10;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.STANDARD_OWASP_MOBILE_TOP_10;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.STANDARD_OWASP_TOP_10;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.STANDARD_PCI_DSS;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.STANDARD_STIG;
+import static org.sonar.api.server.rule.RulesDefinitionIndexLoader.VERSION;
+import static org.sonar.api.utils.Preconditions.checkArgument;
+
+/**
+ * Writes the rules of a repository in the compact binary format read by {@link RulesDefinitionIndexLoader}.
+ * <p>
+ * This class is intended to be executed when building a plugin, for example from a Gradle or Maven task
+ * that executes the {@link RulesDefinition} of the plugin (loading rules from XML files, {@link org.sonar.check.Rule}
+ * annotations and description resources) and stores the result as a resource of the plugin JAR.
+ * The analyzer then loads the index at runtime, without parsing XML, scanning annotations nor reading descriptions.
+ *
+ * <h3>Usage</h3>
+ * <pre>
+ * RulesDefinition.Context context = new RulesDefinitionContext();
+ * new MyJsRulesDefinition().define(context);
+ * try (OutputStream output = Files.newOutputStream(Paths.get("build/resources/main/my_js.rules"))) {
+ *   new RulesDefinitionIndexWriter().write(context.repository("my_js"), output);
+ * }
+ * </pre>
+ *
+ * @since 13.12
+ */
+public class RulesDefinitionIndexWriter {
+
+  private static final Map<String, StandardVersion> STANDARD_VERSIONS_BY_PREFIX = standardVersionsByPrefix();
+
+  /**
+   * Writes the rules of the repository. The output stream is not closed by the method, so it
+   * should be handled by the caller.
+   *
+   * @throws IllegalArgumentException if a rule can't be stored in the index
+   */
+  @SuppressWarnings({"removal"})
+  public void write(RulesDefinition.Repository repository, OutputStream output) {
+    try {
+      ByteArrayOutputStream descriptions = new ByteArrayOutputStream();
+      ByteArrayOutputStream rules = new ByteArrayOutputStream();
+      DataOutputStream rulesOutput = new DataOutputStream(rules);
+      rulesOutput.writeInt(repository.rules().size());
+      for (RulesDefinition.Rule rule : repository.rules()) {
+        writeRule(rule, rulesOutput, descriptions);
+      }
+      rulesOutput.flush();
+
+      DataOutputStream dataOutput = new DataOutputStream(output);
+      dataOutput.writeInt(MAGIC);
+      dataOutput.writeInt(VERSION);
+      dataOutput.writeInt(descriptions.size());
+      descriptions.writeTo(dataOutput);
+      rules.writeTo(dataOutput);
+      dataOutput.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write rules index of repository " + repository.key(), e);
+    }
+  }
+
+  @SuppressWarnings({"removal"})
+  private static void writeRule(RulesDefinition.Rule rule, DataOutputStream output, ByteArrayOutputStream descriptions) throws IOException {
+    writeString(output, rule.key());
+    writeString(output, rule.name());
+    writeString(output, rule.severity());
+    writeString(output, rule.type().name());
+    writeString(output, rule.status().name());
+    writeString(output, rule.scope().name());
+    writeString(output, rule.cleanCodeAttribute() == null ? null : rule.cleanCodeAttribute().name());
+    writeString(output, rule.internalKey());
+    writeString(output, rule.gapDescription());
+    output.writeBoolean(rule.template());
+    output.writeBoolean(rule.activatedByDefault());
+
+    if (rule.htmlDescription() != null) {
+      writeDescription(output, descriptions, DESCRIPTION_HTML, rule.htmlDescription());
+    } else if (rule.markdownDescription() != null) {
+      writeDescription(output, descriptions, DESCRIPTION_MARKDOWN, rule.markdownDescription());
+    } else {
+      output.writeByte(DESCRIPTION_NONE);
+    }
+
+    DebtRemediationFunction function = rule.debtRemediationFunction();
+    writeString(output, function == null ? null : function.type().name());
+    writeString(output, function == null ? null : function.gapMultiplier());
+    writeString(output, function == null ? null : function.baseEffort());
+
+    output.writeInt(rule.defaultImpacts().size());
+    for (Map.Entry<SoftwareQuality, Severity> impact : rule.defaultImpacts().entrySet()) {
+      writeString(output, impact.getKey().name());
+      writeString(output, impact.getValue().name());
+    }
+    writeStrings(output, rule.tags());
+    writeSecurityStandards(output, rule);
+    output.writeInt(rule.params().size());
+    for (RulesDefinition.Param param : rule.params()) {
+      writeString(output, param.key());
+      writeString(output, param.name());
+      writeString(output, param.description());
+      writeString(output, param.defaultValue());
+      writeString(output, param.type().toString());
+    }
+    output.writeInt(rule.deprecatedRuleKeys().size());
+    for (RuleKey deprecatedRuleKey : rule.deprecatedRuleKeys()) {
+      writeString(output, deprecatedRuleKey.repository());
+      writeString(output, deprecatedRuleKey.rule());
+    }
+    writeStrings(output, rule.educationPrincipleKeys());
+    output.writeInt(rule.ruleDescriptionSections().size());
+    for (RuleDescriptionSection section : rule.ruleDescriptionSections()) {
+      writeString(output, section.getKey());
+      writeString(output, section.getHtmlContent());
+      Optional<Context> context = section.getContext();
+      writeString(output, context.map(Context::getKey).orElse(null));
+      writeString(output, context.map(Context::getDisplayName).orElse(null));
+    }
+  }
+
+  /**
+   * Security standards are stored by the rule as "prefix:value" strings. They are grouped by standard and version,
+   * so that the loader can replay them through the typed setters of {@link RulesDefinition.NewRule}.
+   */
+  private static void writeSecurityStandards(DataOutputStream output, RulesDefinition.Rule rule) throws IOException {
+    Map<StandardVersion, List<String>> valuesByStandardVersion = new LinkedHashMap<>();
+    for (String securityStandard : rule.securityStandards()) {
+      int separator = securityStandard.indexOf(':');
+      StandardVersion standardVersion = separator < 0 ? null : STANDARD_VERSIONS_BY_PREFIX.get(securityStandard.substring(0, separator));
+      checkArgument(standardVersion != null, "Security standard %s of rule %s can't be stored in a rules index", securityStandard, rule);
+      valuesByStandardVersion.computeIfAbsent(standardVersion, k -> new ArrayList<>()).add(securityStandard.substring(separator + 1));
+    }
+    output.writeInt(valuesByStandardVersion.size());
+    for (Map.Entry<StandardVersion, List<String>> entry : valuesByStandardVersion.entrySet()) {
+      writeString(output, entry.getKey().standard);
+      writeString(output, entry.getKey().version);
+      writeStrings(output, entry.getValue());
+    }
+  }
+
+  private static Map<String, StandardVersion> standardVersionsByPrefix() {
+    Map<String, StandardVersion> map = new HashMap<>();
+    for (RulesDefinition.OwaspTop10Version version : RulesDefinition.OwaspTop10Version.values()) {
+      map.put(version.prefix(), new StandardVersion(STANDARD_OWASP_TOP_10, version.name()));
+    }
+    for (RulesDefinition.OwaspMobileTop10Version version : RulesDefinition.OwaspMobileTop10Version.values()) {
+      map.put(version.prefix(), new StandardVersion(STANDARD_OWASP_MOBILE_TOP_10, version.name()));
+    }
+    for (RulesDefinition.OwaspLlmTop10Version version : RulesDefinition.OwaspLlmTop10Version.values()) {
+      map.put(version.prefix(), new StandardVersion(STANDARD_OWASP_LLM_TOP_10, version.name()));
+    }
+    for (RulesDefinition.OwaspAsvsVersion version : RulesDefinition.OwaspAsvsVersion.values()) {
+      map.put(version.prefix(), new StandardVersion(STANDARD_OWASP_ASVS, version.name()));
+    }
+    for (RulesDefinition.MasvsVersion version : RulesDefinition.MasvsVersion.values()) {
+      map.put(version.prefix(), new StandardVersion(STANDARD_MASVS, version.name()));
+    }
+    for (RulesDefinition.PciDssVersion version : RulesDefinition.PciDssVersion.values()) {
+      map.put(version.prefix(), new StandardVersion(STANDARD_PCI_DSS, version.name()));
+    }
+    for (RulesDefinition.StigVersion version : RulesDefinition.StigVersion.values()) {
+      map.put(version.prefix(), new StandardVersion(STANDARD_STIG, version.name()));
+    }
+    map.put("cwe", new StandardVersion(STANDARD_CWE, null));
+    return map;
+  }
+
+  private static final class StandardVersion {
+    private final String standard;
+    @Nullable
+    private final String version;
+
+    private StandardVersion(String standard, @Nullable String version) {
+      this.standard = standard;
+      this.version = version;
+    }
+  }
+
+  private static void writeDescription(DataOutputStream output, ByteArrayOutputStream descriptions, byte format, String description) throws IOException {
+    byte[] bytes = description.getBytes(UTF_8);
+    output.writeByte(format);
+    output.writeInt(descriptions.size());
+    output.writeInt(bytes.length);
+    descriptions.write(bytes);
+  }
+
+  private static void writeStrings(DataOutputStream output, Collection<String> values) throws IOException {
+    output.writeInt(values.size());
+    for (String value : values) {
+      writeString(output, value);
+    }
+  }
+
+  private static void writeString(DataOutputStream output, @Nullable String value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+}
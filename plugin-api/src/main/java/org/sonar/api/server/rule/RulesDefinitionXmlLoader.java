@@ -198,6 +198,9 @@ public class RulesDefinitionXmlLoader {
     HTML, MARKDOWN
   }
 
+  // looking up the StAX implementation is costly, so the factory is created once and shared by all the loads
+  private final XMLInputFactory xmlFactory = newXmlFactory();
+
   /**
    * Loads rules by reading the XML input stream. The input stream is not always closed by the method, so it
    * should be handled by the caller.
@@ -228,12 +231,6 @@ public class RulesDefinitionXmlLoader {
    * @since 4.3
    */
   public void load(RulesDefinition.NewRepository repo, Reader inputReader) {
-    XMLInputFactory xmlFactory = XMLInputFactory.newInstance();
-    xmlFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
-    xmlFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
-    // just so it won't try to load DTD in if there's DOCTYPE
-    xmlFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
-    xmlFactory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
     try {
       final XMLEventReader reader = xmlFactory.createXMLEventReader(inputReader);
       while (reader.hasNext()) {
@@ -248,6 +245,16 @@ public class RulesDefinitionXmlLoader {
     }
   }
 
+  private static XMLInputFactory newXmlFactory() {
+    XMLInputFactory xmlFactory = XMLInputFactory.newInstance();
+    xmlFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    xmlFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+    // just so it won't try to load DTD in if there's DOCTYPE
+    xmlFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    xmlFactory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+    return xmlFactory;
+  }
+
   private static void parseRules(RulesDefinition.NewRepository repo, XMLEventReader reader) throws XMLStreamException {
     while (reader.hasNext()) {
       final XMLEvent event = reader.nextEvent();
@@ -20,7 +20,11 @@
 package org.sonar.api.server.rule.internal;
 
 import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -32,6 +36,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -90,6 +95,7 @@ class DefaultNewRule extends RulesDefinition.NewRule {
   private CleanCodeAttribute attribute;
   private String name;
   private String htmlDescription;
+  private LazyDescription lazyHtmlDescription;
   private String markdownDescription;
   private String internalKey;
   private String severity;
@@ -223,28 +229,69 @@ class DefaultNewRule extends RulesDefinition.NewRule {
   public DefaultNewRule setHtmlDescription(@Nullable String s) {
     checkState(markdownDescription == null, "Rule '%s' already has a Markdown description", this);
     this.htmlDescription = trimToNull(s);
+    this.lazyHtmlDescription = null;
+    return this;
+  }
+
+  @Override
+  public DefaultNewRule setHtmlDescription(Supplier<String> supplier) {
+    requireNonNull(supplier, "HTML description supplier must not be null");
+    checkState(markdownDescription == null, "Rule '%s' already has a Markdown description", this);
+    this.htmlDescription = null;
+    this.lazyHtmlDescription = new LazyDescription(supplier);
     return this;
   }
 
   @Override
   public DefaultNewRule setHtmlDescription(@Nullable URL classpathUrl) {
     if (classpathUrl != null) {
-      try {
-        setHtmlDescription(IOUtils.toString(classpathUrl, UTF_8));
-      } catch (IOException e) {
-        throw new IllegalStateException("Fail to read: " + classpathUrl, e);
+      if (sizeOf(classpathUrl) == 0L) {
+        // no description, which is rejected when the rule is validated
+        setHtmlDescription((String) null);
+      } else {
+        // the resource is read on first access to the description
+        setHtmlDescription(() -> read(classpathUrl));
       }
     } else {
       this.htmlDescription = null;
+      this.lazyHtmlDescription = null;
     }
     return this;
   }
 
+  /**
+   * Fails if the resource does not exist, without reading it, when it is a file or a JAR entry.
+   *
+   * @return the size of the resource, or -1 if it can't be known without reading it
+   */
+  private static long sizeOf(URL url) {
+    try {
+      switch (url.getProtocol()) {
+        case "file":
+          return Files.size(Paths.get(url.toURI()));
+        case "jar":
+          return ((JarURLConnection) url.openConnection()).getJarEntry().getSize();
+        default:
+          return -1L;
+      }
+    } catch (IOException | URISyntaxException e) {
+      throw new IllegalStateException("Fail to read: " + url, e);
+    }
+  }
+
+  private static String read(URL url) {
+    try {
+      return IOUtils.toString(url, UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read: " + url, e);
+    }
+  }
+
   @Override
   @Deprecated(since = "9.6", forRemoval = true)
   @SuppressWarnings({"removal"})
   public DefaultNewRule setMarkdownDescription(@Nullable String s) {
-    checkState(htmlDescription == null, "Rule '%s' already has an HTML description", this);
+    checkState(htmlDescription == null && lazyHtmlDescription == null, "Rule '%s' already has an HTML description", this);
     this.markdownDescription = trimToNull(s);
     return this;
   }
@@ -427,7 +474,7 @@ class DefaultNewRule extends RulesDefinition.NewRule {
     if (isEmpty(name)) {
       throw new IllegalStateException(format("Name of rule %s is empty", this));
     }
-    if (isEmpty(htmlDescription) && isEmpty(markdownDescription)) {
+    if (isEmpty(htmlDescription) && lazyHtmlDescription == null && isEmpty(markdownDescription)) {
       throw new IllegalStateException(format("One of HTML description or Markdown description must be defined for rule %s", this));
     }
     if (type != null && type.equals(SECURITY_HOTSPOT)){
@@ -503,8 +550,20 @@ class DefaultNewRule extends RulesDefinition.NewRule {
     return Collections.unmodifiableSet(educationPrincipleKeys);
   }
 
+  @CheckForNull
   String htmlDescription() {
-    return htmlDescription;
+    return lazyHtmlDescription == null ? htmlDescription : lazyHtmlDescription.get();
+  }
+
+  /**
+   * Unlike {@link #htmlDescription()}, does not resolve the description when it is lazily loaded.
+   */
+  Supplier<String> htmlDescriptionSupplier() {
+    if (lazyHtmlDescription != null) {
+      return lazyHtmlDescription;
+    }
+    String description = htmlDescription;
+    return () -> description;
   }
 
   @Deprecated(since = "9.6", forRemoval = true)
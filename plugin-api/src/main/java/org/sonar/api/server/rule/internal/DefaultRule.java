@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Supplier;
 import javax.annotation.CheckForNull;
 import javax.annotation.concurrent.Immutable;
 import org.sonar.api.issue.impact.Severity;
@@ -53,7 +54,7 @@ public class DefaultRule extends RulesDefinition.Rule {
   private final String name;
   private final RuleType type;
   private final CleanCodeAttribute cleanCodeAttribute;
-  private final String htmlDescription;
+  private final Supplier<String> htmlDescription;
   private final String markdownDescription;
   private final String internalKey;
   private final String severity;
@@ -78,7 +79,7 @@ public class DefaultRule extends RulesDefinition.Rule {
     this.repoKey = newRule.repoKey();
     this.key = newRule.key();
     this.name = newRule.name();
-    this.htmlDescription = newRule.htmlDescription();
+    this.htmlDescription = newRule.htmlDescriptionSupplier();
     this.markdownDescription = newRule.markdownDescription();
     this.internalKey = newRule.internalKey();
     this.template = newRule.template();
@@ -206,7 +207,7 @@ public class DefaultRule extends RulesDefinition.Rule {
   @Override
   @CheckForNull
   public String htmlDescription() {
-    return htmlDescription;
+    return htmlDescription.get();
   }
 
   /**
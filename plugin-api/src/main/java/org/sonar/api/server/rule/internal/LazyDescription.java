@@ -0,0 +1,56 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.server.rule.internal;
+
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static org.apache.commons.lang3.StringUtils.trimToNull;
+
+/**
+ * Description resolved on first access, then cached. The supplier is called at most once, even when
+ * the description is read concurrently.
+ */
+@ThreadSafe
+class LazyDescription implements Supplier<String> {
+
+  private final Supplier<String> delegate;
+  private volatile boolean resolved;
+  private String value;
+
+  LazyDescription(Supplier<String> delegate) {
+    this.delegate = delegate;
+  }
+
+  @CheckForNull
+  @Override
+  public String get() {
+    if (!resolved) {
+      synchronized (this) {
+        if (!resolved) {
+          value = trimToNull(delegate.get());
+          resolved = true;
+        }
+      }
+    }
+    return value;
+  }
+}
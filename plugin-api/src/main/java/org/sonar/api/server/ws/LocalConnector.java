@@ -19,12 +19,16 @@
  */
 package org.sonar.api.server.ws;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import javax.annotation.CheckForNull;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * This class allows a web service to call another web service through the sonar-ws library.
  * The call is in-process, synchronous and does not involve the HTTP stack.
@@ -51,6 +55,10 @@ import javax.annotation.CheckForNull;
  *     &lt;artifactId&gt;sonar-ws&lt;/artifactId&gt;
  *   &lt;/dependency&gt;
  * </pre>
+ * <p>
+ * Callers that only need the result of the called web service, and not its wire format, should prefer
+ * {@link #call(LocalRequest, Class, Function)}. When the called handler supports it (see {@link Response#acceptsObjectResult()}),
+ * the result is passed as is, without being encoded then decoded.
  *
  * @since 5.5
  */
@@ -58,6 +66,31 @@ public interface LocalConnector {
 
   LocalResponse call(LocalRequest request);
 
+  /**
+   * Calls a web service and returns its result as an instance of {@code resultType}.
+   * <p>
+   * The called handler is told that an object result is accepted. If it provides one of the expected type
+   * (see {@link Response#setObjectResult(Object)}), it is returned directly. Otherwise, for instance when the handler
+   * only writes its response to the stream, {@code wireDecoder} is applied on the response, as it would be done by a
+   * caller of {@link #call(LocalRequest)}.
+   * <p>
+   * The returned object is shared with the called handler, so it must not be modified by the caller.
+   *
+   * @param wireDecoder decodes the response when no object result is available. It can access the response body
+   *                    with {@link LocalResponse#getByteBuffer()} to avoid copying it.
+   * @since 13.12
+   */
+  default <T> T call(LocalRequest request, Class<T> resultType, Function<LocalResponse, T> wireDecoder) {
+    requireNonNull(resultType, "Result type can't be null");
+    requireNonNull(wireDecoder, "Wire decoder can't be null");
+    LocalResponse response = call(new ObjectResultLocalRequest(request));
+    Object result = response.getObjectResult();
+    if (resultType.isInstance(result)) {
+      return resultType.cast(result);
+    }
+    return wireDecoder.apply(response);
+  }
+
   interface LocalRequest {
     /**
      * URL path, which is the concatenation of controller path and action key, for example "api/issues/search"
@@ -102,6 +135,18 @@ public interface LocalConnector {
     Optional<String> getHeader(String name);
 
     Map<String,String[]> getParameterMap();
+
+    /**
+     * Whether the caller accepts the result of the handler as an object, instead of an encoded response body.
+     * When {@code true}, implementations of {@link LocalConnector} must report it through
+     * {@link Response#acceptsObjectResult()}.
+     *
+     * @see LocalConnector#call(LocalRequest, Class, Function)
+     * @since 13.12
+     */
+    default boolean acceptsObjectResult() {
+      return false;
+    }
   }
 
   interface LocalResponse {
@@ -120,6 +165,27 @@ public interface LocalConnector {
      */
     byte[] getBytes();
 
+    /**
+     * Read-only view of the response body. Contrary to {@link #getBytes()}, implementations are
+     * not required to copy the body, which can be large.
+     *
+     * @since 13.12
+     */
+    default ByteBuffer getByteBuffer() {
+      return ByteBuffer.wrap(getBytes()).asReadOnlyBuffer();
+    }
+
+    /**
+     * The result set by the handler with {@link Response#setObjectResult(Object)}, if the request
+     * {@link LocalRequest#acceptsObjectResult() accepted one}. In this case the response body is usually empty.
+     *
+     * @since 13.12
+     */
+    @CheckForNull
+    default Object getObjectResult() {
+      return null;
+    }
+
     /**
      * HTTP headers
      *
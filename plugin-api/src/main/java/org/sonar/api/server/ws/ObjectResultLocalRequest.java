@@ -0,0 +1,88 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.server.ws;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import org.sonar.api.server.ws.LocalConnector.LocalRequest;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Wraps a {@link LocalRequest} to declare that an object result is accepted.
+ *
+ * @see LocalConnector#call(LocalRequest, Class, java.util.function.Function)
+ */
+class ObjectResultLocalRequest implements LocalRequest {
+
+  private final LocalRequest delegate;
+
+  ObjectResultLocalRequest(LocalRequest delegate) {
+    this.delegate = requireNonNull(delegate, "Request can't be null");
+  }
+
+  @Override
+  public String getPath() {
+    return delegate.getPath();
+  }
+
+  @Override
+  public String getMediaType() {
+    return delegate.getMediaType();
+  }
+
+  @Override
+  public String getMethod() {
+    return delegate.getMethod();
+  }
+
+  @Override
+  public boolean hasParam(String key) {
+    return delegate.hasParam(key);
+  }
+
+  @CheckForNull
+  @Override
+  public String getParam(String key) {
+    return delegate.getParam(key);
+  }
+
+  @Override
+  public List<String> getMultiParam(String key) {
+    return delegate.getMultiParam(key);
+  }
+
+  @Override
+  public Optional<String> getHeader(String name) {
+    return delegate.getHeader(name);
+  }
+
+  @Override
+  public Map<String, String[]> getParameterMap() {
+    return delegate.getParameterMap();
+  }
+
+  @Override
+  public boolean acceptsObjectResult() {
+    return true;
+  }
+}
@@ -65,6 +65,37 @@ public interface Response {
 
   Stream stream();
 
+  /**
+   * Whether the response can be an object, set with {@link #setObjectResult(Object)}, instead of being written.
+   * This is only the case of in-process calls made with {@link LocalConnector#call(LocalConnector.LocalRequest, Class, java.util.function.Function)}.
+   * <p>
+   * Example:
+   * <pre>
+   * SearchWsResponse result = search(request);
+   * if (response.acceptsObjectResult()) {
+   *   response.setObjectResult(result);
+   * } else {
+   *   writeProtobuf(result, request, response);
+   * }
+   * </pre>
+   *
+   * @since 13.12
+   */
+  default boolean acceptsObjectResult() {
+    return false;
+  }
+
+  /**
+   * Sets the result of the request, that is passed to the caller without being encoded. The result
+   * is shared with the caller, so it should not be modified afterwards.
+   *
+   * @throws UnsupportedOperationException if {@link #acceptsObjectResult()} is {@code false}
+   * @since 13.12
+   */
+  default void setObjectResult(Object result) {
+    throw new UnsupportedOperationException("Object results are not accepted by the caller of this request");
+  }
+
   /**
    * The list of content types doesn't necessarily need to correspond to the ones defined in RFC2046.
    */
@@ -0,0 +1,100 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.web;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import org.sonar.api.server.http.HttpRequest;
+import org.sonar.api.server.http.HttpResponse;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Asynchronous counterpart of {@link FilterChain}, used by {@link AsyncHttpFilter}s to invoke the next filter in the chain,
+ * or the resource at the end of the chain.
+ *
+ * @see AsyncHttpFilter
+ * @since 13.12
+ */
+@FunctionalInterface
+public interface AsyncFilterChain {
+
+  /**
+   * Causes the next filter in the chain to be invoked, or if the calling filter is the last filter
+   * in the chain, causes the resource at the end of the chain to be invoked.
+   *
+   * @return a stage completed when the rest of the chain is done
+   */
+  CompletionStage<Void> doFilter(HttpRequest request, HttpResponse response);
+
+  /**
+   * Chains filters in the given order, followed by {@code last}. As for {@link HttpFilter}, a filter is skipped if its
+   * {@link AsyncHttpFilter#doGetPattern() pattern} doesn't match the path of the request, relative to the context path.
+   * A filter throwing an exception instead of returning a stage results in a failed stage.
+   */
+  static AsyncFilterChain of(List<? extends AsyncHttpFilter> filters, AsyncFilterChain last) {
+    requireNonNull(last, "Last element of the chain can't be null");
+    AsyncFilterChain chain = last;
+    List<AsyncHttpFilter> reversed = new ArrayList<>(filters);
+    for (int i = reversed.size() - 1; i >= 0; i--) {
+      AsyncHttpFilter filter = requireNonNull(reversed.get(i), "Filter can't be null");
+      UrlPattern pattern = filter.doGetPattern();
+      AsyncFilterChain next = chain;
+      chain = (request, response) -> {
+        if (!pattern.matches(path(request))) {
+          return next.doFilter(request, response);
+        }
+        try {
+          return filter.doFilter(request, response, next);
+        } catch (RuntimeException e) {
+          return CompletableFuture.failedFuture(e);
+        }
+      };
+    }
+    return chain;
+  }
+
+  /**
+   * Adapts a blocking {@link FilterChain}, for instance the resource at the end of the chain, by executing it with the
+   * given executor. The executor may run tasks on virtual threads when the runtime supports them.
+   */
+  static AsyncFilterChain fromBlocking(FilterChain chain, Executor executor) {
+    requireNonNull(chain, "Filter chain can't be null");
+    requireNonNull(executor, "Executor can't be null");
+    return (request, response) -> CompletableFuture.runAsync(() -> {
+      try {
+        chain.doFilter(request, response);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, executor);
+  }
+
+  private static String path(HttpRequest request) {
+    String uri = request.getRequestURI();
+    String contextPath = request.getContextPath();
+    return contextPath != null && uri.startsWith(contextPath) ? uri.substring(contextPath.length()) : uri;
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.web;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import org.sonar.api.ExtensionPoint;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.server.http.HttpRequest;
+import org.sonar.api.server.http.HttpResponse;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Asynchronous counterpart of {@link HttpFilter}, for filters that wait for I/O, such as token introspection, rate-limit
+ * lookups or audit logging. Instead of holding the request thread until the rest of the chain is done, {@link #doFilter}
+ * returns a {@link CompletionStage}: the filter can start its I/O, return, and continue the chain when the I/O completes,
+ * from any thread.
+ * <p>
+ * Filters must not block in {@link #doFilter}: blocking work should be submitted to an executor, for instance one running
+ * tasks on virtual threads when the runtime supports them, and composed with the returned stage.
+ * <pre>
+ *   public CompletionStage&lt;Void&gt; doFilter(HttpRequest request, HttpResponse response, AsyncFilterChain chain) {
+ *     return tokenService.introspect(request.getHeader("Authorization"))
+ *       .thenCompose(token -&gt; {
+ *         if (!token.isValid()) {
+ *           response.setStatus(401);
+ *           return CompletableFuture.completedFuture(null);
+ *         }
+ *         return chain.doFilter(request, response);
+ *       });
+ *   }
+ * </pre>
+ * As for {@link HttpFilter}, the URLs the filter applies to are defined by {@link #doGetPattern()}.
+ *
+ * @since 13.12
+ */
+@ServerSide
+@ExtensionPoint
+public abstract class AsyncHttpFilter {
+
+  /**
+   * This method is called exactly once after instantiating the filter. The init
+   * method must complete successfully before the filter is asked to do any
+   * filtering work.
+   */
+  public void init() {
+  }
+
+  /**
+   * Same as {@link HttpFilter#doFilter(HttpRequest, HttpResponse, FilterChain)}, but the request processing is done when
+   * the returned stage completes. Either return the stage of {@code chain.doFilter(..)}, possibly composed with
+   * additional work, or a stage completed without invoking the chain to block the request processing.
+   */
+  public abstract CompletionStage<Void> doFilter(HttpRequest request, HttpResponse response, AsyncFilterChain chain);
+
+  /**
+   * Called to indicate to a filter that it is being taken out of service, once all the stages returned by
+   * {@link #doFilter} are completed or after a timeout period has passed.
+   */
+  public void destroy() {
+  }
+
+  /**
+   * Override to change URL. Default is /*
+   */
+  public UrlPattern doGetPattern() {
+    return UrlPattern.builder().build();
+  }
+
+  /**
+   * Adapts a blocking {@link HttpFilter}, so that blocking and asynchronous filters can be chained together. The blocking
+   * filter is executed with the given executor, and waits on that executor for the rest of the chain. The executor should
+   * therefore not be bounded, and may run tasks on virtual threads when the runtime supports them.
+   */
+  public static AsyncHttpFilter fromBlocking(HttpFilter filter, Executor executor) {
+    requireNonNull(filter, "Filter can't be null");
+    requireNonNull(executor, "Executor can't be null");
+    return new AsyncHttpFilter() {
+      @Override
+      public void init() {
+        filter.init();
+      }
+
+      @Override
+      public CompletionStage<Void> doFilter(HttpRequest request, HttpResponse response, AsyncFilterChain chain) {
+        return CompletableFuture.runAsync(() -> {
+          try {
+            filter.doFilter(request, response, (req, res) -> await(chain.doFilter(req, res)));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }, executor);
+      }
+
+      @Override
+      public void destroy() {
+        filter.destroy();
+      }
+
+      @Override
+      public UrlPattern doGetPattern() {
+        return filter.doGetPattern();
+      }
+    };
+  }
+
+  private static void await(CompletionStage<Void> stage) throws IOException {
+    try {
+      stage.toCompletableFuture().join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api;
+
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PluginTest {
+
+  private static final LazyExtension SERVER_EXTENSION = LazyExtension.builder("java.util.ArrayList").onlyOn(SonarQubeSide.SERVER).build();
+  private static final LazyExtension SONARLINT_EXTENSION = LazyExtension.builder("com.acme.Missing").onlyFor(SonarProduct.SONARLINT).build();
+
+  @Test
+  public void lazy_extensions_are_kept_only_if_they_apply_to_runtime() {
+    Plugin.Context context = new Plugin.Context(runtime(SonarProduct.SONARQUBE, SonarQubeSide.SERVER));
+
+    context.addExtension("eager")
+      .addExtension(SERVER_EXTENSION)
+      .addExtensions(List.of(SONARLINT_EXTENSION, "other"));
+
+    assertThat(context.getExtensions()).containsExactly("eager", "other");
+    assertThat(context.getLazyExtensions()).containsExactly(SERVER_EXTENSION);
+    assertThat(context.getDroppedLazyExtensionCount()).isOne();
+  }
+
+  @Test
+  public void lazy_extension_restricted_to_sides_does_not_apply_to_sonarlint() {
+    SonarRuntime sonarLint = mock(SonarRuntime.class);
+    when(sonarLint.getProduct()).thenReturn(SonarProduct.SONARLINT);
+    when(sonarLint.getSonarQubeSide()).thenThrow(new UnsupportedOperationException());
+
+    assertThat(SERVER_EXTENSION.appliesTo(sonarLint)).isFalse();
+    assertThat(SONARLINT_EXTENSION.appliesTo(sonarLint)).isTrue();
+    assertThat(LazyExtension.builder("com.acme.Any").build().appliesTo(sonarLint)).isTrue();
+  }
+
+  @Test
+  public void lazy_extension_class_is_loaded_on_demand() {
+    assertThat(SERVER_EXTENSION.load(getClass().getClassLoader())).isEqualTo(java.util.ArrayList.class);
+    assertThatThrownBy(() -> SONARLINT_EXTENSION.load(getClass().getClassLoader()))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Class of lazy extension not found: com.acme.Missing");
+  }
+
+  @Test
+  public void profile_plugin_definition() {
+    Plugin.Context context = new Plugin.Context(runtime(SonarProduct.SONARQUBE, SonarQubeSide.SCANNER));
+    Plugin plugin = ctx -> ctx.addExtensions("first", "second").addExtension(SERVER_EXTENSION);
+
+    PluginStartupProfile profile = PluginStartupProfile.define("acme", plugin, context);
+    profile.recordInstantiation(1_000_000L);
+    profile.recordInstantiation(2_000_000L);
+
+    assertThat(profile.pluginKey()).isEqualTo("acme");
+    assertThat(profile.defineNanos()).isNotNegative();
+    assertThat(profile.loadedClasses()).isNotNegative();
+    assertThat(profile.extensions()).isEqualTo(2);
+    assertThat(profile.lazyExtensions()).isZero();
+    assertThat(profile.droppedLazyExtensions()).isOne();
+    assertThat(profile.instantiatedExtensions()).isEqualTo(2);
+    assertThat(profile.instantiationNanos()).isEqualTo(3_000_000L);
+    assertThat(profile.toString()).startsWith("Plugin acme: define ");
+  }
+
+  private static SonarRuntime runtime(SonarProduct product, SonarQubeSide side) {
+    SonarRuntime runtime = mock(SonarRuntime.class);
+    when(runtime.getProduct()).thenReturn(product);
+    when(runtime.getSonarQubeSide()).thenReturn(side);
+    return runtime;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.bootstrap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.bootstrap.ModuleTreeTraversal.ModuleFiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ModuleTreeTraversalTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+  private File baseDir;
+  private ProjectDefinition root;
+  private ProjectDefinition moduleA;
+  private ProjectDefinition moduleB;
+
+  @Before
+  public void setUp() throws IOException {
+    baseDir = temp.newFolder();
+    root = ProjectDefinition.create().setKey("root").setBaseDir(baseDir);
+    moduleA = ProjectDefinition.create().setKey("a").setBaseDir(new File(baseDir, "a"));
+    moduleB = ProjectDefinition.create().setKey("b").setBaseDir(new File(baseDir, "b"));
+    root.addSubProject(moduleA).addSubProject(moduleB);
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void map_returns_results_in_depth_first_order() {
+    ProjectDefinition moduleA1 = ProjectDefinition.create().setKey("a1");
+    ProjectDefinition moduleA2 = ProjectDefinition.create().setKey("a2");
+    moduleA.addSubProject(moduleA1).addSubProject(moduleA2);
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(ModuleTreeTraversal.of(root).map(pool, ProjectDefinition::getKey)).containsExactly("root", "a", "a1", "a2", "b");
+    }
+    assertThat(ModuleTreeTraversal.of(root).map(pool, p -> p)).isEqualTo(new ProjectReactor(root).getProjects());
+    assertThat(ModuleTreeTraversal.of(moduleA).map(pool, ProjectDefinition::getKey)).containsExactly("a", "a1", "a2");
+  }
+
+  @Test
+  public void map_fails_if_a_task_fails() {
+    ModuleTreeTraversal underTest = ModuleTreeTraversal.of(root);
+
+    assertThatThrownBy(() -> underTest.map(pool, p -> {
+      if (p == moduleB) {
+        throw new IllegalStateException("boom");
+      }
+      return p;
+    }))
+      .isInstanceOf(IllegalStateException.class)
+      .hasStackTraceContaining("boom");
+  }
+
+  @Test
+  public void walk_files_of_sources_and_tests() throws IOException {
+    Path srcA = touch("a/src/main/Z.java", "a/src/main/sub/A.java", "a/src/test/ATest.java");
+    touch("b/src/B.java", "b/generated/Gen.java", "b/node_modules/lib.js", "b/src/node_modules/lib.js");
+    moduleA.setSources("src/main").setTests("src/test", "missing");
+    moduleB.setSources("src", "generated/Gen.java");
+
+    List<ModuleFiles> files = ModuleTreeTraversal.of(root).walkFiles(pool, p -> p.getFileName().toString().equals("node_modules"));
+
+    assertThat(files).extracting(ModuleFiles::module).containsExactly(root, moduleA, moduleB);
+    assertThat(files.get(0).sourceFiles()).isEmpty();
+    assertThat(files.get(1).sourcePaths()).containsExactly(srcA.resolve("a/src/main"));
+    assertThat(files.get(1).testPaths()).containsExactly(srcA.resolve("a/src/test"), srcA.resolve("a/missing"));
+    assertThat(files.get(1).sourceFiles()).containsExactly(srcA.resolve("a/src/main/Z.java"), srcA.resolve("a/src/main/sub/A.java"));
+    assertThat(files.get(1).testFiles()).containsExactly(srcA.resolve("a/src/test/ATest.java"));
+    assertThat(files.get(2).sourceFiles()).containsExactly(srcA.resolve("b/src/B.java"), srcA.resolve("b/generated/Gen.java"));
+    assertThat(files.get(2).testFiles()).isEmpty();
+  }
+
+  @Test
+  public void walk_files_of_single_module_outside_of_pool() throws IOException {
+    Path base = touch("a/src/A.java", "a/src/B.java");
+    moduleA.setSources(new File(baseDir, "a/src"));
+
+    ModuleFiles files = ModuleTreeTraversal.walkFiles(moduleA, p -> p.getFileName().toString().equals("B.java"));
+
+    assertThat(files.sourceFiles()).containsExactly(base.resolve("a/src/A.java"));
+  }
+
+  @Test
+  public void walk_files_requires_base_dir_to_resolve_relative_paths() {
+    ProjectDefinition module = ProjectDefinition.create().setKey("foo").setSources("src");
+
+    assertThatThrownBy(() -> ModuleTreeTraversal.walkFiles(module, p -> false))
+      .isInstanceOf(NullPointerException.class)
+      .hasMessage("Base directory of module foo is required to resolve src");
+  }
+
+  private Path touch(String... relativePaths) throws IOException {
+    Path base = baseDir.toPath().toAbsolutePath().normalize();
+    for (String relativePath : relativePaths) {
+      Path file = base.resolve(relativePath);
+      Files.createDirectories(file.getParent());
+      Files.createFile(file);
+    }
+    return base;
+  }
+}
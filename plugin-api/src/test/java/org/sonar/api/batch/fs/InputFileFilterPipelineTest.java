@@ -0,0 +1,140 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class InputFileFilterPipelineTest {
+
+  private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+  @Test
+  public void default_metadata_is_conservative() {
+    InputFileFilter filter = f -> true;
+
+    assertThat(filter.cost()).isEqualTo(InputFileFilter.Cost.EXPENSIVE);
+    assertThat(filter.needsContent()).isTrue();
+    assertThat(filter.isThreadSafe()).isFalse();
+  }
+
+  @Test
+  public void path_filters_are_evaluated_before_content_filters_and_by_cost() {
+    InputFileFilterPipeline pipeline = InputFileFilterPipeline.of(List.of(
+      new TestFilter("content", InputFileFilter.Cost.CHEAP, true, f -> true),
+      new TestFilter("expensive path", InputFileFilter.Cost.EXPENSIVE, false, f -> true),
+      new TestFilter("cheap path", InputFileFilter.Cost.CHEAP, false, f -> true),
+      new TestFilter("moderate path", InputFileFilter.Cost.MODERATE, false, f -> true)));
+
+    assertThat(pipeline.accept(file("Foo.java"))).isTrue();
+    assertThat(calls).containsExactly("cheap path", "moderate path", "expensive path", "content");
+  }
+
+  @Test
+  public void content_filters_are_only_evaluated_on_files_accepted_by_path_filters() {
+    InputFileFilterPipeline pipeline = InputFileFilterPipeline.of(List.of(
+      new TestFilter("content", InputFileFilter.Cost.CHEAP, true, f -> !f.filename().startsWith("Generated")),
+      new TestFilter("path", InputFileFilter.Cost.CHEAP, false, f -> f.filename().endsWith(".java"))));
+    List<InputFile> files = List.of(file("Foo.java"), file("foo.js"), file("GeneratedBar.java"), file("Bar.java"));
+
+    List<InputFile> accepted = pipeline.filter(files);
+
+    assertThat(accepted).extracting(InputFile::filename).containsExactly("Foo.java", "Bar.java");
+    assertThat(calls).filteredOn("content"::equals).hasSize(3);
+  }
+
+  @Test
+  public void thread_safe_stages_are_evaluated_in_parallel_and_keep_file_order() {
+    InputFileFilterPipeline pipeline = InputFileFilterPipeline.of(List.of(
+      new TestFilter("path", InputFileFilter.Cost.CHEAP, false, f -> f.filename().hashCode() % 2 == 0, true)));
+    List<InputFile> files = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      files.add(file("File" + i + ".java"));
+    }
+
+    List<InputFile> accepted = pipeline.filter(files);
+
+    assertThat(accepted).containsExactlyElementsOf(files.stream().filter(f -> f.filename().hashCode() % 2 == 0).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void no_filters_accept_all_files() {
+    InputFileFilterPipeline pipeline = InputFileFilterPipeline.of(List.of());
+    List<InputFile> files = List.of(file("Foo.java"));
+
+    assertThat(pipeline.filter(files)).containsExactlyElementsOf(files);
+    assertThat(pipeline.accept(files.get(0))).isTrue();
+  }
+
+  private static InputFile file(String filename) {
+    InputFile file = mock(InputFile.class);
+    when(file.filename()).thenReturn(filename);
+    return file;
+  }
+
+  private class TestFilter implements InputFileFilter {
+    private final String name;
+    private final Cost cost;
+    private final boolean needsContent;
+    private final Predicate<InputFile> predicate;
+    private final boolean threadSafe;
+
+    private TestFilter(String name, Cost cost, boolean needsContent, Predicate<InputFile> predicate) {
+      this(name, cost, needsContent, predicate, false);
+    }
+
+    private TestFilter(String name, Cost cost, boolean needsContent, Predicate<InputFile> predicate, boolean threadSafe) {
+      this.name = name;
+      this.cost = cost;
+      this.needsContent = needsContent;
+      this.predicate = predicate;
+      this.threadSafe = threadSafe;
+    }
+
+    @Override
+    public boolean accept(InputFile f) {
+      calls.add(name);
+      return predicate.test(f);
+    }
+
+    @Override
+    public Cost cost() {
+      return cost;
+    }
+
+    @Override
+    public boolean needsContent() {
+      return needsContent;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+      return threadSafe;
+    }
+  }
+}
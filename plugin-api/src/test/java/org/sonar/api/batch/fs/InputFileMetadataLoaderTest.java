@@ -0,0 +1,107 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InputFileMetadataLoaderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private final InputFileMetadataReader reader = InputFileMetadataReader.builder().build();
+
+  @Test
+  public void files_are_read_lazily_and_once() throws IOException {
+    Path file = write("foo", "a\nb\n");
+
+    try (InputFileMetadataLoader loader = new InputFileMetadataLoader(reader, 2, 10)) {
+      InputFileMetadata metadata = loader.lazy(file).get();
+
+      assertThat(metadata.lines()).isEqualTo(3);
+      assertThat(loader.get(file)).isSameAs(metadata);
+      assertThat(loader.size()).isOne();
+    }
+  }
+
+  @Test
+  public void prefetch_files_in_parallel() throws IOException, InterruptedException {
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      files.add(write("file" + i, "a\n".repeat(i)));
+    }
+
+    try (InputFileMetadataLoader loader = new InputFileMetadataLoader(reader, 4, 3)) {
+      loader.prefetch(files);
+
+      assertThat(loader.size()).isEqualTo(50);
+      for (int i = 0; i < 50; i++) {
+        assertThat(loader.get(files.get(i)).lines()).isEqualTo(i + 1);
+      }
+    }
+  }
+
+  @Test
+  public void files_prefetched_after_close_are_read_on_demand() throws IOException, InterruptedException {
+    Path file = write("foo", "a\nb");
+    InputFileMetadataLoader loader = new InputFileMetadataLoader(reader, 1, 10);
+    loader.close();
+
+    loader.prefetch(file);
+
+    assertThat(loader.get(file).lines()).isEqualTo(2);
+  }
+
+  @Test
+  public void fail_if_file_can_not_be_read() {
+    Path file = temp.getRoot().toPath().resolve("missing");
+
+    try (InputFileMetadataLoader loader = new InputFileMetadataLoader(reader, 1, 10)) {
+      assertThatThrownBy(() -> loader.get(file))
+        .isInstanceOf(UncheckedIOException.class)
+        .hasMessage("Unable to read metadata of file " + file);
+    }
+  }
+
+  @Test
+  public void fail_if_queue_capacity_is_not_positive() {
+    assertThatThrownBy(() -> new InputFileMetadataLoader(reader, 1, 0))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Queue capacity must be greater than 0: 0");
+  }
+
+  private Path write(String name, String content) throws IOException {
+    Path file = temp.getRoot().toPath().resolve(name);
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+}
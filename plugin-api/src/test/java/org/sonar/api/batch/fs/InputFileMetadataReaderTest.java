@@ -0,0 +1,126 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InputFileMetadataReaderTest {
+
+  private static final String CONTENT = "foo\r\nbär\rbaz\n\nq\r";
+
+  @Test
+  public void compute_line_offsets_for_all_end_of_line_characters() throws IOException {
+    InputFileMetadata metadata = read(InputFileMetadataReader.builder().build(), CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    assertThat(metadata.lines()).isEqualTo(6);
+    assertThat(metadata.lineStartOffsets()).containsExactly(0, 5, 9, 13, 14, 16);
+    assertThat(metadata.lineEndOffsets()).containsExactly(3, 8, 12, 13, 15, 16);
+    assertThat(metadata.lastValidOffset()).isEqualTo(16);
+    assertThat(metadata.isEmpty()).isFalse();
+    assertThat(metadata.lineStartOffset(2)).isEqualTo(5);
+    assertThat(metadata.lineEndOffset(2)).isEqualTo(8);
+  }
+
+  @Test
+  public void end_of_lines_and_characters_split_across_buffers_are_handled() throws IOException {
+    InputFileMetadata expected = read(InputFileMetadataReader.builder().build(), CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    for (int bufferSize = 4; bufferSize < 10; bufferSize++) {
+      InputFileMetadata metadata = read(InputFileMetadataReader.builder().setBufferSize(bufferSize).build(), CONTENT.getBytes(StandardCharsets.UTF_8));
+      assertThat(metadata.lineStartOffsets()).containsExactly(expected.lineStartOffsets());
+      assertThat(metadata.lineEndOffsets()).containsExactly(expected.lineEndOffsets());
+      assertThat(metadata.md5Hash()).isEqualTo(expected.md5Hash());
+    }
+  }
+
+  @Test
+  public void md5_hash_and_checksums_are_computed_on_content() throws IOException {
+    InputFileMetadataReader reader = InputFileMetadataReader.builder().addChecksum("crc32c", CRC32C::new).build();
+    byte[] bytes = "foo\nbar".getBytes(StandardCharsets.UTF_8);
+    CRC32C crc = new CRC32C();
+    crc.update(bytes);
+
+    InputFileMetadata metadata = read(reader, bytes);
+
+    assertThat(metadata.md5Hash()).isEqualTo("a76999788386641a3ec798554f1fe7e6");
+    assertThat(metadata.checksum("crc32c")).isEqualTo(crc.getValue());
+    assertThat(metadata.checksum("unknown")).isNull();
+    assertThat(metadata.checksums()).containsOnlyKeys("crc32c");
+  }
+
+  @Test
+  public void bom_is_detected_and_excluded_from_content() throws IOException {
+    InputFileMetadataReader reader = InputFileMetadataReader.builder().setDefaultCharset(StandardCharsets.ISO_8859_1).build();
+    byte[] content = "foo\nbar".getBytes(StandardCharsets.UTF_16LE);
+    byte[] bytes = new byte[content.length + 2];
+    bytes[0] = (byte) 0xFF;
+    bytes[1] = (byte) 0xFE;
+    System.arraycopy(content, 0, bytes, 2, content.length);
+
+    InputFileMetadata metadata = read(reader, bytes);
+
+    assertThat(metadata.hasBom()).isTrue();
+    assertThat(metadata.charset()).isEqualTo(StandardCharsets.UTF_16LE);
+    assertThat(metadata.md5Hash()).isEqualTo(read(reader, content).md5Hash());
+    assertThat(metadata.lineStartOffsets()).containsExactly(0, 4);
+    assertThat(read(reader, content).charset()).isEqualTo(StandardCharsets.ISO_8859_1);
+  }
+
+  @Test
+  public void empty_file_has_one_line() throws IOException {
+    InputFileMetadataReader reader = InputFileMetadataReader.builder().build();
+
+    InputFileMetadata metadata = read(reader, new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+
+    assertThat(metadata.isEmpty()).isTrue();
+    assertThat(metadata.hasBom()).isTrue();
+    assertThat(metadata.lines()).isOne();
+    assertThat(metadata.md5Hash()).isEqualTo("d41d8cd98f00b204e9800998ecf8427e");
+  }
+
+  @Test
+  public void fail_on_invalid_line() throws IOException {
+    InputFileMetadata metadata = read(InputFileMetadataReader.builder().build(), "foo".getBytes(StandardCharsets.UTF_8));
+
+    assertThatThrownBy(() -> metadata.lineStartOffset(2))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Line 2 is out of range [1, 1]");
+  }
+
+  @Test
+  public void fail_if_checksum_is_registered_twice() {
+    InputFileMetadataReader.Builder builder = InputFileMetadataReader.builder().addChecksum("crc32c", CRC32C::new);
+
+    assertThatThrownBy(() -> builder.addChecksum("crc32c", CRC32C::new))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Checksum 'crc32c' is already registered");
+  }
+
+  private static InputFileMetadata read(InputFileMetadataReader reader, byte[] bytes) throws IOException {
+    return reader.read(new ByteArrayInputStream(bytes));
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.rule;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.rule.RuleKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActiveRulesIndexTest {
+
+  private static final RuleKey JAVA_1 = RuleKey.of("java", "S1");
+  private static final RuleKey JAVA_2 = RuleKey.of("java", "S2");
+  private static final RuleKey PYTHON_1 = RuleKey.of("python", "S1");
+
+  private final ActiveRule java1 = activeRule(JAVA_1, "java", "internal1");
+  private final ActiveRule java2 = activeRule(JAVA_2, "java", null);
+  private final ActiveRule python1 = activeRule(PYTHON_1, "py", "internal1");
+
+  private final ActiveRulesIndex underTest = ActiveRulesIndex.of(List.of(java1, java2, python1));
+
+  @Test
+  void ordinals_are_dense_and_follow_iteration_order() {
+    assertThat(underTest.size()).isEqualTo(3);
+    assertThat(underTest.ordinal(JAVA_1)).isZero();
+    assertThat(underTest.ordinal(JAVA_2)).isOne();
+    assertThat(underTest.ordinal(PYTHON_1)).isEqualTo(2);
+    assertThat(underTest.ordinal(RuleKey.of("java", "unknown"))).isEqualTo(-1);
+    assertThat(underTest.get(1)).isSameAs(java2);
+  }
+
+  @Test
+  void find_by_rule_key() {
+    assertThat(underTest.find(JAVA_1)).isSameAs(java1);
+    assertThat(underTest.find(RuleKey.of("java", "unknown"))).isNull();
+    assertThat(underTest.findAll()).containsExactly(java1, java2, python1);
+  }
+
+  @Test
+  void find_by_repository_and_language() {
+    assertThat(underTest.findByRepository("java")).containsExactly(java1, java2);
+    assertThat(underTest.findByRepository("unknown")).isEmpty();
+    assertThat(underTest.findByLanguage("py")).containsExactly(python1);
+    assertThat(underTest.findByLanguage("unknown")).isEmpty();
+  }
+
+  @Test
+  void find_by_internal_key() {
+    assertThat(underTest.findByInternalKey("java", "internal1")).isSameAs(java1);
+    assertThat(underTest.findByInternalKey("python", "internal1")).isSameAs(python1);
+    assertThat(underTest.findByInternalKey("java", "unknown")).isNull();
+    assertThat(underTest.findByInternalKey("unknown", "internal1")).isNull();
+  }
+
+  @Test
+  void returned_collections_are_immutable() {
+    assertThatThrownBy(() -> underTest.findByRepository("java").clear()).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> underTest.findAll().clear()).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void fail_if_rule_is_activated_twice() {
+    List<ActiveRule> rules = List.of(java1, activeRule(JAVA_1, "java", null));
+
+    assertThatThrownBy(() -> ActiveRulesIndex.of(rules))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Rule 'java:S1' is activated more than once");
+  }
+
+  @Test
+  void default_index_is_built_from_all_active_rules() {
+    ActiveRules activeRules = mock(ActiveRules.class);
+    when(activeRules.findAll()).thenReturn(List.of(java1, python1));
+    when(activeRules.index()).thenCallRealMethod();
+
+    ActiveRulesIndex index = activeRules.index();
+
+    assertThat(index.findAll()).containsExactly(java1, python1);
+    assertThat(index.index()).isSameAs(index);
+  }
+
+  private static ActiveRule activeRule(RuleKey ruleKey, String language, @Nullable String internalKey) {
+    ActiveRule activeRule = mock(ActiveRule.class);
+    when(activeRule.ruleKey()).thenReturn(ruleKey);
+    when(activeRule.language()).thenReturn(language);
+    when(activeRule.internalKey()).thenReturn(internalKey);
+    return activeRule;
+  }
+}
@@ -92,6 +92,43 @@ class ChecksTest {
     assertThat(underTest.all()).isEmpty();
   }
 
+  @Test
+  void parameters_are_injected_by_annotation_key_and_in_parent_classes() {
+    RuleKey overriddenKey = RuleKey.of(REPOSITORY, CheckWithOverriddenPropertyKey.class.getCanonicalName());
+    RuleKey implementedKey = RuleKey.of(REPOSITORY, ImplementedCheck.class.getCanonicalName());
+    ActiveRules activeRules = new TestActiveRules(List.of(
+      new ActiveRuleWithParameter(overriddenKey, "maximum", "10"),
+      new ActiveRuleWithParameter(implementedKey, "max", "20")));
+    CheckFactory checkFactory = new CheckFactory(activeRules);
+    Checks<?> underTest = checkFactory.create(REPOSITORY);
+
+    underTest.addAnnotatedChecks(CheckWithOverriddenPropertyKey.class, ImplementedCheck.class);
+
+    assertThat(underTest.of(overriddenKey))
+      .asInstanceOf(type(CheckWithOverriddenPropertyKey.class))
+      .extracting(CheckWithOverriddenPropertyKey::getMax)
+      .isEqualTo(10);
+    assertThat(underTest.of(implementedKey))
+      .asInstanceOf(type(ImplementedCheck.class))
+      .extracting(ImplementedCheck::getMax)
+      .isEqualTo(20);
+  }
+
+  @Test
+  void public_parameters_of_package_private_checks_are_injected() {
+    RuleKey ruleKey = RuleKey.of(REPOSITORY, PackagePrivateCheckWithPublicProperty.class.getCanonicalName());
+    ActiveRules activeRules = new TestActiveRules(List.of(new ActiveRuleWithParameter(ruleKey, "pattern", "*")));
+    CheckFactory checkFactory = new CheckFactory(activeRules);
+    Checks<?> underTest = checkFactory.create(REPOSITORY);
+
+    underTest.addAnnotatedChecks(PackagePrivateCheckWithPublicProperty.class);
+
+    assertThat(underTest.of(ruleKey))
+      .asInstanceOf(type(PackagePrivateCheckWithPublicProperty.class))
+      .extracting(check -> check.pattern)
+      .isEqualTo("*");
+  }
+
   private static class TestActiveRules implements ActiveRules {
     private final List<ActiveRule> rules;
 
@@ -0,0 +1,149 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.scm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BlameResultTest {
+
+  @Test
+  public void consecutive_lines_of_same_commit_are_stored_as_runs() {
+    BlameResult result = BlameResult.builder()
+      .addLines(3, "rev1", 1_000L, "foo")
+      .addLine("rev1", 1_000L, " foo ")
+      .addLine("rev2", 2_000L, null)
+      .addLines(2, "rev1", 1_000L, "foo")
+      .build();
+
+    assertThat(result.lines()).isEqualTo(7);
+    assertThat(result.commitCount()).isEqualTo(2);
+    assertThat(result.runCount()).isEqualTo(3);
+    assertThat(result.runStartLine(1)).isEqualTo(5);
+    assertThat(result.runLength(0)).isEqualTo(4);
+    assertThat(result.runLength(1)).isOne();
+    assertThat(result.runLength(2)).isEqualTo(2);
+    assertThat(result.runCommit(2)).isZero();
+  }
+
+  @Test
+  public void commits_are_stored_once() {
+    BlameResult result = BlameResult.builder()
+      .addLine("rev1", 1_000L, "foo")
+      .addLine("rev2", 2_000L, "  ")
+      .addLine("rev1", 1_000L, "foo")
+      .build();
+
+    assertThat(result.commitCount()).isEqualTo(2);
+    assertThat(result.commitRevision(1)).isEqualTo("rev2");
+    assertThat(result.commitDate(1)).isEqualTo(2_000L);
+    assertThat(result.commitAuthor(0)).isEqualTo("foo");
+    assertThat(result.commitAuthor(1)).isNull();
+  }
+
+  @Test
+  public void commitOfLine_finds_the_run_of_the_line() {
+    BlameResult result = BlameResult.builder()
+      .addLines(2, "rev1", 1_000L, null)
+      .addLines(2, "rev2", 2_000L, null)
+      .build();
+
+    assertThat(result.commitOfLine(1)).isZero();
+    assertThat(result.commitOfLine(2)).isZero();
+    assertThat(result.commitOfLine(3)).isOne();
+    assertThat(result.commitOfLine(4)).isOne();
+    assertThatThrownBy(() -> result.commitOfLine(5)).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> result.commitOfLine(0)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  public void convert_from_and_to_blame_lines() {
+    List<BlameLine> lines = List.of(
+      new BlameLine(new Date(1_000L), "rev1").author("foo"),
+      new BlameLine(new Date(1_000L), "rev1").author("foo"),
+      new BlameLine(new Date(2_000L), "rev2"));
+
+    BlameResult result = BlameResult.of(lines);
+
+    assertThat(result.runCount()).isEqualTo(2);
+    assertThat(result.toBlameLines()).isEqualTo(lines);
+  }
+
+  @Test
+  public void write_and_read_binary_form() throws IOException {
+    BlameResult result = BlameResult.builder()
+      .addLines(2, "rev1", 1_000L, "foo")
+      .addLine("rev2", 2_000L, null)
+      .build();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    result.writeTo(new DataOutputStream(bytes));
+    BlameResult read = BlameResult.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertThat(read.toBlameLines()).isEqualTo(result.toBlameLines());
+    assertThat(read.runCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void add_lines_of_another_result() {
+    BlameResult source = BlameResult.builder()
+      .addLines(2, "rev1", 1_000L, null)
+      .addLines(2, "rev2", 2_000L, null)
+      .addLines(2, "rev3", 3_000L, null)
+      .build();
+
+    BlameResult result = BlameResult.builder()
+      .addLine("rev2", 2_000L, null)
+      .addLines(source, 2, 4)
+      .build();
+
+    assertThat(result.lines()).isEqualTo(5);
+    assertThat(result.toBlameLines()).extracting(BlameLine::revision).containsExactly("rev2", "rev1", "rev2", "rev2", "rev3");
+    assertThat(result.runCount()).isEqualTo(4);
+    assertThatThrownBy(() -> BlameResult.builder().addLines(source, 5, 3)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  public void empty_result() {
+    BlameResult result = BlameResult.builder().build();
+
+    assertThat(result.lines()).isZero();
+    assertThat(result.runCount()).isZero();
+    assertThat(result.toBlameLines()).isEmpty();
+  }
+
+  @Test
+  public void fail_if_date_is_missing() {
+    List<BlameLine> lines = List.of(new BlameLine().revision("rev1"));
+
+    assertThatThrownBy(() -> BlameResult.of(lines))
+      .isInstanceOf(NullPointerException.class)
+      .hasMessage("Blame date can't be null");
+  }
+}
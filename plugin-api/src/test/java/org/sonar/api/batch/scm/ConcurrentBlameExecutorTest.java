@@ -0,0 +1,141 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.scm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Test;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.scm.BlameCommand.BlameInput;
+import org.sonar.api.batch.scm.BlameCommand.BlameOutput;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class ConcurrentBlameExecutorTest {
+
+  private static final BlameResult RESULT = BlameResult.builder().addLines(10, "rev1", 1_000L, "foo").build();
+
+  private final List<InputFile> files = new ArrayList<>();
+  private final List<InputFile> blamedFiles = Collections.synchronizedList(new ArrayList<>());
+  private final BlameInput input = new BlameInput() {
+    @Override
+    public FileSystem fileSystem() {
+      return mock(FileSystem.class);
+    }
+
+    @Override
+    public Iterable<InputFile> filesToBlame() {
+      return files;
+    }
+  };
+  private final BlameOutput output = (file, lines) -> blamedFiles.add(file);
+
+  public ConcurrentBlameExecutorTest() {
+    for (int i = 0; i < 10; i++) {
+      files.add(mock(InputFile.class));
+    }
+  }
+
+  @Test
+  public void files_are_partitioned_across_workers_of_concurrent_command() {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    List<ConcurrentBlameExecutor.WorkerStats> progress = Collections.synchronizedList(new ArrayList<>());
+
+    List<ConcurrentBlameExecutor.WorkerStats> stats = new ConcurrentBlameExecutor(3)
+      .setProgressListener(progress::add)
+      .execute(new TestBlameCommand(true, threads), input, output);
+
+    assertThat(blamedFiles).containsExactlyInAnyOrderElementsOf(files);
+    assertThat(threads).hasSize(3);
+    assertThat(stats).extracting(ConcurrentBlameExecutor.WorkerStats::worker).containsExactly(0, 1, 2);
+    assertThat(stats).extracting(ConcurrentBlameExecutor.WorkerStats::files).containsExactly(4L, 3L, 3L);
+    assertThat(stats).extracting(ConcurrentBlameExecutor.WorkerStats::lines).containsExactly(40L, 30L, 30L);
+    assertThat(stats).allMatch(ConcurrentBlameExecutor.WorkerStats::isCompleted);
+    assertThat(progress).hasSize(10);
+  }
+
+  @Test
+  public void command_which_is_not_concurrent_is_executed_on_caller_thread() {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    List<ConcurrentBlameExecutor.WorkerStats> stats = new ConcurrentBlameExecutor(3).execute(new TestBlameCommand(false, threads), input, output);
+
+    assertThat(blamedFiles).containsExactlyElementsOf(files);
+    assertThat(threads).containsOnly(Thread.currentThread().getName());
+    assertThat(stats).hasSize(1);
+    assertThat(stats.get(0).files()).isEqualTo(10);
+  }
+
+  @Test
+  public void failure_of_a_worker_is_thrown() {
+    BlameCommand command = new BlameCommand() {
+      @Override
+      public void blame(BlameInput input, BlameOutput output) {
+        throw new IllegalStateException("Fail to blame");
+      }
+
+      @Override
+      public boolean isConcurrent() {
+        return true;
+      }
+    };
+    ConcurrentBlameExecutor underTest = new ConcurrentBlameExecutor(2);
+
+    assertThatThrownBy(() -> underTest.execute(command, input, output))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Fail to blame");
+  }
+
+  @Test
+  public void fail_if_no_workers() {
+    assertThatThrownBy(() -> new ConcurrentBlameExecutor(0))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Number of workers must be greater than 0: 0");
+  }
+
+  private static class TestBlameCommand extends BlameCommand {
+    private final boolean concurrent;
+    private final Set<String> threads;
+
+    private TestBlameCommand(boolean concurrent, Set<String> threads) {
+      this.concurrent = concurrent;
+      this.threads = threads;
+    }
+
+    @Override
+    public void blame(BlameInput input, BlameOutput output) {
+      threads.add(Thread.currentThread().getName());
+      for (InputFile file : input.filesToBlame()) {
+        output.blameResult(file, RESULT);
+      }
+    }
+
+    @Override
+    public boolean isConcurrent() {
+      return concurrent;
+    }
+  }
+}
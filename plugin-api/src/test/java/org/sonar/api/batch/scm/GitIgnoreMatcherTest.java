@@ -0,0 +1,139 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.scm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GitIgnoreMatcherTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path baseDir;
+  private final GitIgnoreMatcher underTest = new GitIgnoreMatcher();
+
+  @Before
+  public void setUp() throws IOException {
+    baseDir = temp.newFolder().toPath();
+    write(".gitignore", "# comment", "", "node_modules", "/target/", "*.log", "!important.log", "build/", "src/gen/**", "**/tmp");
+    write("src/.gitignore", "*.txt", "!keep.txt");
+    underTest.init(baseDir);
+  }
+
+  @Test
+  public void whole_directories_are_ignored() {
+    assertThat(underTest.isDirectoryIgnored(baseDir.resolve("node_modules"))).isTrue();
+    assertThat(underTest.isDirectoryIgnored(baseDir.resolve("node_modules/lib/dist"))).isTrue();
+    assertThat(underTest.isDirectoryIgnored(baseDir.resolve("target"))).isTrue();
+    assertThat(underTest.isDirectoryIgnored(baseDir.resolve("docs/build"))).isTrue();
+    assertThat(underTest.isDirectoryIgnored(baseDir.resolve("src/main/tmp"))).isTrue();
+    assertThat(underTest.isDirectoryIgnored(baseDir.resolve("src"))).isFalse();
+    assertThat(underTest.isDirectoryIgnored(baseDir.resolve("src/gen"))).isFalse();
+    assertThat(underTest.isDirectoryIgnored(baseDir.resolve("module/target"))).isFalse();
+  }
+
+  @Test
+  public void files_are_matched_against_rules_of_their_parent_directories() {
+    assertThat(underTest.isIgnored(baseDir.resolve("a.log"))).isTrue();
+    assertThat(underTest.isIgnored(baseDir.resolve("important.log"))).isFalse();
+    assertThat(underTest.isIgnored(baseDir.resolve("src/a.txt"))).isTrue();
+    assertThat(underTest.isIgnored(baseDir.resolve("src/main/b.txt"))).isTrue();
+    assertThat(underTest.isIgnored(baseDir.resolve("src/keep.txt"))).isFalse();
+    assertThat(underTest.isIgnored(baseDir.resolve("src/gen/Foo.java"))).isTrue();
+    assertThat(underTest.isIgnored(baseDir.resolve("src/main/Foo.java"))).isFalse();
+    assertThat(underTest.isIgnored(baseDir.resolve("a.txt"))).isFalse();
+  }
+
+  @Test
+  public void files_of_ignored_directories_can_not_be_reincluded() {
+    assertThat(underTest.isIgnored(baseDir.resolve("node_modules/important.log"))).isTrue();
+    assertThat(underTest.isIgnored(baseDir.resolve("target/classes/Foo.class"))).isTrue();
+  }
+
+  @Test
+  public void files_outside_of_base_directory_are_not_ignored() {
+    assertThat(underTest.isIgnored(baseDir.getParent().resolve("a.log"))).isFalse();
+    assertThat(underTest.isDirectoryIgnored(baseDir.getParent())).isFalse();
+  }
+
+  @Test
+  public void ignored_files_of_a_batch() {
+    Path log = baseDir.resolve("a.log");
+    Path txt = baseDir.resolve("src/a.txt");
+
+    assertThat(underTest.ignoredFiles(List.of(log, baseDir.resolve("src/Foo.java"), txt))).containsOnly(log, txt);
+  }
+
+  @Test
+  public void global_patterns_apply_before_ignore_file_of_base_directory() {
+    GitIgnoreMatcher matcher = new GitIgnoreMatcher(GitIgnoreMatcher.GITIGNORE, List.of("*.log", "*.tmp"));
+    matcher.init(baseDir);
+
+    assertThat(matcher.isIgnored(baseDir.resolve("a.tmp"))).isTrue();
+    assertThat(matcher.isIgnored(baseDir.resolve("important.log"))).isFalse();
+  }
+
+  @Test
+  public void wildcards() {
+    assertThat(matches("a?c", "abc")).isTrue();
+    assertThat(matches("a?c", "a/c")).isFalse();
+    assertThat(matches("[a-c]x", "bx")).isTrue();
+    assertThat(matches("[!a-c]x", "bx")).isFalse();
+    assertThat(matches("a/**/b", "a/b")).isTrue();
+    assertThat(matches("a/**/b", "a/x/y/b")).isTrue();
+    assertThat(matches("a/*/b", "a/x/y/b")).isFalse();
+    assertThat(matches("\\#file", "#file")).isTrue();
+    assertThat(GitIgnoreMatcher.Rule.compile("#comment")).isNull();
+    assertThat(GitIgnoreMatcher.Rule.compile("   ")).isNull();
+    assertThat(GitIgnoreMatcher.Rule.compile("!foo").isNegated()).isTrue();
+  }
+
+  @Test
+  public void fail_if_not_initialized() {
+    GitIgnoreMatcher matcher = new GitIgnoreMatcher();
+    Path file = baseDir.resolve("a.log");
+
+    assertThatThrownBy(() -> matcher.isIgnored(file))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("init(Path) must be called before checking ignored files");
+  }
+
+  private static boolean matches(String pattern, String relativePath) {
+    String fileName = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+    return GitIgnoreMatcher.Rule.compile(pattern).matches(relativePath, fileName, false);
+  }
+
+  private void write(String relativePath, String... lines) throws IOException {
+    Path file = baseDir.resolve(relativePath);
+    Files.createDirectories(file.getParent());
+    Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+  }
+}
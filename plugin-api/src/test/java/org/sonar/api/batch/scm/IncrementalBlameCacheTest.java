@@ -0,0 +1,170 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.scm;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IncrementalBlameCacheTest {
+
+  // 10 lines: 3 of rev1, 3 of rev2, 4 of rev1
+  private static final BlameResult PREVIOUS = BlameResult.builder()
+    .addLines(3, "rev1", 1_000L, "foo")
+    .addLines(3, "rev2", 2_000L, "bar")
+    .addLines(4, "rev1", 1_000L, "foo")
+    .build();
+
+  private final InMemoryCache cache = new InMemoryCache();
+  private final InputFile file = mock(InputFile.class);
+  private final BlameCommand command = mock(BlameCommand.class);
+  private final IncrementalBlameCache underTest = new IncrementalBlameCache(cache, cache);
+
+  @Before
+  public void setUp() {
+    when(file.key()).thenReturn("project:src/Foo.java");
+    when(file.md5Hash()).thenReturn("hash1");
+    when(file.lines()).thenReturn(10);
+    underTest.save(file, "rev2", PREVIOUS);
+  }
+
+  @Test
+  public void file_not_in_cache_must_be_fully_blamed() {
+    when(file.key()).thenReturn("project:src/Bar.java");
+
+    assertThat(underTest.blame(command, file)).isNull();
+  }
+
+  @Test
+  public void blame_of_unchanged_file_is_reused() {
+    BlameResult result = underTest.blame(command, file);
+
+    assertThat(result.toBlameLines()).isEqualTo(PREVIOUS.toBlameLines());
+    verify(command, never()).diff(any(), any());
+  }
+
+  @Test
+  public void changed_file_must_be_fully_blamed_if_command_is_not_incremental() {
+    when(file.md5Hash()).thenReturn("hash2");
+
+    assertThat(underTest.blame(command, file)).isNull();
+  }
+
+  @Test
+  public void only_changed_lines_are_blamed_by_incremental_command() {
+    when(file.md5Hash()).thenReturn("hash2");
+    when(command.isIncremental()).thenReturn(true);
+    // lines 4-5 are replaced by 3 lines, and line 9 is removed
+    when(command.diff(file, "rev2")).thenReturn(LineDiff.builder().addHunk(4, 2, 4, 3).addHunk(9, 1, 10, 0).build());
+    when(command.blameLines(file, 4, 6)).thenReturn(BlameResult.builder().addLines(3, "rev3", 3_000L, "baz").build());
+
+    BlameResult result = underTest.blame(command, file);
+
+    assertThat(result.toBlameLines()).extracting(BlameLine::revision)
+      .containsExactly("rev1", "rev1", "rev1", "rev3", "rev3", "rev3", "rev2", "rev1", "rev1", "rev1");
+    verify(command, never()).blameLines(file, 1, 3);
+  }
+
+  @Test
+  public void changed_file_must_be_fully_blamed_if_diff_is_not_consistent() {
+    when(file.md5Hash()).thenReturn("hash2");
+    when(file.lines()).thenReturn(12);
+    when(command.isIncremental()).thenReturn(true);
+    when(command.diff(file, "rev2")).thenReturn(LineDiff.builder().addHunk(4, 2, 4, 3).build());
+    when(command.blameLines(any(), anyInt(), anyInt())).thenReturn(BlameResult.builder().addLines(3, "rev3", 3_000L, "baz").build());
+
+    assertThat(underTest.blame(command, file)).isNull();
+  }
+
+  @Test
+  public void changed_file_must_be_fully_blamed_if_diff_is_unknown() {
+    when(file.md5Hash()).thenReturn("hash2");
+    when(command.isIncremental()).thenReturn(true);
+
+    assertThat(underTest.blame(command, file)).isNull();
+  }
+
+  @Test
+  public void fail_to_add_hunks_that_overlap() {
+    LineDiff.Builder builder = LineDiff.builder().addHunk(4, 2, 4, 3);
+
+    assertThatThrownBy(() -> builder.addHunk(5, 1, 7, 1))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Hunks must be ordered and must not overlap: hunk 5,1 +7,1");
+  }
+
+  @Test
+  public void default_command_is_not_incremental() {
+    BlameCommand defaultCommand = new BlameCommand() {
+      @Override
+      public void blame(BlameInput input, BlameOutput output) {
+        // nothing to do
+      }
+    };
+
+    assertThat(defaultCommand.isIncremental()).isFalse();
+    assertThat(defaultCommand.diff(file, "rev1")).isNull();
+    assertThatThrownBy(() -> defaultCommand.blameLines(file, 1, 2)).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  private static class InMemoryCache implements ReadCache, WriteCache {
+    private final Map<String, byte[]> entries = new HashMap<>();
+
+    @Override
+    public InputStream read(String key) {
+      return new ByteArrayInputStream(entries.get(key));
+    }
+
+    @Override
+    public boolean contains(String key) {
+      return entries.containsKey(key);
+    }
+
+    @Override
+    public void write(String key, InputStream data) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void write(String key, byte[] data) {
+      entries.put(key, data);
+    }
+
+    @Override
+    public void copyFromPrevious(String key) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.internal.SensorStorage.DataKind;
+import org.sonar.api.batch.sensor.measure.Measure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class BatchingSensorStorageTest {
+
+  private final List<Object> stored = Collections.synchronizedList(new ArrayList<>());
+  private final SensorStorage delegate = mock(SensorStorage.class, CALLS_REAL_METHODS);
+  private BatchingSensorStorage underTest;
+
+  @After
+  public void tearDown() {
+    if (underTest != null) {
+      try {
+        underTest.close();
+      } catch (IllegalStateException e) {
+        // failure already asserted by the test
+      }
+    }
+  }
+
+  @Test
+  public void flush_waits_for_data_to_be_persisted_in_order() {
+    doAnswer(invocation -> stored.add(invocation.getArgument(0))).when(delegate).store(any(Measure.class));
+    doAnswer(invocation -> stored.add(invocation.getArgument(0))).when(delegate).store(any(Issue.class));
+    underTest = new BatchingSensorStorage(delegate, 4, 2);
+    List<Measure> measures = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      Measure measure = mock(Measure.class);
+      measures.add(measure);
+      underTest.store(measure);
+      underTest.store(mock(Issue.class));
+    }
+
+    underTest.flush();
+
+    assertThat(stored).hasSize(40);
+    assertThat(stored).filteredOn(Measure.class::isInstance).containsExactlyElementsOf(measures);
+    verify(delegate).flush();
+  }
+
+  @Test
+  public void delegate_receives_chunks_of_same_kind_from_a_single_thread() {
+    List<String> chunks = Collections.synchronizedList(new ArrayList<>());
+    Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+    doAnswer(invocation -> {
+      threads.add(Thread.currentThread());
+      chunks.add(invocation.getArgument(0) + ":" + invocation.<List<?>>getArgument(1).size());
+      return null;
+    }).when(delegate).store(any(DataKind.class), anyList());
+    underTest = new BatchingSensorStorage(delegate, 100, 10);
+    for (int i = 0; i < 5; i++) {
+      underTest.store(mock(Measure.class));
+    }
+    for (int i = 0; i < 3; i++) {
+      underTest.store(mock(Issue.class));
+    }
+
+    underTest.flush();
+
+    assertThat(String.join(",", chunks)).matches("(measure:\\d,)+(issue:\\d,?)+");
+    assertThat(chunks.stream().mapToInt(c -> Integer.parseInt(c.substring(c.indexOf(':') + 1))).sum()).isEqualTo(8);
+    assertThat(threads).hasSize(1).doesNotContain(Thread.currentThread());
+  }
+
+  @Test
+  public void store_context_properties() {
+    underTest = new BatchingSensorStorage(delegate, 4, 2);
+
+    underTest.storeProperty("foo", "bar");
+    underTest.flush();
+
+    verify(delegate).store(eq(DataKind.PROPERTY), eq(List.of(Map.entry("foo", "bar"))));
+    verify(delegate).storeProperty("foo", "bar");
+    assertThatThrownBy(() -> underTest.storeProperty("foo", null))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Value of context property must not be null");
+  }
+
+  @Test
+  public void store_blocks_while_queue_is_full() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      release.await();
+      return null;
+    }).when(delegate).store(any(Measure.class));
+    underTest = new BatchingSensorStorage(delegate, 2, 1);
+    CountDownLatch done = new CountDownLatch(1);
+
+    Thread sensor = new Thread(() -> {
+      for (int i = 0; i < 5; i++) {
+        underTest.store(mock(Measure.class));
+      }
+      done.countDown();
+    });
+    sensor.start();
+
+    assertThat(done.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    release.countDown();
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void failure_of_delegate_is_thrown_by_flush() {
+    IllegalArgumentException failure = new IllegalArgumentException("boom");
+    doThrow(failure).when(delegate).store(any(Measure.class));
+    underTest = new BatchingSensorStorage(delegate, 4, 2);
+    underTest.store(mock(Measure.class));
+
+    assertThatThrownBy(() -> underTest.flush())
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Fail to persist sensor data")
+      .hasCause(failure);
+  }
+
+  @Test
+  public void data_stored_after_a_failure_is_dropped() throws InterruptedException {
+    IllegalArgumentException failure = new IllegalArgumentException("boom");
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      release.await();
+      throw failure;
+    }).when(delegate).store(any(Measure.class));
+    underTest = new BatchingSensorStorage(delegate, 4, 1);
+    underTest.store(mock(Measure.class));
+    underTest.store(mock(Issue.class));
+    release.countDown();
+
+    assertThatThrownBy(() -> underTest.flush()).hasCause(failure);
+    assertThatThrownBy(() -> underTest.store(mock(Issue.class))).hasCause(failure);
+    verify(delegate, never()).store(any(Issue.class));
+    verify(delegate, never()).flush();
+  }
+
+  @Test
+  public void fail_to_store_after_close() {
+    underTest = new BatchingSensorStorage(delegate, 4, 2);
+    underTest.close();
+
+    assertThatThrownBy(() -> underTest.store(mock(Measure.class)))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Sensor storage is closed");
+  }
+
+  @Test
+  public void close_can_be_called_several_times() {
+    underTest = new BatchingSensorStorage(delegate, 4, 2);
+    underTest.store(mock(Measure.class));
+
+    underTest.close();
+    underTest.close();
+
+    verify(delegate).flush();
+  }
+
+  @Test
+  public void sensors_waiting_for_room_are_released_when_storage_is_closed() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      release.await();
+      return null;
+    }).when(delegate).store(any(Measure.class));
+    underTest = new BatchingSensorStorage(delegate, 1, 1);
+    // taken by the writer, which then blocks until released
+    underTest.store(mock(Measure.class));
+    Thread closer = new Thread(() -> underTest.close());
+    closer.start();
+    CountDownLatch done = new CountDownLatch(1);
+    Thread sensor = new Thread(() -> {
+      for (int i = 0; i < 3; i++) {
+        try {
+          underTest.store(mock(Measure.class));
+        } catch (IllegalStateException e) {
+          // closed
+        }
+      }
+      done.countDown();
+    });
+    sensor.start();
+
+    assertThat(done.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    release.countDown();
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    closer.join(10_000);
+    assertThat(closer.isAlive()).isFalse();
+    assertThatThrownBy(() -> underTest.store(mock(Measure.class)))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Sensor storage is closed");
+  }
+
+  @Test
+  public void fail_if_chunk_size_is_greater_than_capacity() {
+    assertThatThrownBy(() -> new BatchingSensorStorage(delegate, 4, 5))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Chunk size must be between 1 and the capacity (4): 5");
+  }
+}
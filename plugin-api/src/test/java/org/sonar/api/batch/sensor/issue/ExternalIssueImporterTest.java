@@ -0,0 +1,203 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.issue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.rule.Severity;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.rule.NewAdHocRule;
+import org.sonar.api.issue.impact.SoftwareQuality;
+import org.sonar.api.rules.CleanCodeAttribute;
+import org.sonar.api.rules.RuleType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ExternalIssueImporterTest {
+
+  private final SensorContext context = mock(SensorContext.class);
+  private final FileSystem fs = mock(FileSystem.class);
+  private final FilePredicates predicates = mock(FilePredicates.class);
+  private final InputFile foo = mock(InputFile.class);
+  private final InputFile bar = mock(InputFile.class);
+  private final List<NewExternalIssue> savedIssues = new ArrayList<>();
+  private final List<NewAdHocRule> savedRules = new ArrayList<>();
+  private final ExternalIssueImporter underTest = new ExternalIssueImporter(context);
+
+  @Before
+  public void setUp() {
+    when(context.fileSystem()).thenReturn(fs);
+    when(fs.predicates()).thenReturn(predicates);
+    mockFile("src/foo.js", foo);
+    mockFile("src/bar.js", bar);
+    when(predicates.hasPath("unknown.js")).thenReturn(mock(FilePredicate.class));
+    when(foo.selectLine(anyInt())).thenReturn(mock(TextRange.class));
+    when(foo.newRange(anyInt(), anyInt(), anyInt(), anyInt())).thenThrow(new IllegalArgumentException("invalid range"));
+    when(context.newExternalIssue()).then(invocation -> {
+      NewExternalIssue issue = mock(NewExternalIssue.class, RETURNS_SELF);
+      when(issue.newLocation()).thenReturn(mock(NewIssueLocation.class, RETURNS_SELF));
+      savedIssues.add(issue);
+      return issue;
+    });
+    when(context.newAdHocRule()).then(invocation -> {
+      NewAdHocRule rule = mock(NewAdHocRule.class, RETURNS_SELF);
+      savedRules.add(rule);
+      return rule;
+    });
+  }
+
+  @Test
+  public void import_issues_of_report() throws IOException {
+    ExternalIssueImporter.Result result = underTest.importReport(report(), (report, consumer) -> {
+      consumer.accept(issue("S1", "src/foo.js").line(3).message("first").build());
+      consumer.accept(issue("S2", "src/bar.js").build());
+    });
+
+    assertThat(result.importedIssues()).isEqualTo(2);
+    assertThat(result.unknownFileIssues()).isZero();
+    assertThat(result.invalidLocationIssues()).isZero();
+    assertThat(savedIssues).hasSize(2);
+    NewExternalIssue first = savedIssues.get(0);
+    verify(first).engineId("eslint");
+    verify(first).ruleId("S1");
+    verify(first).type(RuleType.BUG);
+    verify(first).severity(Severity.MAJOR);
+    verify(first).save();
+    verify(foo).selectLine(3);
+  }
+
+  @Test
+  public void issues_on_unknown_files_or_invalid_locations_are_ignored() throws IOException {
+    ExternalIssueImporter.Result result = underTest.importReport(report(), (report, consumer) -> {
+      consumer.accept(issue("S1", "unknown.js").build());
+      consumer.accept(issue("S1", "src/foo.js").range(1, 0, 1, 100).build());
+    });
+
+    assertThat(result.importedIssues()).isZero();
+    assertThat(result.unknownFileIssues()).isEqualTo(1);
+    assertThat(result.invalidLocationIssues()).isEqualTo(1);
+    savedIssues.forEach(issue -> verify(issue, times(0)).save());
+  }
+
+  @Test
+  public void files_are_resolved_once_per_path() throws IOException {
+    underTest.setBatchSize(2).importReport(report(), (report, consumer) -> {
+      for (int i = 0; i < 10; i++) {
+        consumer.accept(issue("S1", i % 2 == 0 ? "src/foo.js" : "src/bar.js").build());
+      }
+    });
+
+    assertThat(savedIssues).hasSize(10);
+    verify(predicates, times(1)).hasPath("src/foo.js");
+    verify(predicates, times(1)).hasPath("src/bar.js");
+    verify(fs, never()).inputFiles(any());
+  }
+
+  @Test
+  public void impacts_and_clean_code_attribute_are_saved_on_issues_and_ad_hoc_rules() throws IOException {
+    underTest.importReport(report(), (report, consumer) -> consumer.accept(issue("S1", "src/foo.js")
+      .addImpact(SoftwareQuality.SECURITY, org.sonar.api.issue.impact.Severity.HIGH)
+      .cleanCodeAttribute(CleanCodeAttribute.TRUSTWORTHY)
+      .adHocRule("Rule 1", "Description")
+      .build()));
+
+    NewExternalIssue issue = savedIssues.get(0);
+    verify(issue).addImpact(SoftwareQuality.SECURITY, org.sonar.api.issue.impact.Severity.HIGH);
+    verify(issue).cleanCodeAttribute(CleanCodeAttribute.TRUSTWORTHY);
+    NewAdHocRule rule = savedRules.get(0);
+    verify(rule).addDefaultImpact(SoftwareQuality.SECURITY, org.sonar.api.issue.impact.Severity.HIGH);
+    verify(rule).cleanCodeAttribute(CleanCodeAttribute.TRUSTWORTHY);
+  }
+
+  @Test
+  public void files_are_resolved_again_when_evicted_from_cache() throws IOException {
+    underTest.setBatchSize(1).setFileCacheSize(1).importReport(report(), (report, consumer) -> {
+      consumer.accept(issue("S1", "src/foo.js").build());
+      consumer.accept(issue("S1", "src/bar.js").build());
+      consumer.accept(issue("S1", "src/foo.js").build());
+    });
+
+    verify(predicates, times(2)).hasPath("src/foo.js");
+  }
+
+  @Test
+  public void ad_hoc_rules_are_saved_once() throws IOException {
+    ExternalIssueImporter.Result result = underTest.importReport(report(), (report, consumer) -> {
+      consumer.accept(issue("S1", "src/foo.js").adHocRule("Rule 1", "Description").build());
+      consumer.accept(issue("S1", "src/bar.js").adHocRule("Rule 1", "Description").build());
+      consumer.accept(issue("S2", "src/bar.js").build());
+    });
+
+    assertThat(result.adHocRules()).isEqualTo(1);
+    assertThat(savedRules).hasSize(1);
+    NewAdHocRule rule = savedRules.get(0);
+    verify(rule).engineId("eslint");
+    verify(rule).ruleId("S1");
+    verify(rule).name("Rule 1");
+    verify(rule).description("Description");
+    verify(rule).save();
+  }
+
+  @Test
+  public void fail_if_batch_size_is_not_positive() {
+    assertThatThrownBy(() -> underTest.setBatchSize(0))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Batch size must be greater than 0: 0");
+  }
+
+  private void mockFile(String path, InputFile inputFile) {
+    FilePredicate predicate = mock(FilePredicate.class);
+    when(predicates.hasPath(path)).thenReturn(predicate);
+    when(fs.inputFile(predicate)).thenReturn(inputFile);
+  }
+
+  private static ExternalIssueRecord.Builder issue(String ruleId, String path) {
+    return ExternalIssueRecord.builder()
+      .engineId("eslint")
+      .ruleId(ruleId)
+      .filePath(path)
+      .type(RuleType.BUG)
+      .severity(Severity.MAJOR);
+  }
+
+  private static InputStream report() {
+    return new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.issue;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import org.sonar.api.batch.fs.TextPointer;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRulesIndex;
+import org.sonar.api.rule.RuleKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IssueSuppressionIndexTest {
+
+  @Test
+  public void empty_index_suppresses_nothing() {
+    IssueSuppressionIndex index = IssueSuppressionIndex.empty();
+
+    assertThat(index.isNoSonar(1)).isFalse();
+    assertThat(index.isSuppressed(0, 1)).isFalse();
+    assertThat(index.noSonarLines().isEmpty()).isTrue();
+  }
+
+  @Test
+  public void no_sonar_lines() {
+    BitSet lines = new BitSet();
+    lines.set(0);
+    lines.set(5);
+    IssueSuppressionIndex index = IssueSuppressionIndex.builder()
+      .addNoSonarLine(2)
+      .addNoSonarLines(lines)
+      .build();
+
+    assertThat(index.isNoSonar(2)).isTrue();
+    assertThat(index.isNoSonar(5)).isTrue();
+    assertThat(index.isNoSonar(0)).isFalse();
+    assertThat(index.isNoSonar(3)).isFalse();
+    assertThat(index.isSuppressed(42, 5)).isTrue();
+    assertThat(index.noSonarLines()).hasToString("{2, 5}");
+  }
+
+  @Test
+  public void resolutions_apply_to_their_rule_on_their_lines() {
+    IssueSuppressionIndex index = IssueSuppressionIndex.builder()
+      .addResolution(3, 10, 12)
+      .addResolution(3, 20, 20)
+      .addResolution(0, 1, 1)
+      .build();
+
+    assertThat(index.isResolved(3, 10)).isTrue();
+    assertThat(index.isResolved(3, 12)).isTrue();
+    assertThat(index.isResolved(3, 13)).isFalse();
+    assertThat(index.isResolved(3, 20)).isTrue();
+    assertThat(index.isResolved(0, 1)).isTrue();
+    assertThat(index.isResolved(1, 10)).isFalse();
+    assertThat(index.isResolved(100, 10)).isFalse();
+    assertThat(index.isResolved(-1, 10)).isFalse();
+    assertThat(index.isSuppressed(3, 11)).isTrue();
+    assertThat(index.isNoSonar(11)).isFalse();
+  }
+
+  @Test
+  public void resolution_is_mapped_to_ordinals_of_active_rules() {
+    RuleKey active = RuleKey.of("java", "S1");
+    RuleKey inactive = RuleKey.of("java", "S2");
+    ActiveRule activeRule = mock(ActiveRule.class);
+    when(activeRule.ruleKey()).thenReturn(active);
+    ActiveRulesIndex activeRules = ActiveRulesIndex.of(List.of(activeRule));
+    IssueResolution resolution = mock(IssueResolution.class);
+    when(resolution.ruleKeys()).thenReturn(Set.of(active, inactive));
+    TextRange range = range(4, 6);
+    when(resolution.textRange()).thenReturn(range);
+
+    IssueSuppressionIndex index = IssueSuppressionIndex.builder().addResolution(resolution, activeRules).build();
+
+    assertThat(index.isResolved(activeRules.ordinal(active), 5)).isTrue();
+    assertThat(index.isResolved(activeRules.ordinal(active), 7)).isFalse();
+  }
+
+  @Test
+  public void index_is_not_modified_by_builder() {
+    IssueSuppressionIndex.Builder builder = IssueSuppressionIndex.builder().addNoSonarLine(1);
+    IssueSuppressionIndex index = builder.build();
+
+    builder.addNoSonarLine(2).addResolution(0, 1, 1);
+
+    assertThat(index.isNoSonar(2)).isFalse();
+    assertThat(index.isResolved(0, 1)).isFalse();
+  }
+
+  @Test
+  public void fail_on_invalid_lines() {
+    IssueSuppressionIndex.Builder builder = IssueSuppressionIndex.builder();
+
+    assertThatThrownBy(() -> builder.addNoSonarLine(0))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Line must be greater than 0: 0");
+    assertThatThrownBy(() -> builder.addResolution(0, 5, 4))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("End line 4 must be greater than or equal to start line 5");
+    assertThatThrownBy(() -> builder.addResolution(-1, 1, 1))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Rule ordinal can't be negative: -1");
+  }
+
+  private static TextRange range(int startLine, int endLine) {
+    TextPointer start = mock(TextPointer.class);
+    when(start.line()).thenReturn(startLine);
+    TextPointer end = mock(TextPointer.class);
+    when(end.line()).thenReturn(endLine);
+    TextRange range = mock(TextRange.class);
+    when(range.start()).thenReturn(start);
+    when(range.end()).thenReturn(end);
+    return range;
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.measure;
+
+import java.io.Serializable;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputComponent;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.measure.Metric;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.measures.CoreMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MeasureBatchTest {
+
+  private final InputFile file1 = mock(InputFile.class);
+  private final InputFile file2 = mock(InputFile.class);
+
+  @Test
+  public void columns_are_aligned_with_components() {
+    MeasureBatch batch = MeasureBatch.builder(List.of(file1, file2))
+      .addIntColumn(CoreMetrics.NCLOC, new int[] {10, 20})
+      .addLongColumn(CoreMetrics.TECHNICAL_DEBT, new long[] {5L, 6L})
+      .addDoubleColumn(CoreMetrics.COMMENT_LINES_DENSITY, new double[] {1.5, 2.5})
+      .build();
+
+    assertThat(batch.size()).isEqualTo(2);
+    assertThat(batch.components()).containsExactly(file1, file2);
+    assertThat(batch.columns()).extracting(MeasureBatch.Column::valueType).containsExactly(Integer.class, Long.class, Double.class);
+    assertThat(batch.columns().get(0).intValue(1)).isEqualTo(20);
+    assertThat(batch.columns().get(1).longValue(0)).isEqualTo(5L);
+    assertThat(batch.columns().get(2).doubleValue(1)).isEqualTo(2.5);
+    assertThat(batch.columns()).extracting(column -> column.value(0)).containsExactly(10, 5L, 1.5);
+  }
+
+  @Test
+  public void fail_to_read_values_of_another_type() {
+    MeasureBatch batch = MeasureBatch.builder(List.of(file1)).addIntColumn(CoreMetrics.NCLOC, new int[] {10}).build();
+    MeasureBatch.Column column = batch.columns().get(0);
+
+    assertThatThrownBy(() -> column.doubleValue(0))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Column of metric 'ncloc' holds values of type Integer, not Double");
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void fail_if_metric_type_does_not_match() {
+    Metric metric = CoreMetrics.COMMENT_LINES_DENSITY;
+    MeasureBatch.Builder builder = MeasureBatch.builder(List.of(file1));
+
+    assertThatThrownBy(() -> builder.addIntColumn(metric, new int[] {10}))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Metric 'comment_lines_density' has values of type Double, not Integer");
+  }
+
+  @Test
+  public void fail_if_column_is_not_aligned_with_components() {
+    MeasureBatch.Builder builder = MeasureBatch.builder(List.of(file1, file2));
+
+    assertThatThrownBy(() -> builder.addIntColumn(CoreMetrics.NCLOC, new int[] {10}))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Column of metric 'ncloc' has 1 values but there are 2 components");
+  }
+
+  @Test
+  public void fail_if_metric_is_added_twice() {
+    MeasureBatch.Builder builder = MeasureBatch.builder(List.of(file1)).addIntColumn(CoreMetrics.NCLOC, new int[] {10});
+
+    assertThatThrownBy(() -> builder.addIntColumn(CoreMetrics.NCLOC, new int[] {20}))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Metric 'ncloc' is already added to the batch");
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void sensor_context_saves_each_value_by_default() {
+    SensorContext context = mock(SensorContext.class, CALLS_REAL_METHODS);
+    NewMeasure<Serializable> newMeasure = mock(NewMeasure.class, RETURNS_SELF);
+    when(context.newMeasure()).thenReturn(newMeasure);
+    MeasureBatch batch = MeasureBatch.builder(List.<InputComponent>of(file1, file2))
+      .addIntColumn(CoreMetrics.NCLOC, new int[] {10, 20})
+      .build();
+
+    context.saveMeasures(batch);
+
+    verify(newMeasure).on(file1);
+    verify(newMeasure).withValue(10);
+    verify(newMeasure).on(file2);
+    verify(newMeasure).withValue(20);
+    verify(newMeasure, times(2)).forMetric((Metric) CoreMetrics.NCLOC);
+    verify(newMeasure, times(2)).save();
+  }
+}
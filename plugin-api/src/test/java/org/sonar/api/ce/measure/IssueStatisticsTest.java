@@ -0,0 +1,113 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.ce.measure;
+
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.issue.IssueStatus;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.testfixtures.measure.TestIssue;
+import org.sonar.api.utils.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.sonar.api.issue.Issue.RESOLUTION_FALSE_POSITIVE;
+import static org.sonar.api.issue.Issue.STATUS_OPEN;
+import static org.sonar.api.issue.Issue.STATUS_RESOLVED;
+import static org.sonar.api.issue.impact.Severity.HIGH;
+import static org.sonar.api.issue.impact.Severity.LOW;
+import static org.sonar.api.issue.impact.SoftwareQuality.MAINTAINABILITY;
+import static org.sonar.api.issue.impact.SoftwareQuality.RELIABILITY;
+import static org.sonar.api.issue.impact.SoftwareQuality.SECURITY;
+
+public class IssueStatisticsTest {
+
+  @Test
+  public void empty_statistics() {
+    IssueStatistics underTest = IssueStatistics.empty();
+
+    assertThat(underTest.count()).isZero();
+    assertThat(underTest.count(MAINTAINABILITY, HIGH)).isZero();
+    assertThat(underTest.count(RuleType.BUG)).isZero();
+    assertThat(underTest.count(IssueStatus.OPEN)).isZero();
+    assertThat(underTest.effortInMinutes()).isZero();
+  }
+
+  @Test
+  public void aggregate_issues() {
+    List<Issue> issues = List.of(
+      newIssue("A", RuleType.BUG, STATUS_OPEN, null, 10L).addImpact(RELIABILITY, HIGH).addImpact(MAINTAINABILITY, LOW).build(),
+      newIssue("B", RuleType.CODE_SMELL, STATUS_OPEN, null, 5L).addImpact(MAINTAINABILITY, LOW).build(),
+      newIssue("C", RuleType.CODE_SMELL, STATUS_RESOLVED, RESOLUTION_FALSE_POSITIVE, null).addImpact(MAINTAINABILITY, HIGH).build());
+
+    IssueStatistics underTest = IssueStatistics.of(issues.iterator());
+
+    assertThat(underTest.count()).isEqualTo(3);
+    assertThat(underTest.count(MAINTAINABILITY, LOW)).isEqualTo(2);
+    assertThat(underTest.count(MAINTAINABILITY, HIGH)).isOne();
+    assertThat(underTest.count(RELIABILITY, HIGH)).isOne();
+    assertThat(underTest.count(RELIABILITY, LOW)).isZero();
+    assertThat(underTest.count(MAINTAINABILITY)).isEqualTo(3);
+    assertThat(underTest.count(SECURITY)).isZero();
+    assertThat(underTest.count(RuleType.CODE_SMELL)).isEqualTo(2);
+    assertThat(underTest.count(RuleType.BUG)).isOne();
+    assertThat(underTest.count(IssueStatus.OPEN)).isEqualTo(2);
+    assertThat(underTest.count(IssueStatus.FALSE_POSITIVE)).isOne();
+    assertThat(underTest.effortInMinutes()).isEqualTo(15L);
+    assertThat(underTest.effortInMinutes(MAINTAINABILITY)).isEqualTo(15L);
+    assertThat(underTest.effortInMinutes(RELIABILITY)).isEqualTo(10L);
+    assertThat(underTest.effortInMinutes(RuleType.CODE_SMELL)).isEqualTo(5L);
+  }
+
+  @Test
+  public void built_statistics_are_not_affected_by_further_additions() {
+    IssueStatistics.Builder builder = IssueStatistics.builder()
+      .add(newIssue("A", RuleType.BUG, STATUS_OPEN, null, 10L).addImpact(RELIABILITY, HIGH).build());
+    IssueStatistics underTest = builder.build();
+
+    builder.add(newIssue("B", RuleType.BUG, STATUS_OPEN, null, 10L).addImpact(RELIABILITY, HIGH).build());
+
+    assertThat(underTest.count()).isOne();
+    assertThat(underTest.count(RELIABILITY, HIGH)).isOne();
+    assertThat(builder.build().count(RELIABILITY, HIGH)).isEqualTo(2);
+  }
+
+  @Test
+  public void fail_with_NPE_when_adding_null_issue() {
+    IssueStatistics.Builder builder = IssueStatistics.builder();
+
+    assertThatThrownBy(() -> builder.add(null))
+      .isInstanceOf(NullPointerException.class)
+      .hasMessage("Issue can't be null");
+  }
+
+  private static TestIssue.Builder newIssue(String key, RuleType type, String status, String resolution, Long effort) {
+    return new TestIssue.Builder()
+      .setKey(key)
+      .setRuleKey(RuleKey.of("xoo", "S01"))
+      .setSeverity(Severity.MAJOR)
+      .setStatus(status)
+      .setResolution(resolution)
+      .setEffort(effort == null ? null : Duration.create(effort))
+      .setType(type);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.config;
+
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.config.GlobalPropertyChangeHandler.PropertyChange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CachedConfigurationTest {
+
+  private static final ConfigKey<Integer> INT_KEY = ConfigKey.ofInt("foo.int");
+  private static final ConfigKey<Integer> MISSING_INT_KEY = ConfigKey.ofInt("foo.missing").withDefault(7);
+
+  private final MapConfiguration delegate = spy(new MapConfiguration());
+  private final CachedConfiguration underTest = CachedConfiguration.of(delegate);
+
+  @Test
+  public void of_does_not_wrap_cached_configuration() {
+    assertThat(CachedConfiguration.of(underTest)).isSameAs(underTest);
+  }
+
+  @Test
+  public void config_key_is_read_without_cache_by_default() {
+    delegate.put("foo.int", "42");
+
+    assertThat(delegate.getValue(INT_KEY)).isEqualTo(42);
+    assertThat(delegate.getValue(MISSING_INT_KEY)).isEqualTo(7);
+    assertThat(delegate.getValue(ConfigKey.ofInt("foo.missing"))).isNull();
+  }
+
+  @Test
+  public void config_key_value_is_converted_once() {
+    delegate.put("foo.int", "42");
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(underTest.getValue(INT_KEY)).isEqualTo(42);
+      assertThat(underTest.getValue(MISSING_INT_KEY)).isEqualTo(7);
+    }
+
+    verify(delegate, times(1)).getInt("foo.int");
+    verify(delegate, times(1)).getInt("foo.missing");
+    assertThat(underTest.getValue(INT_KEY)).isSameAs(underTest.getValue(INT_KEY));
+  }
+
+  @Test
+  public void keys_with_different_defaults_share_cached_value() {
+    ConfigKey<Integer> withDefault = INT_KEY.withDefault(1);
+
+    assertThat(underTest.getValue(INT_KEY)).isNull();
+    assertThat(underTest.getValue(withDefault)).isEqualTo(1);
+    verify(delegate, times(1)).getInt("foo.int");
+  }
+
+  @Test
+  public void typed_getters_are_cached() {
+    delegate.put("foo", "true");
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(underTest.get("foo")).hasValue("true");
+      assertThat(underTest.getBoolean("foo")).hasValue(true);
+    }
+
+    verify(delegate, times(1)).getBoolean("foo");
+  }
+
+  @Test
+  public void string_array_is_copied_from_cache() {
+    delegate.put("foo", "a,b");
+
+    String[] array = underTest.getStringArray("foo");
+    array[0] = "c";
+
+    assertThat(underTest.getStringArray("foo")).containsExactly("a", "b");
+    assertThat(underTest.getValue(ConfigKey.ofStringList("foo"))).containsExactly("a", "b");
+    assertThat(underTest.getValue(ConfigKey.ofStringList("missing"))).isEmpty();
+    verify(delegate, times(2)).getStringArray("foo");
+  }
+
+  @Test
+  public void invalidate_property() {
+    delegate.put("foo.int", "42");
+    delegate.put("foo.other", "1");
+    assertThat(underTest.getValue(INT_KEY)).isEqualTo(42);
+    assertThat(underTest.getInt("foo.other")).hasValue(1);
+
+    delegate.put("foo.int", "43");
+    assertThat(underTest.getValue(INT_KEY)).isEqualTo(42);
+    underTest.invalidationHandler().onChange(PropertyChange.create("foo.int", "43"));
+
+    assertThat(underTest.getValue(INT_KEY)).isEqualTo(43);
+    assertThat(underTest.size()).isEqualTo(2);
+
+    underTest.invalidateAll();
+    assertThat(underTest.size()).isZero();
+  }
+
+  @Test
+  public void conversion_failures_are_not_cached() {
+    delegate.put("foo.int", "bar");
+
+    assertThatThrownBy(() -> underTest.getValue(INT_KEY))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("The property 'foo.int' is not an int value: For input string: \"bar\"");
+
+    delegate.put("foo.int", "12");
+    assertThat(underTest.getValue(INT_KEY)).isEqualTo(12);
+  }
+
+  @Test
+  public void config_key_with_custom_parser() {
+    ConfigKey<List<String>> key = ConfigKey.of("foo", v -> List.of(v.split(":")));
+    delegate.put("foo", "a:b");
+
+    assertThat(underTest.getValue(key)).containsExactly("a", "b");
+    assertThat(key.key()).isEqualTo("foo");
+    assertThat(key.defaultValue()).isNull();
+  }
+
+  @Test
+  public void fail_to_create_key_without_name() {
+    assertThatThrownBy(() -> ConfigKey.ofString(""))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Key can't be empty");
+  }
+}
@@ -300,6 +300,16 @@ public class PropertyDefinitionTest {
     assertThat(def.validate("[a-zA-Z").getErrorKey()).isEqualTo("notRegexp");
   }
 
+  @Test
+  public void validation_of_regexp_is_cached_by_value() {
+    PropertyDefinition def = PropertyDefinition.builder("foo").name("foo").type(PropertyType.REGULAR_EXPRESSION).build();
+    PropertyDefinition other = PropertyDefinition.builder("bar").name("bar").type(PropertyType.REGULAR_EXPRESSION).build();
+
+    assertThat(def.validate("[a-z").getErrorKey()).isEqualTo("notRegexp");
+    assertThat(other.validate("[a-z")).isSameAs(def.validate("[a-z"));
+    assertThat(PropertyDefinition.validate(PropertyType.STRING, "[a-z", Collections.emptyList()).isValid()).isTrue();
+  }
+
   @Test
   public void validate_email() {
     PropertyDefinition def = PropertyDefinition.builder("foo").name("foo").type(PropertyType.EMAIL).build();
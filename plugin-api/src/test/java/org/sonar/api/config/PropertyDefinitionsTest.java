@@ -141,6 +141,31 @@ public class PropertyDefinitionsTest {
     assertThat(def.propertiesByCategory("Unkown").keySet()).isEmpty();
   }
 
+  @Test
+  public void category_index_is_updated_when_definitions_are_added() {
+    PropertyDefinitions def = new PropertyDefinitions(System2.INSTANCE,
+      PropertyDefinition.builder("project1").name("Project1").category("catProject").subCategory("sub").onlyOnQualifiers(org.sonar.api.resources.Qualifiers.PROJECT).build());
+    assertThat(def.propertiesByCategory(org.sonar.api.resources.Qualifiers.PROJECT)).isSameAs(def.propertiesByCategory(org.sonar.api.resources.Qualifiers.PROJECT));
+    assertThat(def.propertiesByCategory(null)).isSameAs(def.propertiesByCategory(null));
+
+    def.addComponent(PropertyDefinition.builder("project2").name("Project2").category("catProject").subCategory("sub").onlyOnQualifiers(org.sonar.api.resources.Qualifiers.PROJECT).build());
+
+    assertThat(def.propertiesByCategory(org.sonar.api.resources.Qualifiers.PROJECT).get(new Category("catProject")).get(new SubCategory("sub")))
+      .extracting(PropertyDefinition::key)
+      .containsExactly("project1", "project2");
+  }
+
+  @Test
+  public void properties_by_category_are_unmodifiable() {
+    PropertyDefinitions def = new PropertyDefinitions(System2.INSTANCE,
+      PropertyDefinition.builder("global1").name("Global1").category("catGlobal1").build());
+    var byCategory = def.propertiesByCategory(null);
+
+    assertThatThrownBy(byCategory::clear).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> byCategory.get(new Category("catGlobal1")).get(new SubCategory("catGlobal1")).clear())
+      .isInstanceOf(UnsupportedOperationException.class);
+  }
+
   @Test
   public void should_group_by_subcategory() {
     PropertyDefinitions def = new PropertyDefinitions(System2.INSTANCE,
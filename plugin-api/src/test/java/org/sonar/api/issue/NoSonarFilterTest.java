@@ -0,0 +1,53 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.issue;
+
+import java.util.BitSet;
+import java.util.Set;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class NoSonarFilterTest {
+
+  @Test
+  public void bitset_of_lines_is_converted_to_set_by_default() {
+    RecordingNoSonarFilter underTest = new RecordingNoSonarFilter();
+    BitSet lines = new BitSet();
+    lines.set(0);
+    lines.set(3);
+    lines.set(7);
+
+    assertThat(underTest.noSonarInFile(mock(InputFile.class), lines)).isSameAs(underTest);
+    assertThat(underTest.lines).containsOnly(3, 7);
+  }
+
+  private static class RecordingNoSonarFilter extends NoSonarFilter {
+    private Set<Integer> lines;
+
+    @Override
+    public NoSonarFilter noSonarInFile(InputFile inputFile, Set<Integer> noSonarLines) {
+      this.lines = noSonarLines;
+      return this;
+    }
+  }
+}
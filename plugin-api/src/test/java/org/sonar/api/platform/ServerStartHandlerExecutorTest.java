@@ -0,0 +1,279 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.platform;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.sonar.api.platform.ServerStartHandlerExecutor.Report;
+import org.sonar.api.platform.ServerStartHandlerExecutor.Status;
+import org.sonar.api.utils.dag.CyclicDependenciesException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class ServerStartHandlerExecutorTest {
+
+  private static final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+  private static CountDownLatch backgroundLatch = new CountDownLatch(0);
+
+  private final Server server = mock(Server.class);
+  private final ServerStartHandlerExecutor underTest = new ServerStartHandlerExecutor(4);
+
+  @Test
+  public void default_handlers_are_sequential_and_block_readiness() {
+    ServerStartHandler handler = s -> {
+    };
+
+    assertThat(handler.isConcurrent()).isFalse();
+    assertThat(handler.blocksReadiness()).isTrue();
+    assertThat(handler.dependsOn()).isEmpty();
+    assertThat(handler.startTimeout()).isNull();
+  }
+
+  @Test
+  public void sequential_handlers_keep_registration_order() throws Exception {
+    calls.clear();
+
+    Report report = underTest.execute(List.of(new Sequential1(), new Sequential2()), server);
+
+    report.completion().get(10, TimeUnit.SECONDS);
+    assertThat(calls).containsExactly("Sequential1", "Sequential2");
+    assertThat(report.timings()).extracting(ServerStartHandlerExecutor.HandlerTiming::status).containsOnly(Status.SUCCESS);
+  }
+
+  @Test
+  public void handlers_start_after_their_dependencies() throws Exception {
+    calls.clear();
+
+    Report report = underTest.execute(List.of(new DependsOnConcurrent(), new Concurrent()), server);
+
+    report.completion().get(10, TimeUnit.SECONDS);
+    assertThat(calls).containsExactly("Concurrent", "DependsOnConcurrent");
+  }
+
+  @Test
+  public void execute_returns_before_background_handlers_are_completed() throws Exception {
+    calls.clear();
+    backgroundLatch = new CountDownLatch(1);
+
+    Report report = underTest.execute(List.of(new Background(), new Sequential1()), server);
+
+    assertThat(report.completion()).isNotDone();
+    assertThat(report.timing(Sequential1.class).status()).isEqualTo(Status.SUCCESS);
+    assertThat(report.timing(Background.class)).isNull();
+    backgroundLatch.countDown();
+    report.completion().get(10, TimeUnit.SECONDS);
+    assertThat(report.timing(Background.class).status()).isEqualTo(Status.SUCCESS);
+  }
+
+  @Test
+  public void handler_exceeding_timeout_is_timed_out() throws Exception {
+    backgroundLatch = new CountDownLatch(1);
+    try {
+      Report report = underTest.execute(List.of(new TimingOut()), server);
+
+      report.completion().get(10, TimeUnit.SECONDS);
+      assertThat(report.timing(TimingOut.class).status()).isEqualTo(Status.TIMED_OUT);
+    } finally {
+      backgroundLatch.countDown();
+    }
+  }
+
+  @Test
+  public void sequential_handlers_chained_after_a_timed_out_handler_do_not_run_concurrently() throws Exception {
+    calls.clear();
+    backgroundLatch = new CountDownLatch(1);
+    try {
+      Report report = underTest.execute(List.of(new SequentialTimingOut(), new SequentialBackgroundRecording()), server);
+
+      report.completion().get(10, TimeUnit.SECONDS);
+      assertThat(report.timing(SequentialTimingOut.class).status()).isEqualTo(Status.TIMED_OUT);
+      assertThat(report.timing(SequentialBackgroundRecording.class).status()).isEqualTo(Status.SKIPPED);
+      assertThat(calls).isEmpty();
+    } finally {
+      backgroundLatch.countDown();
+    }
+  }
+
+  @Test
+  public void timeout_does_not_include_time_waiting_for_a_thread() throws Exception {
+    Report report = new ServerStartHandlerExecutor(1).execute(List.of(new Slow(), new QuickWithTimeout()), server);
+
+    report.completion().get(10, TimeUnit.SECONDS);
+    assertThat(report.timing(Slow.class).status()).isEqualTo(Status.SUCCESS);
+    assertThat(report.timing(QuickWithTimeout.class).status()).isEqualTo(Status.SUCCESS);
+  }
+
+  @Test
+  public void sequential_background_handler_does_not_delay_readiness() throws Exception {
+    calls.clear();
+    backgroundLatch = new CountDownLatch(1);
+    try {
+      Report report = underTest.execute(List.of(new SequentialBackground(), new Sequential1()), server);
+
+      assertThat(report.timing(Sequential1.class).status()).isEqualTo(Status.SUCCESS);
+      assertThat(report.timing(SequentialBackground.class)).isNull();
+    } finally {
+      backgroundLatch.countDown();
+    }
+  }
+
+  @Test
+  public void failure_of_blocking_handler_is_thrown_and_dependents_are_skipped() {
+    assertThatThrownBy(() -> underTest.execute(List.of(new Failing(), new Sequential1()), server))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("boom");
+  }
+
+  @Test
+  public void fail_if_dependency_is_not_registered() {
+    assertThatThrownBy(() -> underTest.execute(List.of(new DependsOnConcurrent()), server))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("which is not registered");
+  }
+
+  @Test
+  public void fail_if_dependencies_are_cyclic() {
+    assertThatThrownBy(() -> underTest.execute(List.of(new Cyclic1(), new Cyclic2()), server))
+      .isInstanceOf(CyclicDependenciesException.class);
+  }
+
+  private static class Recording implements ServerStartHandler {
+    @Override
+    public void onServerStart(Server server) {
+      calls.add(getClass().getSimpleName());
+    }
+  }
+
+  private static class Sequential1 extends Recording {
+  }
+
+  private static class Sequential2 extends Recording {
+  }
+
+  private static class Concurrent extends Recording {
+    @Override
+    public boolean isConcurrent() {
+      return true;
+    }
+  }
+
+  private static class DependsOnConcurrent extends Recording {
+    @Override
+    public boolean isConcurrent() {
+      return true;
+    }
+
+    @Override
+    public Set<Class<? extends ServerStartHandler>> dependsOn() {
+      return Set.of(Concurrent.class);
+    }
+  }
+
+  private static class Background extends Concurrent {
+    @Override
+    public void onServerStart(Server server) {
+      try {
+        backgroundLatch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public boolean blocksReadiness() {
+      return false;
+    }
+  }
+
+  private static class TimingOut extends Background {
+    @Override
+    public Duration startTimeout() {
+      return Duration.ofMillis(50);
+    }
+  }
+
+  private static class SequentialBackground extends Background {
+    @Override
+    public boolean isConcurrent() {
+      return false;
+    }
+  }
+
+  private static class SequentialTimingOut extends SequentialBackground {
+    @Override
+    public Duration startTimeout() {
+      return Duration.ofMillis(50);
+    }
+  }
+
+  private static class SequentialBackgroundRecording extends Recording {
+    @Override
+    public boolean blocksReadiness() {
+      return false;
+    }
+  }
+
+  private static class Slow extends Concurrent {
+    @Override
+    public void onServerStart(Server server) {
+      try {
+        Thread.sleep(300);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static class QuickWithTimeout extends Concurrent {
+    @Override
+    public Duration startTimeout() {
+      return Duration.ofMillis(100);
+    }
+  }
+
+  private static class Failing implements ServerStartHandler {
+    @Override
+    public void onServerStart(Server server) {
+      throw new IllegalStateException("boom");
+    }
+  }
+
+  private static class Cyclic1 extends Recording {
+    @Override
+    public Set<Class<? extends ServerStartHandler>> dependsOn() {
+      return Set.of(Cyclic2.class);
+    }
+  }
+
+  private static class Cyclic2 extends Recording {
+    @Override
+    public Set<Class<? extends ServerStartHandler>> dependsOn() {
+      return Set.of(Cyclic1.class);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.resources;
+
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.api.resources.LanguagesTest.language;
+
+public class LanguageIndexTest {
+
+  private final Language ts = language("ts", "ts", ".tsx");
+  private final Language dts = language("dts", "d.ts");
+  private final Language js = language("js", "js");
+  private final Language php = language("php", "php", "PHP");
+  private final Language hack = language("hack", "php");
+  private final LanguageIndex index = LanguageIndex.of(List.of(ts, dts, js, php, hack));
+
+  @Test
+  public void detect_language_from_suffix_ignoring_case_and_leading_dot() {
+    assertDetected("src/main/Foo.ts", ts, "ts");
+    assertDetected("Foo.TSX", ts, "tsx");
+    assertDetected("foo.js", js, "js");
+  }
+
+  @Test
+  public void longest_compound_suffix_wins() {
+    LanguageIndex.Detection detection = index.detect("types.d.ts");
+
+    assertThat(detection.language()).isSameAs(dts);
+    assertThat(detection.suffix()).isEqualTo("d.ts");
+    assertThat(detection.candidates()).containsExactly(dts, ts);
+    assertThat(detection.isAmbiguous()).isTrue();
+  }
+
+  @Test
+  public void suffix_must_follow_a_dot() {
+    assertThat(index.detect("foo.bts").candidates()).isEmpty();
+    assertThat(index.detect("ts").candidates()).isEmpty();
+    assertThat(index.detect("foo.ts.bak").candidates()).isEmpty();
+    assertThat(index.detect("foo").suffix()).isNull();
+  }
+
+  @Test
+  public void suffix_declared_by_several_languages_is_ambiguous() {
+    LanguageIndex.Detection detection = index.detect("index.php");
+
+    assertThat(detection.language()).isNull();
+    assertThat(detection.candidates()).containsExactly(php, hack);
+    assertThat(index.ambiguousSuffixes()).containsOnlyKeys("php");
+    assertThat(index.ambiguousSuffixes().get("php")).containsExactly("php", "hack");
+  }
+
+  @Test
+  public void languages_index_is_rebuilt_when_a_language_is_added() {
+    Languages languages = new Languages(ts);
+    LanguageIndex first = languages.index();
+
+    assertThat(languages.index()).isSameAs(first);
+    languages.add(js);
+    assertThat(languages.index()).isNotSameAs(first);
+    assertThat(languages.index().detect("foo.js").language()).isSameAs(js);
+  }
+
+  private void assertDetected(String fileName, Language language, String suffix) {
+    LanguageIndex.Detection detection = index.detect(fileName);
+    assertThat(detection.language()).isSameAs(language);
+    assertThat(detection.suffix()).isEqualTo(suffix);
+    assertThat(detection.isAmbiguous()).isFalse();
+  }
+}
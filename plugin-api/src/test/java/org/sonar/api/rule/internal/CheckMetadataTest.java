@@ -0,0 +1,204 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.rule.internal;
+
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.rule.AbstractCheck;
+import org.sonar.api.batch.rule.CheckWithKey;
+import org.sonar.api.batch.rule.CheckWithOverriddenPropertyKey;
+import org.sonar.api.batch.rule.CheckWithPrimitiveProperties;
+import org.sonar.api.batch.rule.CheckWithStringProperty;
+import org.sonar.api.batch.rule.ImplementedCheck;
+import org.sonar.api.utils.SonarException;
+import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CheckMetadataTest {
+
+  @Test
+  void metadata_is_cached_per_class() {
+    assertThat(CheckMetadata.of(CheckWithKey.class)).isSameAs(CheckMetadata.of(CheckWithKey.class));
+    assertThat(CheckMetadata.ofClassOrObject(new CheckWithKey())).isSameAs(CheckMetadata.of(CheckWithKey.class));
+  }
+
+  @Test
+  void rule_key_is_the_annotation_key_or_the_class_name() {
+    assertThat(CheckMetadata.of(CheckWithKey.class).ruleKey()).isEqualTo("S0001");
+    assertThat(CheckMetadata.of(CheckWithStringProperty.class).ruleKey()).isEqualTo(CheckWithStringProperty.class.getCanonicalName());
+    assertThat(CheckMetadata.of(Object.class).ruleAnnotation()).isNull();
+    assertThat(CheckMetadata.of(Object.class).ruleKey()).isEqualTo("java.lang.Object");
+  }
+
+  @Test
+  void properties_are_looked_up_by_field_name_or_annotation_key() {
+    CheckMetadata metadata = CheckMetadata.of(CheckWithOverriddenPropertyKey.class);
+
+    assertThat(metadata.properties()).extracting(CheckMetadata.PropertyField::key).containsExactly("maximum");
+    assertThat(metadata.property("max")).isSameAs(metadata.property("maximum"));
+    assertThat(metadata.property("unknown")).isNull();
+  }
+
+  @Test
+  void properties_of_parent_classes_are_loaded() {
+    CheckMetadata metadata = CheckMetadata.of(ImplementedCheck.class);
+    ImplementedCheck check = (ImplementedCheck) newInstance(metadata);
+
+    metadata.property("max").inject(check, "10");
+
+    assertThat(check.getMax()).isEqualTo(10);
+  }
+
+  @Test
+  void inject_converts_values_to_the_type_of_the_field() {
+    CheckMetadata metadata = CheckMetadata.of(CheckWithAllTypes.class);
+    CheckWithAllTypes check = (CheckWithAllTypes) newInstance(metadata);
+
+    metadata.property("string").inject(check, "foo");
+    metadata.property("intValue").inject(check, "1");
+    metadata.property("shortValue").inject(check, "2");
+    metadata.property("longValue").inject(check, "3");
+    metadata.property("doubleValue").inject(check, "4.5");
+    metadata.property("booleanValue").inject(check, "true");
+    metadata.property("byteValue").inject(check, "6");
+    metadata.property("integerObject").inject(check, "7");
+    metadata.property("longObject").inject(check, "8");
+    metadata.property("doubleObject").inject(check, "9.5");
+    metadata.property("booleanObject").inject(check, "true");
+
+    assertThat(check.string).isEqualTo("foo");
+    assertThat(check.intValue).isEqualTo(1);
+    assertThat(check.shortValue).isEqualTo((short) 2);
+    assertThat(check.longValue).isEqualTo(3L);
+    assertThat(check.doubleValue).isEqualTo(4.5);
+    assertThat(check.booleanValue).isTrue();
+    assertThat(check.byteValue).isEqualTo((byte) 6);
+    assertThat(check.integerObject).isEqualTo(7);
+    assertThat(check.longObject).isEqualTo(8L);
+    assertThat(check.doubleObject).isEqualTo(9.5);
+    assertThat(check.booleanObject).isTrue();
+  }
+
+  @Test
+  void inject_sets_public_fields_of_inaccessible_classes_and_final_fields() {
+    CheckMetadata metadata = CheckMetadata.of(PrivateCheckWithPublicAndFinalProperties.class);
+    PrivateCheckWithPublicAndFinalProperties check = (PrivateCheckWithPublicAndFinalProperties) newInstance(metadata);
+
+    metadata.property("publicValue").inject(check, "foo");
+    metadata.property("finalValue").inject(check, "bar");
+
+    assertThat(check.publicValue).isEqualTo("foo");
+    assertThat(check.getFinalValue()).isEqualTo("bar");
+  }
+
+  @Test
+  void inject_fails_if_type_of_field_is_not_supported() {
+    CheckMetadata metadata = CheckMetadata.of(CheckWithAllTypes.class);
+    Object check = newInstance(metadata);
+    CheckMetadata.PropertyField property = metadata.property("unsupported");
+
+    assertThatThrownBy(() -> property.inject(check, "foo"))
+      .isInstanceOf(SonarException.class)
+      .hasMessageContaining("is not supported: class java.lang.StringBuilder");
+  }
+
+  @Test
+  void inject_fails_if_value_is_not_a_number() {
+    CheckMetadata metadata = CheckMetadata.of(CheckWithPrimitiveProperties.class);
+    Object check = newInstance(metadata);
+    CheckMetadata.PropertyField property = metadata.property("max");
+
+    assertThatThrownBy(() -> property.inject(check, "not_an_integer"))
+      .isInstanceOf(NumberFormatException.class);
+  }
+
+  @Test
+  void newInstance_fails_on_abstract_class() {
+    CheckMetadata metadata = CheckMetadata.of(AbstractCheck.class);
+
+    assertThatThrownBy(metadata::newInstance)
+      .isInstanceOf(InstantiationException.class);
+  }
+
+  @Test
+  void newInstance_fails_without_no_arg_constructor() {
+    CheckMetadata metadata = CheckMetadata.of(CheckWithoutNoArgConstructor.class);
+
+    assertThatThrownBy(metadata::newInstance)
+      .isInstanceOf(NoSuchMethodException.class);
+  }
+
+  private static Object newInstance(CheckMetadata metadata) {
+    try {
+      return metadata.newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Rule
+  static class CheckWithAllTypes {
+    @RuleProperty
+    String string;
+    @RuleProperty
+    int intValue;
+    @RuleProperty
+    short shortValue;
+    @RuleProperty
+    long longValue;
+    @RuleProperty
+    double doubleValue;
+    @RuleProperty
+    boolean booleanValue;
+    @RuleProperty
+    byte byteValue;
+    @RuleProperty
+    Integer integerObject;
+    @RuleProperty
+    Long longObject;
+    @RuleProperty
+    Double doubleObject;
+    @RuleProperty
+    Boolean booleanObject;
+    @RuleProperty
+    StringBuilder unsupported;
+  }
+
+  @Rule
+  private static class PrivateCheckWithPublicAndFinalProperties {
+    @RuleProperty
+    public String publicValue;
+    @RuleProperty
+    private final String finalValue = null;
+
+    String getFinalValue() {
+      return finalValue;
+    }
+  }
+
+  @Rule
+  static class CheckWithoutNoArgConstructor {
+    CheckWithoutNoArgConstructor(String param) {
+      // no-arg constructor is missing
+    }
+  }
+}
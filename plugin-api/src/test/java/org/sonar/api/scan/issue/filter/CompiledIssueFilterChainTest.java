@@ -0,0 +1,140 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.scan.issue.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CompiledIssueFilterChainTest {
+
+  private static final RuleKey JAVA_S1 = RuleKey.of("java", "S1");
+  private static final RuleKey JAVA_S2 = RuleKey.of("java", "S2");
+  private static final RuleKey PYTHON_S1 = RuleKey.of("python", "S1");
+
+  private final List<String> calls = new ArrayList<>();
+  private final CompiledIssueFilterChain underTest = CompiledIssueFilterChain.compile(List.of(
+    new RecordingFilter("all", IssueFilterScope.all(), true),
+    new RecordingFilter("java", IssueFilterScope.builder().addRepositories("java").build(), true),
+    new RecordingFilter("S1 in tests", IssueFilterScope.builder().addRuleKeys(JAVA_S1).addComponentPatterns("**/test/**").build(), false)));
+
+  @Test
+  public void filters_out_of_the_scope_of_the_rule_are_not_called() {
+    FilterableIssue issue = issue(PYTHON_S1, "project:src/test/Foo.py");
+
+    assertThat(underTest.accept(issue)).isTrue();
+
+    assertThat(calls).containsExactly("all");
+    verify(issue, never()).componentKey();
+  }
+
+  @Test
+  public void filters_out_of_the_scope_of_the_component_are_not_called() {
+    assertThat(underTest.accept(issue(JAVA_S1, "project:src/main/Foo.java"))).isTrue();
+    assertThat(calls).containsExactly("all", "java");
+  }
+
+  @Test
+  public void issue_is_rejected_by_a_filter_in_scope() {
+    assertThat(underTest.accept(issue(JAVA_S1, "project:src/test/Foo.java"))).isFalse();
+    assertThat(calls).containsExactly("all", "java", "S1 in tests");
+  }
+
+  @Test
+  public void issue_is_accepted_when_there_are_no_filters() {
+    CompiledIssueFilterChain chain = CompiledIssueFilterChain.compile(List.of());
+
+    assertThat(chain.accept(issue(JAVA_S1, "project:src/test/Foo.java"))).isTrue();
+  }
+
+  @Test
+  public void filter_a_batch_of_issues_of_a_component() {
+    List<FilterableIssue> issues = List.of(
+      issue(JAVA_S1, "ignored"),
+      issue(JAVA_S2, "ignored"),
+      issue(PYTHON_S1, "ignored"),
+      issue(JAVA_S1, "ignored"));
+
+    assertThat(underTest.accept("project:src/test/Foo.java", issues)).hasToString("{1, 2}");
+    assertThat(underTest.accept("project:src/main/Foo.java", issues)).hasToString("{0, 1, 2, 3}");
+    issues.forEach(issue -> verify(issue, never()).componentKey());
+  }
+
+  @Test
+  public void scope_defaults_to_all_issues() {
+    IssueFilter filter = (issue, chain) -> chain.accept(issue);
+
+    assertThat(filter.scope()).isSameAs(IssueFilterScope.all());
+    assertThat(filter.scope().isAllRules()).isTrue();
+    assertThat(filter.scope().isAllComponents()).isTrue();
+  }
+
+  @Test
+  public void scope_applies_to_declared_rules_repositories_and_components() {
+    IssueFilterScope scope = IssueFilterScope.builder()
+      .addRuleKeys(PYTHON_S1)
+      .addRepositories("java")
+      .addComponentPatterns("**/*.java", "**/*.py")
+      .build();
+
+    assertThat(scope.appliesToRule(JAVA_S2)).isTrue();
+    assertThat(scope.appliesToRule(PYTHON_S1)).isTrue();
+    assertThat(scope.appliesToRule(RuleKey.of("python", "S2"))).isFalse();
+    assertThat(scope.appliesToComponent("project:src/Foo.py")).isTrue();
+    assertThat(scope.appliesToComponent("project:src/Foo.js")).isFalse();
+  }
+
+  private static FilterableIssue issue(RuleKey ruleKey, String componentKey) {
+    FilterableIssue issue = mock(FilterableIssue.class);
+    when(issue.ruleKey()).thenReturn(ruleKey);
+    when(issue.componentKey()).thenReturn(componentKey);
+    return issue;
+  }
+
+  private class RecordingFilter implements IssueFilter {
+    private final String name;
+    private final IssueFilterScope scope;
+    private final boolean accept;
+
+    private RecordingFilter(String name, IssueFilterScope scope, boolean accept) {
+      this.name = name;
+      this.scope = scope;
+      this.accept = accept;
+    }
+
+    @Override
+    public boolean accept(FilterableIssue issue, IssueFilterChain chain) {
+      calls.add(name);
+      return accept && chain.accept(issue);
+    }
+
+    @Override
+    public IssueFilterScope scope() {
+      return scope;
+    }
+  }
+}
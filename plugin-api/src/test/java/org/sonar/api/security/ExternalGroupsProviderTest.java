@@ -20,9 +20,11 @@
 package org.sonar.api.security;
 
 import com.google.common.base.Preconditions;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.junit.Test;
@@ -41,6 +43,37 @@ public class ExternalGroupsProviderTest {
     assertThat(groupsProvider.doGetGroups(new ExternalGroupsProvider.Context(userName, mock(HttpRequest.class)))).isNull();
   }
 
+  @Test
+  public void bulk_loading_is_not_supported_by_default() {
+    ExternalGroupsProvider groupsProvider = new ExternalGroupsProvider() {
+    };
+
+    assertThat(groupsProvider.doGetGroups(new ExternalGroupsProvider.BulkContext(List.of("foo")))).isNull();
+    assertThat(groupsProvider.doStreamGroups(new ExternalGroupsProvider.StreamContext(null, (user, groups) -> {
+    }))).isFalse();
+  }
+
+  @Test
+  public void stream_groups() {
+    Map<String, Collection<String>> userGroupsMap = getTestUserGroupMapping();
+    ExternalGroupsProvider groupsProvider = new ExternalGroupsProvider() {
+      @Override
+      public boolean doStreamGroups(StreamContext context) {
+        assertThat(context.getModifiedSince()).isEqualTo(Instant.EPOCH);
+        userGroupsMap.forEach((user, groups) -> {
+          if (groups != null) {
+            context.accept(user, groups);
+          }
+        });
+        return true;
+      }
+    };
+    Map<String, Collection<String>> streamed = new HashMap<>();
+
+    assertThat(groupsProvider.doStreamGroups(new ExternalGroupsProvider.StreamContext(Instant.EPOCH, streamed::put))).isTrue();
+    assertThat(streamed).containsOnlyKeys("userWithOneGroups", "userWithTwoGroups", "userWithNoGroup");
+  }
+
   @Test
   public void doGetGroupsTests() {
     final Map<String, Collection<String>> userGroupsMap = getTestUserGroupMapping();
@@ -0,0 +1,339 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.sonar.api.security.SecurityRealmCache.Kind;
+import org.sonar.api.server.http.HttpRequest;
+import org.sonar.api.utils.System2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SecurityRealmCacheTest {
+
+  private final System2 system2 = mock(System2.class);
+  private final Directory directory = new Directory();
+  private final SecurityRealmCache cache = SecurityRealmCache.builder()
+    .setTtl(Duration.ofMinutes(1))
+    .setMaxEntries(2)
+    .setSystem2(system2)
+    .build();
+
+  @Test
+  public void successful_authentications_are_cached() {
+    Authenticator authenticator = cache.wrap(directory.authenticator());
+
+    assertThat(authenticator.doAuthenticate(authContext("john", "secret"))).isTrue();
+    assertThat(authenticator.doAuthenticate(authContext("john", "secret"))).isTrue();
+
+    assertThat(directory.authentications).hasValue(1);
+    assertThat(cache.hits(Kind.AUTHENTICATION)).isOne();
+    assertThat(cache.misses(Kind.AUTHENTICATION)).isOne();
+  }
+
+  @Test
+  public void failed_authentications_are_not_cached() {
+    Authenticator authenticator = cache.wrap(directory.authenticator());
+    authenticator.doAuthenticate(authContext("john", "secret"));
+
+    assertThat(authenticator.doAuthenticate(authContext("john", "wrong"))).isFalse();
+    assertThat(authenticator.doAuthenticate(authContext("john", "wrong"))).isFalse();
+    assertThat(authenticator.doAuthenticate(authContext("john", "secret"))).isTrue();
+
+    assertThat(directory.authentications).hasValue(3);
+  }
+
+  @Test
+  public void new_password_is_checked_against_directory_while_old_one_is_cached_until_ttl() {
+    Authenticator authenticator = cache.wrap(directory.authenticator());
+    authenticator.doAuthenticate(authContext("john", "secret"));
+
+    directory.passwords.put("john", "new secret");
+
+    assertThat(authenticator.doAuthenticate(authContext("john", "secret"))).isTrue();
+    assertThat(authenticator.doAuthenticate(authContext("john", "new secret"))).isTrue();
+    assertThat(directory.authentications).hasValue(2);
+  }
+
+  @Test
+  public void entries_expire_after_ttl() {
+    ExternalUsersProvider users = cache.wrap(directory.usersProvider());
+    users.doGetUserDetails(usersContext("john"));
+
+    when(system2.now()).thenReturn(Duration.ofMinutes(2).toMillis());
+    users.doGetUserDetails(usersContext("john"));
+
+    assertThat(directory.userLookups).hasValue(2);
+  }
+
+  @Test
+  public void user_details_and_unknown_users_are_cached() {
+    ExternalUsersProvider users = cache.wrap(directory.usersProvider());
+
+    UserDetails details = users.doGetUserDetails(usersContext("john"));
+    details.setName("changed by caller");
+
+    assertThat(users.doGetUserDetails(usersContext("john")).getName()).isEqualTo("John");
+    assertThat(users.doGetUserDetails(usersContext("unknown"))).isNull();
+    assertThat(users.doGetUserDetails(usersContext("unknown"))).isNull();
+    assertThat(directory.userLookups).hasValue(2);
+    assertThat(cache.hits(Kind.USER_DETAILS)).isEqualTo(2);
+  }
+
+  @Test
+  public void groups_are_cached_and_bounded_in_number() {
+    ExternalGroupsProvider groups = cache.wrap(directory.groupsProvider());
+
+    assertThat(groups.doGetGroups(groupsContext("john"))).containsExactly("devs", "admins");
+    groups.doGetGroups(groupsContext("jane"));
+    groups.doGetGroups(groupsContext("jack"));
+    groups.doGetGroups(groupsContext("john"));
+
+    assertThat(cache.size(Kind.GROUPS)).isEqualTo(2);
+    assertThat(directory.groupLookups).hasValue(4);
+  }
+
+  @Test
+  public void invalidate_user() {
+    ExternalGroupsProvider groups = cache.wrap(directory.groupsProvider());
+    groups.doGetGroups(groupsContext("john"));
+
+    cache.invalidate("john");
+    groups.doGetGroups(groupsContext("john"));
+
+    assertThat(directory.groupLookups).hasValue(2);
+  }
+
+  @Test
+  public void lookup_in_progress_during_invalidation_is_not_cached() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    directory.latch = release;
+    ExternalGroupsProvider groups = cache.wrap(directory.groupsProvider());
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Collection<String>> lookup = executor.submit(() -> groups.doGetGroups(groupsContext("john")));
+      while (directory.groupLookups.get() < 1) {
+        Thread.sleep(10);
+      }
+
+      cache.invalidate("john");
+      release.countDown();
+
+      assertThat(lookup.get(10, TimeUnit.SECONDS)).containsExactly("devs", "admins");
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(cache.size(Kind.GROUPS)).isZero();
+    groups.doGetGroups(groupsContext("john"));
+    assertThat(directory.groupLookups).hasValue(2);
+  }
+
+  @Test
+  public void authentication_in_progress_during_invalidate_all_is_not_cached() {
+    Authenticator authenticator = cache.wrap(new Authenticator() {
+      @Override
+      public boolean doAuthenticate(Context context) {
+        cache.invalidateAll();
+        return true;
+      }
+    });
+
+    assertThat(authenticator.doAuthenticate(authContext("john", "secret"))).isTrue();
+
+    assertThat(cache.size(Kind.AUTHENTICATION)).isZero();
+  }
+
+  @Test
+  public void concurrent_lookups_of_same_user_are_coalesced() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    directory.latch = release;
+    ExternalGroupsProvider groups = cache.wrap(directory.groupsProvider());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Collection<String>>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> groups.doGetGroups(groupsContext("john"))));
+      }
+      while (cache.hits(Kind.GROUPS) + cache.misses(Kind.GROUPS) < 4) {
+        Thread.sleep(10);
+      }
+      release.countDown();
+      for (Future<Collection<String>> future : futures) {
+        assertThat(future.get(10, TimeUnit.SECONDS)).containsExactly("devs", "admins");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(directory.groupLookups).hasValue(1);
+  }
+
+  @Test
+  public void warm_up_groups_with_bulk_loading() {
+    ExternalGroupsProvider provider = directory.groupsProvider();
+    ExternalGroupsProvider groups = cache.wrap(provider);
+
+    assertThat(cache.warmUpGroups(provider, List.of("john", "unknown"))).isTrue();
+
+    assertThat(groups.doGetGroups(groupsContext("john"))).containsExactly("devs");
+    assertThat(groups.doGetGroups(groupsContext("unknown"))).isNull();
+    assertThat(directory.groupLookups).hasValue(0);
+  }
+
+  @Test
+  public void sync_groups_with_streaming() {
+    ExternalGroupsProvider provider = directory.groupsProvider();
+    ExternalGroupsProvider groups = cache.wrap(provider);
+    groups.doGetGroups(groupsContext("john"));
+
+    assertThat(cache.syncGroups(provider, Instant.EPOCH)).isTrue();
+
+    assertThat(groups.doGetGroups(groupsContext("john"))).containsExactly("devs");
+    assertThat(directory.groupLookups).hasValue(1);
+  }
+
+  @Test
+  public void warm_up_and_sync_are_skipped_if_not_supported() {
+    ExternalGroupsProvider provider = new ExternalGroupsProvider() {
+    };
+
+    assertThat(cache.warmUpGroups(provider, List.of("john"))).isFalse();
+    assertThat(cache.syncGroups(provider, null)).isFalse();
+    assertThat(cache.size(Kind.GROUPS)).isZero();
+  }
+
+  @Test
+  public void failures_are_not_cached() {
+    directory.failure = new IllegalStateException("directory is down");
+    ExternalGroupsProvider groups = cache.wrap(directory.groupsProvider());
+
+    assertThatThrownBy(() -> groups.doGetGroups(groupsContext("john"))).hasMessage("directory is down");
+    directory.failure = null;
+
+    assertThat(groups.doGetGroups(groupsContext("john"))).containsExactly("devs", "admins");
+  }
+
+  @Test
+  public void realm_has_no_cache_by_default() {
+    SecurityRealm realm = new SecurityRealm() {
+      @Override
+      public Authenticator doGetAuthenticator() {
+        return directory.authenticator();
+      }
+    };
+
+    assertThat(realm.getCache()).isNull();
+  }
+
+  private static Authenticator.Context authContext(String username, String password) {
+    return new Authenticator.Context(username, password, mock(HttpRequest.class));
+  }
+
+  private static ExternalUsersProvider.Context usersContext(String username) {
+    return new ExternalUsersProvider.Context(username, mock(HttpRequest.class));
+  }
+
+  private static ExternalGroupsProvider.Context groupsContext(String username) {
+    return new ExternalGroupsProvider.Context(username, mock(HttpRequest.class));
+  }
+
+  /**
+   * In-memory stand-in of a LDAP directory, counting the calls.
+   */
+  private static class Directory {
+    private final Map<String, String> passwords = new HashMap<>(Map.of("john", "secret", "jane", "password", "jack", "jack"));
+    private final AtomicInteger authentications = new AtomicInteger();
+    private final AtomicInteger userLookups = new AtomicInteger();
+    private final AtomicInteger groupLookups = new AtomicInteger();
+    private volatile CountDownLatch latch = new CountDownLatch(0);
+    private volatile RuntimeException failure;
+
+    private Authenticator authenticator() {
+      return new Authenticator() {
+        @Override
+        public boolean doAuthenticate(Context context) {
+          authentications.incrementAndGet();
+          return context.getPassword().equals(passwords.get(context.getUsername()));
+        }
+      };
+    }
+
+    private ExternalUsersProvider usersProvider() {
+      return new ExternalUsersProvider() {
+        @Override
+        public UserDetails doGetUserDetails(Context context) {
+          userLookups.incrementAndGet();
+          if (!passwords.containsKey(context.getUsername())) {
+            return null;
+          }
+          UserDetails details = new UserDetails();
+          details.setName("John");
+          return details;
+        }
+      };
+    }
+
+    private ExternalGroupsProvider groupsProvider() {
+      return new ExternalGroupsProvider() {
+        @Override
+        public Collection<String> doGetGroups(Context context) {
+          groupLookups.incrementAndGet();
+          if (failure != null) {
+            throw failure;
+          }
+          try {
+            latch.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return List.of("devs", "admins");
+        }
+
+        @Override
+        public Map<String, Collection<String>> doGetGroups(BulkContext context) {
+          Map<String, Collection<String>> result = new HashMap<>();
+          context.getUsernames().stream().filter(passwords::containsKey).forEach(user -> result.put(user, List.of("devs")));
+          return result;
+        }
+
+        @Override
+        public boolean doStreamGroups(StreamContext context) {
+          passwords.keySet().forEach(user -> context.accept(user, List.of("devs")));
+          return true;
+        }
+      };
+    }
+  }
+}
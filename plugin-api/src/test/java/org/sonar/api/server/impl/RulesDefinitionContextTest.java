@@ -26,8 +26,13 @@ import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.junit.Assume;
 import org.junit.Rule;
@@ -498,6 +503,57 @@ public class RulesDefinitionContextTest {
     assertThat(rule.markdownDescription()).isEqualTo("description of rule loaded from file");
   }
 
+  @Test
+  public void load_rule_html_description_lazily() {
+    AtomicInteger calls = new AtomicInteger();
+    RulesDefinition.NewRepository newRepository = context.createRepository("findbugs", "java");
+    newRepository.createRule("NPE").setName("NPE").setHtmlDescription(() -> {
+      calls.incrementAndGet();
+      return "lazy description";
+    });
+    newRepository.done();
+
+    RulesDefinition.Rule rule = context.repository("findbugs").rule("NPE");
+    assertThat(calls).hasValue(0);
+    assertThat(rule.htmlDescription()).isEqualTo("lazy description");
+    assertThat(rule.htmlDescription()).isEqualTo("lazy description");
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  public void define_repositories_of_different_plugins_concurrently() throws Exception {
+    int nbPlugins = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(nbPlugins);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < nbPlugins; i++) {
+        String pluginKey = "plugin" + i;
+        futures.add(executor.submit(() -> {
+          context.setCurrentPluginKey(pluginKey);
+          RulesDefinition.NewRepository own = context.createRepository(pluginKey, "java");
+          own.createRule("rule").setName("Rule").setHtmlDescription("desc");
+          own.done();
+          RulesDefinition.NewRepository shared = context.createRepository("shared", "java");
+          shared.createRule("rule_" + pluginKey).setName("Rule").setHtmlDescription("desc");
+          shared.done();
+          context.setCurrentPluginKey(null);
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(context.repositories()).hasSize(nbPlugins + 1);
+    assertThat(context.repository("shared").rules()).hasSize(nbPlugins);
+    for (int i = 0; i < nbPlugins; i++) {
+      assertThat(context.repository("plugin" + i).rule("rule").pluginKey()).isEqualTo("plugin" + i);
+      assertThat(context.repository("shared").rule("rule_plugin" + i).pluginKey()).isEqualTo("plugin" + i);
+    }
+  }
+
   @Test
   public void fail_to_load_html_rule_description_from_file() {
     RulesDefinition.NewRepository newRepository = context.createRepository("findbugs", "java");
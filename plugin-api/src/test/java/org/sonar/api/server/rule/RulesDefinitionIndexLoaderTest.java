@@ -0,0 +1,206 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.server.rule;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.sonar.api.issue.impact.Severity;
+import org.sonar.api.issue.impact.SoftwareQuality;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.RuleScope;
+import org.sonar.api.rule.RuleStatus;
+import org.sonar.api.rules.CleanCodeAttribute;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.server.debt.DebtRemediationFunction;
+import org.sonar.api.server.impl.RulesDefinitionContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+public class RulesDefinitionIndexLoaderTest {
+
+  private final RulesDefinitionIndexLoader underTest = new RulesDefinitionIndexLoader();
+
+  @Test
+  public void load_rules_written_from_xml_definition() {
+    RulesDefinition.Context xmlContext = new RulesDefinitionContext();
+    RulesDefinition.NewRepository xmlRepository = xmlContext.createRepository("squid", "java");
+    InputStream input = getClass().getResourceAsStream("RulesDefinitionXmlLoaderTest/rules.xml");
+    new RulesDefinitionXmlLoader().load(xmlRepository, input, StandardCharsets.UTF_8);
+    xmlRepository.done();
+
+    RulesDefinition.Repository repository = load(write(xmlContext.repository("squid")));
+
+    assertThat(repository.rules()).hasSize(2);
+    RulesDefinition.Rule rule = repository.rule("complete");
+    assertThat(rule.name()).isEqualTo("Complete");
+    assertThat(rule.htmlDescription()).isEqualTo("Description of Complete");
+    assertThat(rule.severity()).isEqualTo(org.sonar.api.rule.Severity.BLOCKER);
+    assertThat(rule.template()).isTrue();
+    assertThat(rule.status()).isEqualTo(RuleStatus.BETA);
+    assertThat(rule.internalKey()).isEqualTo("Checker/TreeWalker/LocalVariableName");
+    assertThat(rule.type()).isEqualTo(RuleType.BUG);
+    assertThat(rule.tags()).containsOnly("misra", "spring");
+    assertThat(rule.params()).hasSize(2);
+    RulesDefinition.Param ignore = rule.param("ignore");
+    assertThat(ignore.description()).isEqualTo("Ignore ?");
+    assertThat(ignore.defaultValue()).isEqualTo("false");
+    assertThat(ignore.type()).isEqualTo(xmlContext.repository("squid").rule("complete").param("ignore").type());
+
+    rule = repository.rule("minimal");
+    assertThat(rule.htmlDescription()).isEqualTo("Description of Minimal");
+    assertThat(rule.params()).isEmpty();
+    assertThat(rule.status()).isEqualTo(RuleStatus.READY);
+    assertThat(rule.severity()).isEqualTo(org.sonar.api.rule.Severity.MAJOR);
+    assertThat(rule.type()).isEqualTo(RuleType.CODE_SMELL);
+  }
+
+  @Test
+  public void load_all_supported_attributes() {
+    RulesDefinition.Context context = new RulesDefinitionContext();
+    RulesDefinition.NewRepository newRepository = context.createRepository("repo", "java");
+    RulesDefinition.NewRule newRule = newRepository.createRule("S1")
+      .setName("Rule")
+      .setHtmlDescription("<p>Déscription</p>")
+      .setScope(RuleScope.TEST)
+      .setActivatedByDefault(true)
+      .setCleanCodeAttribute(CleanCodeAttribute.CLEAR)
+      .addDefaultImpact(SoftwareQuality.RELIABILITY, Severity.HIGH)
+      .setGapDescription("gap")
+      .addDeprecatedRuleKey("old", "S0")
+      .addEducationPrincipleKeys("defense_in_depth")
+      .addDescriptionSection(new RuleDescriptionSectionBuilder().sectionKey("how_to_fix").htmlContent("fix it")
+        .context(new Context("spring", "Spring")).build());
+    newRule.setDebtRemediationFunction(newRule.debtRemediationFunctions().linearWithOffset("1min", "5min"));
+    newRule.createParam("max").setName("Max").setType(RuleParamType.INTEGER).setDefaultValue("10");
+    newRepository.done();
+
+    RulesDefinition.Rule rule = load(write(context.repository("repo"))).rule("S1");
+
+    assertThat(rule.htmlDescription()).isEqualTo("<p>Déscription</p>");
+    assertThat(rule.scope()).isEqualTo(RuleScope.TEST);
+    assertThat(rule.activatedByDefault()).isTrue();
+    assertThat(rule.cleanCodeAttribute()).isEqualTo(CleanCodeAttribute.CLEAR);
+    assertThat(rule.defaultImpacts()).containsOnly(entry(SoftwareQuality.RELIABILITY, Severity.HIGH));
+    assertThat(rule.gapDescription()).isEqualTo("gap");
+    assertThat(rule.deprecatedRuleKeys()).containsOnly(RuleKey.of("old", "S0"));
+    assertThat(rule.educationPrincipleKeys()).containsOnly("defense_in_depth");
+    assertThat(rule.ruleDescriptionSections()).hasSize(1);
+    RuleDescriptionSection section = rule.ruleDescriptionSections().get(0);
+    assertThat(section.getKey()).isEqualTo("how_to_fix");
+    assertThat(section.getHtmlContent()).isEqualTo("fix it");
+    assertThat(section.getContext()).hasValueSatisfying(c -> assertThat(c.getDisplayName()).isEqualTo("Spring"));
+    assertThat(rule.debtRemediationFunction().type()).isEqualTo(DebtRemediationFunction.Type.LINEAR_OFFSET);
+    assertThat(rule.debtRemediationFunction().gapMultiplier()).isEqualTo("1min");
+    assertThat(rule.debtRemediationFunction().baseEffort()).isEqualTo("5min");
+    assertThat(rule.param("max").name()).isEqualTo("Max");
+    assertThat(rule.param("max").type()).isEqualTo(RuleParamType.INTEGER);
+    assertThat(rule.param("max").defaultValue()).isEqualTo("10");
+  }
+
+  @Test
+  public void load_security_standards() {
+    RulesDefinition.Context context = new RulesDefinitionContext();
+    RulesDefinition.NewRepository newRepository = context.createRepository("repo", "java");
+    newRepository.createRule("S1")
+      .setName("Rule")
+      .setHtmlDescription("desc")
+      .addOwaspTop10(RulesDefinition.OwaspTop10.A1, RulesDefinition.OwaspTop10.A10)
+      .addOwaspTop10(RulesDefinition.OwaspTop10Version.Y2021, RulesDefinition.OwaspTop10.A3)
+      .addOwaspMobileTop10(RulesDefinition.OwaspMobileTop10Version.Y2024, RulesDefinition.OwaspMobileTop10.M4)
+      .addOwaspLlmTop10(RulesDefinition.OwaspLlmTop10Version.Y2025, RulesDefinition.OwaspLlmTop10.LLM01)
+      .addOwaspAsvs(RulesDefinition.OwaspAsvsVersion.V4_0, "2.1.1", "14.2.3")
+      .addMasvs(RulesDefinition.MasvsVersion.V2, "MASVS-CRYPTO-1")
+      .addPciDss(RulesDefinition.PciDssVersion.V4_0, "6.5.1")
+      .addCwe(79, 89)
+      .addStig(RulesDefinition.StigVersion.ASD_V6, "V-222612");
+    newRepository.done();
+    RulesDefinition.Rule expected = context.repository("repo").rule("S1");
+
+    RulesDefinition.Rule rule = load(write(context.repository("repo"))).rule("S1");
+
+    assertThat(rule.securityStandards())
+      .hasSize(12)
+      .containsExactlyInAnyOrderElementsOf(expected.securityStandards())
+      .contains("owaspTop10:a1", "owaspTop10-2021:a3", "cwe:79", "stig-ASD_V6:V-222612");
+  }
+
+  @Test
+  public void html_descriptions_are_loaded_lazily() {
+    AtomicInteger calls = new AtomicInteger();
+    RulesDefinition.Context context = new RulesDefinitionContext();
+    RulesDefinition.NewRepository newRepository = context.createRepository("repo", "java");
+    newRepository.createRule("S1").setName("Rule").setHtmlDescription(() -> {
+      calls.incrementAndGet();
+      return "lazy";
+    });
+    newRepository.done();
+
+    byte[] index = write(context.repository("repo"));
+
+    assertThat(calls).hasValue(1);
+    assertThat(load(index).rule("S1").htmlDescription()).isEqualTo("lazy");
+  }
+
+  @Test
+  public void fail_if_not_a_rules_index() {
+    RulesDefinition.Context context = new RulesDefinitionContext();
+    RulesDefinition.NewRepository newRepository = context.createRepository("repo", "java");
+    InputStream input = new ByteArrayInputStream("<rules></rules>".getBytes(StandardCharsets.UTF_8));
+
+    assertThatThrownBy(() -> underTest.load(newRepository, input))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Rules index is not valid for repository repo");
+  }
+
+  @Test
+  public void fail_if_truncated_index() {
+    RulesDefinition.Context context = new RulesDefinitionContext();
+    RulesDefinition.NewRepository newRepository = context.createRepository("repo", "java");
+    newRepository.createRule("S1").setName("Rule").setHtmlDescription("desc");
+    newRepository.done();
+    byte[] index = write(context.repository("repo"));
+    byte[] truncated = Arrays.copyOf(index, index.length - 10);
+
+    assertThatThrownBy(() -> load(truncated))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Error while reading rules index for repository squid");
+  }
+
+  private static byte[] write(RulesDefinition.Repository repository) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new RulesDefinitionIndexWriter().write(repository, output);
+    return output.toByteArray();
+  }
+
+  private RulesDefinition.Repository load(byte[] index) {
+    RulesDefinition.Context context = new RulesDefinitionContext();
+    RulesDefinition.NewRepository newRepository = context.createRepository("squid", "java");
+    underTest.load(newRepository, new ByteArrayInputStream(index));
+    newRepository.done();
+    return context.repository("squid");
+  }
+}
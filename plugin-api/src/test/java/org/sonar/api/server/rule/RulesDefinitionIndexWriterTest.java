@@ -0,0 +1,51 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.server.rule;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.sonar.api.server.impl.RulesDefinitionContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RulesDefinitionIndexWriterTest {
+
+  private final RulesDefinitionIndexWriter underTest = new RulesDefinitionIndexWriter();
+  private final RulesDefinition.Context context = new RulesDefinitionContext();
+
+  @Test
+  public void write_header() throws IOException {
+    RulesDefinition.NewRepository newRepository = context.createRepository("repo", "java");
+    newRepository.createRule("S1").setName("Rule").setHtmlDescription("desc");
+    newRepository.done();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    underTest.write(context.repository("repo"), output);
+
+    DataInputStream data = new DataInputStream(new ByteArrayInputStream(output.toByteArray()));
+    assertThat(data.readInt()).isEqualTo(RulesDefinitionIndexLoader.MAGIC);
+    assertThat(data.readInt()).isEqualTo(RulesDefinitionIndexLoader.VERSION);
+    // descriptions are stored first
+    assertThat(data.readInt()).isEqualTo("desc".length());
+  }
+}
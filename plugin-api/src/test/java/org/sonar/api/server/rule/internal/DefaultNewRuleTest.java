@@ -19,8 +19,19 @@
  */
 package org.sonar.api.server.rule.internal;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.issue.impact.Severity;
 import org.sonar.api.issue.impact.SoftwareQuality;
 import org.sonar.api.rule.RuleKey;
@@ -65,6 +76,9 @@ public class DefaultNewRuleTest {
   private static final Context CONTEXT_WITH_KEY_2 = new Context("ctx2", "DISPLAY_2");
   private static final RuleDescriptionSection CONTEXT_AWARE_RULE_DESCRIPTION_SECTION = new RuleDescriptionSectionBuilder().sectionKey(
     RULE_DESCRIPTION_SECTION.getKey()).htmlContent("Html desc").context(CONTEXT_WITH_KEY_1).build();
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   private final DefaultNewRule rule = new DefaultNewRule("plugin", "repo", "key");
 
   @Before
@@ -214,6 +228,108 @@ public class DefaultNewRuleTest {
     rule.validate();
   }
 
+  @Test
+  public void lazy_html_description_is_not_resolved_by_validation() {
+    AtomicInteger calls = new AtomicInteger();
+    rule.setHtmlDescription(() -> {
+      calls.incrementAndGet();
+      return "  html  ";
+    });
+    rule.setName("name");
+    rule.validate();
+
+    assertThat(calls).hasValue(0);
+    assertThat(rule.htmlDescription()).isEqualTo("html");
+    assertThat(rule.htmlDescription()).isEqualTo("html");
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  public void html_description_from_url_is_read_on_first_access() throws Exception {
+    AtomicInteger opened = new AtomicInteger();
+    URL url = new URL("test", null, 0, "/rule.html", new URLStreamHandler() {
+      @Override
+      protected URLConnection openConnection(URL u) {
+        opened.incrementAndGet();
+        return new URLConnection(u) {
+          @Override
+          public void connect() {
+            // nothing to do
+          }
+
+          @Override
+          public InputStream getInputStream() {
+            return new ByteArrayInputStream("<p>html</p>".getBytes(StandardCharsets.UTF_8));
+          }
+        };
+      }
+    });
+    rule.setHtmlDescription(url);
+    rule.setName("name");
+    rule.validate();
+
+    assertThat(opened).hasValue(0);
+    assertThat(rule.htmlDescription()).isEqualTo("<p>html</p>");
+    assertThat(rule.htmlDescription()).isEqualTo("<p>html</p>");
+    assertThat(opened).hasValue(1);
+  }
+
+  @Test
+  public void fail_if_html_description_file_does_not_exist() throws Exception {
+    URL url = new File(temp.getRoot(), "missing.html").toURI().toURL();
+
+    assertThatThrownBy(() -> rule.setHtmlDescription(url))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Fail to read: " + url);
+  }
+
+  @Test
+  public void empty_html_description_file_is_rejected_by_validation() throws Exception {
+    File file = temp.newFile("empty.html");
+    rule.setHtmlDescription(file.toURI().toURL());
+    rule.setName("name");
+
+    assertThatThrownBy(rule::validate)
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("One of HTML description or Markdown description must be defined for rule [repository=repo, key=key]");
+  }
+
+  @Test
+  public void html_description_file_is_read_on_first_access() throws Exception {
+    File file = temp.newFile("rule.html");
+    Files.writeString(file.toPath(), "<p>before</p>");
+    rule.setHtmlDescription(file.toURI().toURL());
+    Files.writeString(file.toPath(), "<p>after</p>");
+
+    assertThat(rule.htmlDescription()).isEqualTo("<p>after</p>");
+  }
+
+  @Test
+  public void html_description_overrides_lazy_html_description() {
+    rule.setHtmlDescription(() -> "lazy");
+    rule.setHtmlDescription("html");
+
+    assertThat(rule.htmlDescription()).isEqualTo("html");
+  }
+
+  @Test
+  @SuppressWarnings({"removal"})
+  public void fail_setting_markdown_if_lazy_html_is_set() {
+    rule.setHtmlDescription(() -> "html");
+
+    assertThatThrownBy(() -> rule.setMarkdownDescription("markdown"))
+      .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  @SuppressWarnings({"removal"})
+  public void fail_setting_lazy_html_if_markdown_is_set() {
+    rule.setMarkdownDescription("markdown");
+
+    assertThatThrownBy(() -> rule.setHtmlDescription(() -> "html"))
+      .isInstanceOf(IllegalStateException.class);
+  }
+
   @Test
   @SuppressWarnings({"removal"})
   public void set_markdown_description() {
@@ -0,0 +1,122 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.server.ws;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Test;
+import org.sonar.api.server.ws.LocalConnector.LocalRequest;
+import org.sonar.api.server.ws.LocalConnector.LocalResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LocalConnectorTest {
+
+  private final LocalRequest request = mock(LocalRequest.class, CALLS_REAL_METHODS);
+
+  @Test
+  public void local_request_does_not_accept_object_result_by_default() {
+    assertThat(request.acceptsObjectResult()).isFalse();
+  }
+
+  @Test
+  public void typed_call_returns_object_result_without_decoding() {
+    List<String> result = List.of("a", "b");
+    LocalConnector underTest = r -> {
+      assertThat(r.acceptsObjectResult()).isTrue();
+      return response(new byte[0], r.acceptsObjectResult() ? result : null);
+    };
+
+    List<?> list = underTest.call(request, List.class, r -> {
+      throw new AssertionError("should not decode");
+    });
+
+    assertThat(list).isSameAs(result);
+  }
+
+  @Test
+  public void typed_call_decodes_wire_format_if_handler_does_not_provide_object_result() {
+    LocalConnector underTest = r -> response("foo".getBytes(StandardCharsets.UTF_8), null);
+
+    String result = underTest.call(request, String.class, r -> StandardCharsets.UTF_8.decode(r.getByteBuffer()).toString());
+
+    assertThat(result).isEqualTo("foo");
+  }
+
+  @Test
+  public void typed_call_decodes_wire_format_if_object_result_has_unexpected_type() {
+    LocalConnector underTest = r -> response("foo".getBytes(StandardCharsets.UTF_8), 42);
+
+    String result = underTest.call(request, String.class, r -> new String(r.getBytes(), StandardCharsets.UTF_8));
+
+    assertThat(result).isEqualTo("foo");
+  }
+
+  @Test
+  public void typed_call_delegates_request_attributes() {
+    when(request.getPath()).thenReturn("api/issues/search");
+    when(request.getMethod()).thenReturn("GET");
+    when(request.getParam("p")).thenReturn("1");
+    when(request.getHeader("h")).thenReturn(Optional.of("v"));
+    when(request.getParameterMap()).thenReturn(Map.of("p", new String[] {"1"}));
+    LocalConnector underTest = r -> response(new byte[0], r.getPath() + " " + r.getMethod() + " " + r.getParam("p") + " " + r.getHeader("h").get()
+      + " " + r.getParameterMap().keySet());
+
+    String result = underTest.call(request, String.class, r -> null);
+
+    assertThat(result).isEqualTo("api/issues/search GET 1 v [p]");
+  }
+
+  @Test
+  public void byte_buffer_of_response_is_read_only_view_of_body() {
+    LocalResponse response = response(new byte[] {1, 2, 3}, null);
+
+    ByteBuffer buffer = response.getByteBuffer();
+
+    assertThat(buffer.isReadOnly()).isTrue();
+    assertThat(buffer.remaining()).isEqualTo(3);
+    assertThat(buffer.get(2)).isEqualTo((byte) 3);
+  }
+
+  @Test
+  public void response_does_not_accept_object_result_by_default() {
+    Response response = mock(Response.class, CALLS_REAL_METHODS);
+
+    assertThat(response.acceptsObjectResult()).isFalse();
+    assertThatThrownBy(() -> response.setObjectResult("foo"))
+      .isInstanceOf(UnsupportedOperationException.class)
+      .hasMessage("Object results are not accepted by the caller of this request");
+  }
+
+  private static LocalResponse response(byte[] body, Object objectResult) {
+    LocalResponse response = mock(LocalResponse.class, CALLS_REAL_METHODS);
+    when(response.getStatus()).thenReturn(200);
+    when(response.getBytes()).thenReturn(body);
+    when(response.getObjectResult()).thenReturn(objectResult);
+    return response;
+  }
+}
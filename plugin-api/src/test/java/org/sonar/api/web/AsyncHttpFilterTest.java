@@ -0,0 +1,157 @@
+/*
+ * Sonar Plugin API
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.web;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.sonar.api.server.http.HttpRequest;
+import org.sonar.api.server.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncHttpFilterTest {
+
+  private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final HttpRequest request = mock(HttpRequest.class);
+  private final HttpResponse response = mock(HttpResponse.class);
+  private final AsyncFilterChain resource = AsyncFilterChain.fromBlocking((req, res) -> calls.add("resource"), executor);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void filter_should_apply_to_all_urls_by_default() {
+    AsyncHttpFilter filter = new RecordingFilter("filter");
+
+    assertThat(filter.doGetPattern().matches("/")).isTrue();
+    assertThat(filter.doGetPattern().matches("/foo/bar")).isTrue();
+  }
+
+  @Test
+  public void filters_are_chained_in_order() throws Exception {
+    requestPath("/ctx", "/api/issues");
+    AsyncFilterChain chain = AsyncFilterChain.of(List.of(new RecordingFilter("first"), new RecordingFilter("second")), resource);
+
+    chain.doFilter(request, response).toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+    assertThat(calls).containsExactly("first", "second", "resource", "second done", "first done");
+  }
+
+  @Test
+  public void filters_whose_pattern_does_not_match_are_skipped() throws Exception {
+    requestPath("/ctx", "/api/issues");
+    AsyncHttpFilter webFilter = new RecordingFilter("web") {
+      @Override
+      public UrlPattern doGetPattern() {
+        return UrlPattern.create("/web/*");
+      }
+    };
+    AsyncFilterChain chain = AsyncFilterChain.of(List.of(webFilter, new RecordingFilter("all")), resource);
+
+    chain.doFilter(request, response).toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+    assertThat(calls).containsExactly("all", "resource", "all done");
+  }
+
+  @Test
+  public void blocking_filters_are_chained_with_asynchronous_filters() throws Exception {
+    requestPath("", "/api/issues");
+    HttpFilter blocking = new HttpFilter() {
+      @Override
+      public void doFilter(HttpRequest request, HttpResponse response, FilterChain chain) throws IOException {
+        calls.add("blocking");
+        chain.doFilter(request, response);
+        calls.add("blocking done");
+      }
+
+      @Override
+      public UrlPattern doGetPattern() {
+        return UrlPattern.create("/api/*");
+      }
+    };
+    AsyncHttpFilter adapted = AsyncHttpFilter.fromBlocking(blocking, executor);
+    AsyncFilterChain chain = AsyncFilterChain.of(List.of(new RecordingFilter("async"), adapted), resource);
+
+    chain.doFilter(request, response).toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+    assertThat(adapted.doGetPattern().matches("/api/issues")).isTrue();
+    assertThat(calls).containsExactly("async", "blocking", "resource", "blocking done", "async done");
+  }
+
+  @Test
+  public void failures_complete_the_stage_exceptionally() {
+    requestPath("", "/api/issues");
+    AsyncHttpFilter throwing = new AsyncHttpFilter() {
+      @Override
+      public CompletionStage<Void> doFilter(HttpRequest request, HttpResponse response, AsyncFilterChain chain) {
+        throw new IllegalStateException("boom");
+      }
+    };
+    AsyncFilterChain failingResource = AsyncFilterChain.fromBlocking((req, res) -> {
+      throw new IOException("broken pipe");
+    }, executor);
+
+    assertThatThrownBy(() -> AsyncFilterChain.of(List.of(throwing), resource).doFilter(request, response).toCompletableFuture().get())
+      .isInstanceOf(ExecutionException.class)
+      .hasCauseInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> AsyncFilterChain.of(List.of(), failingResource).doFilter(request, response).toCompletableFuture().get())
+      .isInstanceOf(ExecutionException.class)
+      .hasCauseInstanceOf(UncheckedIOException.class);
+  }
+
+  private void requestPath(String contextPath, String path) {
+    when(request.getContextPath()).thenReturn(contextPath);
+    when(request.getRequestURI()).thenReturn(contextPath + path);
+  }
+
+  private class RecordingFilter extends AsyncHttpFilter {
+    private final String name;
+
+    private RecordingFilter(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public CompletionStage<Void> doFilter(HttpRequest request, HttpResponse response, AsyncFilterChain chain) {
+      calls.add(name);
+      return CompletableFuture.runAsync(() -> {
+      }, executor)
+        .thenCompose(v -> chain.doFilter(request, response))
+        .thenRun(() -> calls.add(name + " done"));
+    }
+  }
+}
@@ -23,7 +23,9 @@ import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 import org.sonar.api.ce.measure.Component;
 import org.sonar.api.ce.measure.Issue;
+import org.sonar.api.ce.measure.IssueStatistics;
 import org.sonar.api.ce.measure.Settings;
+import org.sonar.api.issue.IssueStatus;
 import org.sonar.api.issue.impact.SoftwareQuality;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
@@ -205,4 +207,26 @@ class TestMeasureComputerContextTest {
 
     assertThat(underTest.getIssues()).hasSize(1);
   }
+
+  @Test
+  void get_issues_iterator_and_statistics() {
+    Issue issue = new TestIssue.Builder()
+      .setKey("ABCD")
+      .setRuleKey(RuleKey.of("xoo", "S01"))
+      .setSeverity(Severity.BLOCKER)
+      .setStatus(org.sonar.api.issue.Issue.STATUS_OPEN)
+      .setEffort(Duration.create(10L))
+      .setType(RuleType.BUG)
+      .addImpact(SoftwareQuality.MAINTAINABILITY, HIGH)
+      .build();
+    underTest.setIssues(Arrays.asList(issue));
+
+    assertThat(underTest.getIssuesIterator()).toIterable().containsExactly(issue);
+    IssueStatistics statistics = underTest.getIssueStatistics();
+    assertThat(statistics.count()).isOne();
+    assertThat(statistics.count(SoftwareQuality.MAINTAINABILITY, HIGH)).isOne();
+    assertThat(statistics.count(RuleType.BUG)).isOne();
+    assertThat(statistics.count(IssueStatus.OPEN)).isOne();
+    assertThat(statistics.effortInMinutes()).isEqualTo(10L);
+  }
 }